@@ -0,0 +1,56 @@
+/**
+ * Copyright (c) 2020 Bosch.IO GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.artifact.repository;
+
+import org.springframework.cloud.bus.event.RemoteApplicationEvent;
+
+/**
+ * Event which is sent over the Spring Cloud Bus to invalidate the cached
+ * lookups of an artifact, or of all artifacts of a tenant, in the
+ * {@link ArtifactMetadataCache} of the other instances of the cluster.
+ */
+public class ArtifactCacheInvalidationEvent extends RemoteApplicationEvent {
+    private static final long serialVersionUID = 1L;
+
+    private String tenant;
+    private String sha1Hash;
+
+    /**
+     * Constructor for the deserialization of the event.
+     */
+    protected ArtifactCacheInvalidationEvent() {
+        // for serialization libs like jackson
+    }
+
+    /**
+     * @param source
+     *            the source of the event
+     * @param originService
+     *            the id of the instance which sends the event
+     * @param tenant
+     *            the tenant of the invalidated artifacts
+     * @param sha1Hash
+     *            the SHA1 hash of the invalidated artifact, or
+     *            <code>null</code> for all artifacts of the tenant
+     */
+    public ArtifactCacheInvalidationEvent(final Object source, final String originService, final String tenant,
+            final String sha1Hash) {
+        super(source, originService);
+        this.tenant = tenant;
+        this.sha1Hash = sha1Hash;
+    }
+
+    public String getTenant() {
+        return tenant;
+    }
+
+    public String getSha1Hash() {
+        return sha1Hash;
+    }
+}
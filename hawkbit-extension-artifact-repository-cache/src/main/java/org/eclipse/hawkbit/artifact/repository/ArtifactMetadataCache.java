@@ -0,0 +1,168 @@
+/**
+ * Copyright (c) 2020 Bosch.IO GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.artifact.repository;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.hawkbit.artifact.repository.model.AbstractDbArtifact;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Bounded in-memory cache of the artifact lookups of the
+ * {@link MetadataCacheArtifactRepository}. Found artifacts are cached for a
+ * long time as they cannot change once stored, lookups of missing artifacts
+ * only for a short time as the artifact may be stored by another instance.
+ * Entries are invalidated by the deletion of the artifact, locally or by an
+ * {@link ArtifactCacheInvalidationEvent} of another instance.
+ * <p>
+ * Found artifacts are cached as {@link CachedArtifact} which holds the
+ * metadata only, so the memory of an entry does not depend on the artifact.
+ * The artifact of the backend is only kept for a short time, the content of
+ * a cached artifact is read from it without a further lookup. Every
+ * invalidation increments a generation, a lookup which has been started
+ * before an invalidation is not cached, see {@link #generation()}.
+ */
+public class ArtifactMetadataCache {
+
+    private final Cache<String, CachedArtifact> artifacts;
+    private final Cache<String, Boolean> existing;
+    private final Cache<String, Boolean> missing;
+    private final Cache<String, AbstractDbArtifact> backendArtifacts;
+
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * @param maxSize
+     *            maximum number of entries of each kind
+     * @param ttl
+     *            time after which a found artifact is looked up again
+     * @param negativeTtl
+     *            time after which a missing artifact is looked up again
+     * @param artifactTtl
+     *            time for which the artifact of the backend is kept for the
+     *            content reads of a cached artifact
+     */
+    public ArtifactMetadataCache(final long maxSize, final Duration ttl, final Duration negativeTtl,
+            final Duration artifactTtl) {
+        this.artifacts = CacheBuilder.newBuilder().maximumSize(maxSize)
+                .expireAfterWrite(ttl.toMillis(), TimeUnit.MILLISECONDS).build();
+        this.existing = CacheBuilder.newBuilder().maximumSize(maxSize)
+                .expireAfterWrite(ttl.toMillis(), TimeUnit.MILLISECONDS).build();
+        this.missing = CacheBuilder.newBuilder().maximumSize(maxSize)
+                .expireAfterWrite(negativeTtl.toMillis(), TimeUnit.MILLISECONDS).build();
+        this.backendArtifacts = CacheBuilder.newBuilder().maximumSize(maxSize)
+                .expireAfterWrite(artifactTtl.toMillis(), TimeUnit.MILLISECONDS).build();
+    }
+
+    /**
+     * @return the cached artifact, or <code>null</code> if it is not cached
+     */
+    CachedArtifact getArtifact(final String tenant, final String sha1Hash) {
+        return artifacts.getIfPresent(key(tenant, sha1Hash));
+    }
+
+    /**
+     * @return the artifact of the backend which is kept for the content reads
+     *         of the cached artifact, or <code>null</code> if it has to be
+     *         looked up again
+     */
+    AbstractDbArtifact getBackendArtifact(final String tenant, final String sha1Hash) {
+        return backendArtifacts.getIfPresent(key(tenant, sha1Hash));
+    }
+
+    /**
+     * @return <code>true</code> if the artifact is cached as existing,
+     *         <code>false</code> if it is cached as missing or
+     *         <code>null</code> if it is not cached
+     */
+    Boolean exists(final String tenant, final String sha1Hash) {
+        final String key = key(tenant, sha1Hash);
+        if (artifacts.getIfPresent(key) != null || existing.getIfPresent(key) != null) {
+            return Boolean.TRUE;
+        }
+        return missing.getIfPresent(key) != null ? Boolean.FALSE : null;
+    }
+
+    /**
+     * @return the current generation which has to be read before the lookup
+     *         in the backend and passed to the put of its result
+     */
+    long generation() {
+        return generation.get();
+    }
+
+    void putArtifact(final String tenant, final String sha1Hash, final CachedArtifact artifact,
+            final long lookupGeneration) {
+        final String key = key(tenant, sha1Hash);
+        if (artifact == null) {
+            put(missing, key, Boolean.TRUE, lookupGeneration);
+        } else {
+            put(artifacts, key, artifact, lookupGeneration);
+        }
+    }
+
+    void putBackendArtifact(final String tenant, final String sha1Hash, final AbstractDbArtifact artifact,
+            final long lookupGeneration) {
+        put(backendArtifacts, key(tenant, sha1Hash), artifact, lookupGeneration);
+    }
+
+    void putExists(final String tenant, final String sha1Hash, final boolean exists, final long lookupGeneration) {
+        put(exists ? existing : missing, key(tenant, sha1Hash), Boolean.TRUE, lookupGeneration);
+    }
+
+    private <V> void put(final Cache<String, V> cache, final String key, final V value, final long lookupGeneration) {
+        cache.put(key, value);
+        // an invalidation increments the generation before it removes the
+        // entries, so it either removes this entry or is detected here
+        if (generation.get() != lookupGeneration) {
+            cache.invalidate(key);
+        }
+    }
+
+    /**
+     * Invalidates the cached lookups of an artifact.
+     *
+     * @param tenant
+     *            the tenant of the artifact
+     * @param sha1Hash
+     *            the SHA1 hash of the artifact
+     */
+    public void invalidate(final String tenant, final String sha1Hash) {
+        generation.incrementAndGet();
+        final String key = key(tenant, sha1Hash);
+        artifacts.invalidate(key);
+        backendArtifacts.invalidate(key);
+        existing.invalidate(key);
+        missing.invalidate(key);
+    }
+
+    /**
+     * Invalidates the cached lookups of all artifacts of a tenant.
+     *
+     * @param tenant
+     *            the tenant
+     */
+    public void invalidateTenant(final String tenant) {
+        generation.incrementAndGet();
+        final String prefix = key(tenant, "");
+        artifacts.asMap().keySet().removeIf(key -> key.startsWith(prefix));
+        backendArtifacts.asMap().keySet().removeIf(key -> key.startsWith(prefix));
+        existing.asMap().keySet().removeIf(key -> key.startsWith(prefix));
+        missing.asMap().keySet().removeIf(key -> key.startsWith(prefix));
+    }
+
+    private static String key(final String tenant, final String sha1Hash) {
+        return tenant.trim().toUpperCase(Locale.ROOT) + "/" + sha1Hash.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,127 @@
+/**
+ * Copyright (c) 2020 Bosch.IO GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.artifact.repository;
+
+import java.nio.file.Paths;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.bus.BusProperties;
+import org.springframework.cloud.bus.jackson.RemoteApplicationEventScan;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.Assert;
+
+/**
+ * The Spring auto-configuration which decorates the {@link ArtifactRepository}
+ * registered by the S3, GCS, Azure Storage or MongoDB auto-configuration with
+ * the caches.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "org.eclipse.hawkbit.repository.cache", name = "enabled", matchIfMissing = true)
+@EnableConfigurationProperties(ArtifactRepositoryCacheProperties.class)
+public class ArtifactRepositoryCacheAutoConfiguration {
+
+    /**
+     * @return {@link ArtifactRepositoryDecoratingPostProcessor} which wraps the
+     *         {@link ArtifactRepository} into the enabled caches
+     */
+    @Bean
+    static ArtifactRepositoryDecoratingPostProcessor artifactRepositoryCachePostProcessor(
+            final ObjectProvider<ArtifactRepositoryCacheProperties> properties,
+            final ObjectProvider<CoalescingDownloadExecutor> downloadExecutor,
+            final ObjectProvider<CacheDirectory> diskCacheDirectory,
+            final ObjectProvider<ArtifactMetadataCache> metadataCache,
+            final ObjectProvider<MetadataCacheArtifactRepository.InvalidationPublisher> invalidationPublisher) {
+        return new ArtifactRepositoryDecoratingPostProcessor(repository -> decorate(repository,
+                properties.getObject(), downloadExecutor.getIfAvailable(), diskCacheDirectory.getIfAvailable(),
+                metadataCache.getIfAvailable(),
+                invalidationPublisher.getIfAvailable(() -> (tenant, sha1Hash) -> {
+                    // single instance, nothing to publish
+                })), ArtifactRepositoryDecoratingPostProcessor.CACHE_ORDER);
+    }
+
+    static ArtifactRepository decorate(final ArtifactRepository repository,
+            final ArtifactRepositoryCacheProperties properties, final CoalescingDownloadExecutor downloadExecutor,
+            final CacheDirectory diskCacheDirectory, final ArtifactMetadataCache metadataCache,
+            final MetadataCacheArtifactRepository.InvalidationPublisher invalidationPublisher) {
+        ArtifactRepository decorated = repository;
+        // the coalescing is below the disk cache, so artifacts which are
+        // cached are read from their file and not spooled again
+        if (downloadExecutor != null) {
+            decorated = new CoalescingArtifactRepository(decorated, downloadExecutor.getSpoolDirectory(),
+                    downloadExecutor.getExecutor());
+        }
+        if (diskCacheDirectory != null) {
+            decorated = new DiskCacheArtifactRepository(decorated, diskCacheDirectory.getPath(),
+                    properties.getDisk().getMaxSize());
+        }
+        if (metadataCache != null) {
+            decorated = new MetadataCacheArtifactRepository(decorated, metadataCache, invalidationPublisher);
+        }
+        return decorated;
+    }
+
+    /**
+     * @return the {@link CoalescingDownloadExecutor} of the shared downloads
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "org.eclipse.hawkbit.repository.cache.coalescing", name = "enabled", matchIfMissing = true)
+    CoalescingDownloadExecutor coalescingDownloadExecutor(final ArtifactRepositoryCacheProperties properties) {
+        return new CoalescingDownloadExecutor(properties.getCoalescing().getMaxDownloads(),
+                Paths.get(properties.getCoalescing().getDirectory()));
+    }
+
+    /**
+     * @return the {@link CacheDirectory} of the disk cache, locked by this
+     *         instance
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "org.eclipse.hawkbit.repository.cache.disk", name = "enabled")
+    CacheDirectory diskCacheDirectory(final ArtifactRepositoryCacheProperties properties) {
+        Assert.hasText(properties.getDisk().getDirectory(),
+                "org.eclipse.hawkbit.repository.cache.disk.directory is required if the disk cache is enabled");
+        return CacheDirectory.lock(Paths.get(properties.getDisk().getDirectory()));
+    }
+
+    /**
+     * @return the {@link ArtifactMetadataCache} of the artifact lookups
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "org.eclipse.hawkbit.repository.cache.metadata", name = "enabled", matchIfMissing = true)
+    ArtifactMetadataCache artifactMetadataCache(final ArtifactRepositoryCacheProperties properties) {
+        return new ArtifactMetadataCache(properties.getMetadata().getMaxSize(), properties.getMetadata().getTtl(),
+                properties.getMetadata().getNegativeTtl(), properties.getMetadata().getArtifactTtl());
+    }
+
+    /**
+     * Distributes the invalidations of the {@link ArtifactMetadataCache} over
+     * the Spring Cloud Bus if it is available.
+     */
+    @Configuration
+    @ConditionalOnClass(name = "org.springframework.cloud.bus.BusProperties")
+    @ConditionalOnExpression("${org.eclipse.hawkbit.repository.cache.metadata.enabled:true} and ${spring.cloud.bus.enabled:true}")
+    @RemoteApplicationEventScan(basePackageClasses = ArtifactCacheInvalidationEvent.class)
+    static class BusArtifactCacheInvalidationConfiguration {
+
+        /**
+         * @return {@link BusArtifactCacheInvalidation} which sends and receives
+         *         the invalidations
+         */
+        @Bean
+        BusArtifactCacheInvalidation busArtifactCacheInvalidation(final ApplicationEventPublisher eventPublisher,
+                final BusProperties busProperties, final ArtifactMetadataCache metadataCache) {
+            return new BusArtifactCacheInvalidation(eventPublisher, busProperties, metadataCache);
+        }
+    }
+}
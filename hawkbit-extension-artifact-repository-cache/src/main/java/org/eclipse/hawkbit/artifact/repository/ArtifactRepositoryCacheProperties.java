@@ -0,0 +1,214 @@
+/**
+ * Copyright (c) 2020 Bosch.IO GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.artifact.repository;
+
+import java.nio.file.Paths;
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * The configuration properties of the caches in front of the artifact
+ * repository.
+ */
+@ConfigurationProperties("org.eclipse.hawkbit.repository.cache")
+public class ArtifactRepositoryCacheProperties {
+
+    private final Disk disk = new Disk();
+
+    private final Coalescing coalescing = new Coalescing();
+
+    private final Metadata metadata = new Metadata();
+
+    public Disk getDisk() {
+        return disk;
+    }
+
+    public Coalescing getCoalescing() {
+        return coalescing;
+    }
+
+    public Metadata getMetadata() {
+        return metadata;
+    }
+
+    /**
+     * Local disk cache of the artifact content.
+     */
+    public static class Disk {
+
+        /**
+         * Caches the content of downloaded artifacts on the local disk.
+         */
+        private boolean enabled;
+
+        /**
+         * Directory of the cached artifacts, required if the disk cache is
+         * enabled. Should be on a local file system. The directory is locked
+         * by the instance, so it cannot be shared with other instances.
+         */
+        private String directory;
+
+        /**
+         * Maximum size (in bytes) of all cached artifacts. The least recently
+         * used artifacts are evicted if the size is exceeded. Artifacts larger
+         * than this size are not cached.
+         */
+        private long maxSize = 10L * 1024 * 1024 * 1024;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(final boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(final String directory) {
+            this.directory = directory;
+        }
+
+        public long getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(final long maxSize) {
+            this.maxSize = maxSize;
+        }
+    }
+
+    /**
+     * Coalescing of concurrent requests for the same artifact.
+     */
+    public static class Coalescing {
+
+        /**
+         * Shares one in-flight backend request between concurrent lookups and
+         * downloads of the same artifact.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Directory of the files into which the shared downloads are spooled.
+         * Every instance spools into a temporary directory of its own below
+         * this directory, so it may be shared with other instances.
+         */
+        private String directory = Paths.get(System.getProperty("java.io.tmpdir"), "hawkbit-artifact-spool")
+                .toString();
+
+        /**
+         * Maximum number of concurrent shared downloads. Reads of further
+         * artifacts are not coalesced but read from the backend directly.
+         */
+        private int maxDownloads = 64;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(final boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(final String directory) {
+            this.directory = directory;
+        }
+
+        public int getMaxDownloads() {
+            return maxDownloads;
+        }
+
+        public void setMaxDownloads(final int maxDownloads) {
+            this.maxDownloads = maxDownloads;
+        }
+    }
+
+    /**
+     * In-memory cache of the artifact lookups.
+     */
+    public static class Metadata {
+
+        /**
+         * Caches the results of getArtifactBySha1 and existsByTenantAndSha1.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Maximum number of cached found and missing artifacts each.
+         */
+        private long maxSize = 10_000;
+
+        /**
+         * Time after which a found artifact is looked up again. Deleted
+         * artifacts are invalidated immediately, so this only limits the
+         * effect of a lost invalidation.
+         */
+        private Duration ttl = Duration.ofHours(1);
+
+        /**
+         * Time after which a missing artifact is looked up again.
+         */
+        private Duration negativeTtl = Duration.ofSeconds(10);
+
+        /**
+         * Time for which the artifact of the backend is kept with a found
+         * artifact. Downloads within this time read the content without
+         * looking up the artifact in the backend again.
+         */
+        private Duration artifactTtl = Duration.ofMinutes(5);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(final boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(final long maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(final Duration ttl) {
+            this.ttl = ttl;
+        }
+
+        public Duration getNegativeTtl() {
+            return negativeTtl;
+        }
+
+        public void setNegativeTtl(final Duration negativeTtl) {
+            this.negativeTtl = negativeTtl;
+        }
+
+        public Duration getArtifactTtl() {
+            return artifactTtl;
+        }
+
+        public void setArtifactTtl(final Duration artifactTtl) {
+            this.artifactTtl = artifactTtl;
+        }
+    }
+}
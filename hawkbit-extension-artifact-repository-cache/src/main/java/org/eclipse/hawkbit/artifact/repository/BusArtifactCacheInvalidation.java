@@ -0,0 +1,71 @@
+/**
+ * Copyright (c) 2020 Bosch.IO GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.artifact.repository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.bus.BusProperties;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+
+/**
+ * Distributes the invalidations of the {@link ArtifactMetadataCache} over the
+ * Spring Cloud Bus. Local invalidations are sent as
+ * {@link ArtifactCacheInvalidationEvent} to all other instances, received
+ * events of other instances invalidate the local cache.
+ */
+public class BusArtifactCacheInvalidation implements MetadataCacheArtifactRepository.InvalidationPublisher {
+    private static final Logger LOG = LoggerFactory.getLogger(BusArtifactCacheInvalidation.class);
+
+    private final ApplicationEventPublisher eventPublisher;
+    private final BusProperties busProperties;
+    private final ArtifactMetadataCache cache;
+
+    /**
+     * @param eventPublisher
+     *            publishes the events to the bus
+     * @param busProperties
+     *            properties of the bus with the id of this instance
+     * @param cache
+     *            the local cache
+     */
+    public BusArtifactCacheInvalidation(final ApplicationEventPublisher eventPublisher,
+            final BusProperties busProperties, final ArtifactMetadataCache cache) {
+        this.eventPublisher = eventPublisher;
+        this.busProperties = busProperties;
+        this.cache = cache;
+    }
+
+    @Override
+    public void publish(final String tenant, final String sha1Hash) {
+        eventPublisher.publishEvent(new ArtifactCacheInvalidationEvent(this, busProperties.getId(), tenant, sha1Hash));
+    }
+
+    /**
+     * Invalidates the local cache on an event of another instance.
+     *
+     * @param event
+     *            the received event
+     */
+    @EventListener
+    public void onInvalidation(final ArtifactCacheInvalidationEvent event) {
+        if (busProperties.getId().equals(event.getOriginService())) {
+            // already invalidated locally
+            return;
+        }
+
+        LOG.debug("Invalidating cached artifact {} of tenant {} for {}", event.getSha1Hash(), event.getTenant(),
+                event.getOriginService());
+        if (event.getSha1Hash() == null) {
+            cache.invalidateTenant(event.getTenant());
+        } else {
+            cache.invalidate(event.getTenant(), event.getSha1Hash());
+        }
+    }
+}
@@ -0,0 +1,167 @@
+/**
+ * Copyright (c) 2020 Bosch.IO GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.artifact.repository;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+
+/**
+ * A directory of the caches which is used by a single instance only. The
+ * instance holds a lock on the file {@value #LOCK_FILE} in the directory
+ * until the application context is closed, so a second instance which is
+ * configured with the same directory fails to start instead of evicting and
+ * deleting the files of the first one.
+ * <p>
+ * A temporary directory is created below a parent directory which may be
+ * shared by several instances, see {@link #create(Path, String)}. It is
+ * deleted when the application context is closed, the temporary directories
+ * of instances which have been stopped without deleting them are deleted by
+ * the next instance which creates one.
+ */
+public class CacheDirectory implements DisposableBean {
+    private static final Logger LOG = LoggerFactory.getLogger(CacheDirectory.class);
+
+    static final String LOCK_FILE = ".lock";
+
+    private final Path path;
+    private final FileChannel channel;
+    private final FileLock lock;
+    private boolean temporary;
+
+    private CacheDirectory(final Path path, final FileChannel channel, final FileLock lock) {
+        this.path = path;
+        this.channel = channel;
+        this.lock = lock;
+    }
+
+    /**
+     * Creates a new temporary directory below the parent directory and locks
+     * it. The abandoned temporary directories with the same prefix, i.e.
+     * which are not locked, are deleted before.
+     *
+     * @param parent
+     *            the parent directory which may be shared by several
+     *            instances
+     * @param prefix
+     *            prefix of the name of the temporary directory
+     * @return the locked temporary {@link CacheDirectory}
+     * @throws ArtifactStoreException
+     *             if the directory cannot be created
+     */
+    public static CacheDirectory create(final Path parent, final String prefix) {
+        try {
+            Files.createDirectories(parent);
+            deleteAbandoned(parent, prefix);
+            final CacheDirectory directory = lock(Files.createTempDirectory(parent, prefix));
+            directory.temporary = true;
+            return directory;
+        } catch (final IOException e) {
+            throw new ArtifactStoreException("Failed to create a cache directory in " + parent, e);
+        }
+    }
+
+    private static void deleteAbandoned(final Path parent, final String prefix) throws IOException {
+        try (final DirectoryStream<Path> directories = Files.newDirectoryStream(parent, prefix + "*")) {
+            for (final Path directory : directories) {
+                // a directory without lock file is being created
+                if (!Files.isRegularFile(directory.resolve(LOCK_FILE))) {
+                    continue;
+                }
+                final CacheDirectory abandoned;
+                try {
+                    abandoned = lock(directory);
+                } catch (final ArtifactStoreException e) {
+                    LOG.trace("Cache directory {} is in use", directory, e);
+                    continue;
+                }
+                LOG.info("Deleting abandoned cache directory {}", directory);
+                abandoned.temporary = true;
+                abandoned.destroy();
+            }
+        }
+    }
+
+    /**
+     * Creates the directory if it does not exist and locks it.
+     *
+     * @param directory
+     *            the directory to lock
+     * @return the locked {@link CacheDirectory}
+     * @throws ArtifactStoreException
+     *             if the directory is used by another instance or cannot be
+     *             locked
+     */
+    public static CacheDirectory lock(final Path directory) {
+        try {
+            Files.createDirectories(directory);
+            final FileChannel channel = FileChannel.open(directory.resolve(LOCK_FILE), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE);
+            final FileLock lock = tryLock(channel);
+            if (lock == null) {
+                channel.close();
+                throw new ArtifactStoreException("Cache directory " + directory + " is used by another instance");
+            }
+            return new CacheDirectory(directory, channel, lock);
+        } catch (final IOException e) {
+            throw new ArtifactStoreException("Failed to lock the cache directory " + directory, e);
+        }
+    }
+
+    private static FileLock tryLock(final FileChannel channel) throws IOException {
+        try {
+            return channel.tryLock();
+        } catch (final OverlappingFileLockException e) {
+            // locked by another application context of this JVM
+            return null;
+        }
+    }
+
+    /**
+     * @return the path of the directory
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        try {
+            lock.release();
+        } finally {
+            channel.close();
+        }
+        if (temporary) {
+            delete();
+        }
+    }
+
+    private void delete() throws IOException {
+        final List<Path> files;
+        try (final Stream<Path> walk = Files.walk(path)) {
+            files = walk.sorted(Comparator.reverseOrder()).collect(Collectors.toList());
+        }
+        for (final Path file : files) {
+            Files.deleteIfExists(file);
+        }
+    }
+}
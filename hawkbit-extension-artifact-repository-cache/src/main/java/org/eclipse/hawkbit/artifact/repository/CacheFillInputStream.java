@@ -0,0 +1,219 @@
+/**
+ * Copyright (c) 2020 Bosch.IO GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.artifact.repository;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.io.BaseEncoding;
+
+/**
+ * {@link InputStream} on the content of an artifact which writes the read
+ * bytes into a temporary cache file. Once the content has been read
+ * completely and its size and SHA1 hash match the artifact, the temporary
+ * file is handed over to be committed into the cache. Skipped bytes are read
+ * as well, so they are part of the cache file. A stream which is closed
+ * before its end, or fails to write the cache file, still delivers the
+ * content but discards the cache file.
+ */
+class CacheFillInputStream extends FilterInputStream {
+    private static final Logger LOG = LoggerFactory.getLogger(CacheFillInputStream.class);
+
+    private static final int SKIP_BUFFER_SIZE = 8192;
+
+    private final FileChannel cacheFile;
+    private final Path tempFile;
+    private final long size;
+    private final String sha1Hash;
+    private final Consumer<Path> commit;
+    private final Runnable release;
+    private final MessageDigest sha1;
+
+    private long position;
+    private boolean filling = true;
+
+    /**
+     * @param content
+     *            the content of the artifact
+     * @param cacheFile
+     *            channel on the temporary cache file
+     * @param tempFile
+     *            the temporary cache file
+     * @param size
+     *            size of the artifact
+     * @param sha1Hash
+     *            base16 SHA1 hash of the artifact
+     * @param sha1
+     *            SHA1 digest to verify the content
+     * @param commit
+     *            commits the complete temporary file into the cache
+     * @param release
+     *            called once when the stream stops filling the cache,
+     *            committed or not
+     */
+    CacheFillInputStream(final InputStream content, final FileChannel cacheFile, final Path tempFile,
+            final long size, final String sha1Hash, final MessageDigest sha1, final Consumer<Path> commit,
+            final Runnable release) {
+        super(content);
+        this.cacheFile = cacheFile;
+        this.tempFile = tempFile;
+        this.size = size;
+        this.sha1Hash = sha1Hash;
+        this.sha1 = sha1;
+        this.commit = commit;
+        this.release = release;
+    }
+
+    @Override
+    public int read() throws IOException {
+        final int read = super.read();
+        if (read < 0) {
+            complete();
+        } else {
+            fill(new byte[] { (byte) read }, 0, 1);
+        }
+        return read;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+        final int read = super.read(b, off, len);
+        if (read < 0) {
+            complete();
+        } else if (read > 0) {
+            fill(b, off, read);
+        }
+        return read;
+    }
+
+    @Override
+    public long skip(final long n) throws IOException {
+        if (!filling || n <= 0) {
+            return super.skip(n);
+        }
+
+        // e.g. a resumed download, the skipped bytes are needed in the cache
+        final byte[] buffer = new byte[(int) Math.min(n, SKIP_BUFFER_SIZE)];
+        long skipped = 0;
+        while (skipped < n) {
+            final int read = read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+            if (read < 0) {
+                break;
+            }
+            skipped += read;
+        }
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public synchronized void mark(final int readlimit) {
+        // not supported
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        throw new IOException("mark/reset not supported");
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            super.close();
+        } finally {
+            discard();
+        }
+    }
+
+    private void fill(final byte[] b, final int off, final int len) {
+        if (!filling) {
+            return;
+        }
+        try {
+            final ByteBuffer buffer = ByteBuffer.wrap(b, off, len);
+            while (buffer.hasRemaining()) {
+                cacheFile.write(buffer);
+            }
+        } catch (final IOException e) {
+            LOG.warn("Failed to write artifact {} into the cache", sha1Hash, e);
+            discard();
+            return;
+        }
+        sha1.update(b, off, len);
+        position += len;
+    }
+
+    private void complete() {
+        if (!filling) {
+            return;
+        }
+        filling = false;
+        try {
+            commitIfValid();
+        } finally {
+            release.run();
+        }
+    }
+
+    private void commitIfValid() {
+        try {
+            cacheFile.close();
+        } catch (final IOException e) {
+            LOG.warn("Failed to write artifact {} into the cache", sha1Hash, e);
+            deleteTempFile();
+            return;
+        }
+
+        final String readSha1Hash = BaseEncoding.base16().lowerCase().encode(sha1.digest());
+        if (position != size || !readSha1Hash.equalsIgnoreCase(sha1Hash)) {
+            LOG.warn("Read artifact {} with {} bytes and SHA1 {} which does not match its size of {} bytes, not cached",
+                    sha1Hash, position, readSha1Hash, size);
+            deleteTempFile();
+            return;
+        }
+        commit.accept(tempFile);
+    }
+
+    private void discard() {
+        if (!filling) {
+            return;
+        }
+        filling = false;
+        try {
+            cacheFile.close();
+        } catch (final IOException e) {
+            LOG.debug("Failed to close cache file {}", tempFile, e);
+        } finally {
+            deleteTempFile();
+            release.run();
+        }
+    }
+
+    private void deleteTempFile() {
+        try {
+            Files.deleteIfExists(tempFile);
+        } catch (final IOException e) {
+            LOG.warn("Failed to delete cache file {}", tempFile, e);
+        }
+    }
+}
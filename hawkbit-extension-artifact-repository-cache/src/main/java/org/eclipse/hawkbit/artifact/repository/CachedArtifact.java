@@ -0,0 +1,64 @@
+/**
+ * Copyright (c) 2020 Bosch.IO GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.artifact.repository;
+
+import java.io.InputStream;
+import java.util.function.Supplier;
+
+import org.eclipse.hawkbit.artifact.repository.model.AbstractDbArtifact;
+
+/**
+ * A lightweight {@link AbstractDbArtifact} which is kept in the
+ * {@link ArtifactMetadataCache}. It only holds the metadata of the artifact,
+ * not the artifact of the backend which may hold its whole content in memory,
+ * e.g. an inline GridFS artifact. The content is read from the artifact of the
+ * backend which the cache keeps for a short time, it is looked up again once
+ * it has expired or been invalidated.
+ */
+public class CachedArtifact extends AbstractDbArtifact {
+
+    private final Supplier<AbstractDbArtifact> lookup;
+
+    CachedArtifact(final AbstractDbArtifact artifact, final Supplier<AbstractDbArtifact> lookup) {
+        super(artifact.getArtifactId(), artifact.getHashes(), artifact.getSize(), artifact.getContentType());
+        this.lookup = lookup;
+    }
+
+    @Override
+    public InputStream getFileInputStream() {
+        return resolve().getFileInputStream();
+    }
+
+    /**
+     * Opens a stream on a range of the artifact, e.g. to resume a download.
+     *
+     * @param offset
+     *            position of the first byte to read
+     * @param length
+     *            number of bytes to read
+     * @return the {@link InputStream} of the requested range
+     */
+    public InputStream getFileInputStream(final long offset, final long length) {
+        ArtifactRanges.checkRange(offset, length);
+        return ArtifactRanges.open(resolve(), offset, length);
+    }
+
+    private AbstractDbArtifact resolve() {
+        final AbstractDbArtifact artifact = lookup.get();
+        if (artifact == null) {
+            throw new ArtifactStoreException("Artifact " + getArtifactId() + " has been deleted");
+        }
+        return artifact;
+    }
+
+    @Override
+    public String toString() {
+        return "CachedArtifact [artifactId=" + getArtifactId() + ", size=" + getSize() + "]";
+    }
+}
@@ -0,0 +1,57 @@
+/**
+ * Copyright (c) 2020 Bosch.IO GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.artifact.repository;
+
+import java.io.InputStream;
+
+import org.eclipse.hawkbit.artifact.repository.model.AbstractDbArtifact;
+
+/**
+ * An {@link AbstractDbArtifact} implementation whose content is read by the
+ * download of the {@link CoalescingArtifactRepository} which is shared by all
+ * concurrent readers of the artifact.
+ */
+public class CoalescingArtifact extends AbstractDbArtifact {
+
+    private final AbstractDbArtifact artifact;
+    private final CoalescingArtifactRepository repository;
+    private final String key;
+
+    CoalescingArtifact(final AbstractDbArtifact artifact, final CoalescingArtifactRepository repository,
+            final String key) {
+        super(artifact.getArtifactId(), artifact.getHashes(), artifact.getSize(), artifact.getContentType());
+        this.artifact = artifact;
+        this.repository = repository;
+        this.key = key;
+    }
+
+    @Override
+    public InputStream getFileInputStream() {
+        return repository.getFileInputStream(key, artifact);
+    }
+
+    /**
+     * Opens a stream on a range of the artifact, e.g. to resume a download.
+     * Ranges are not coalesced but read by the ranged read of the backend.
+     *
+     * @param offset
+     *            position of the first byte to read
+     * @param length
+     *            number of bytes to read
+     * @return the {@link InputStream} of the requested range
+     */
+    public InputStream getFileInputStream(final long offset, final long length) {
+        return ArtifactRanges.open(artifact, offset, length);
+    }
+
+    @Override
+    public String toString() {
+        return "CoalescingArtifact [key=" + key + ", artifact=" + artifact + "]";
+    }
+}
@@ -0,0 +1,210 @@
+/**
+ * Copyright (c) 2020 Bosch.IO GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.artifact.repository;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import org.eclipse.hawkbit.artifact.repository.model.AbstractDbArtifact;
+import org.eclipse.hawkbit.artifact.repository.model.DbArtifactHash;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+
+/**
+ * {@link ArtifactRepository} which coalesces concurrent requests for the same
+ * artifact into a single request to another repository. Concurrent metadata
+ * lookups of the same tenant and SHA1 hash share one in-flight lookup.
+ * Concurrent reads of the content share one download from the backend which
+ * is spooled into a file that is read by all readers, see
+ * {@link SpooledDownload}. A read which starts after the download has
+ * finished starts a new download.
+ */
+public class CoalescingArtifactRepository implements ArtifactRepository {
+    private static final Logger LOG = LoggerFactory.getLogger(CoalescingArtifactRepository.class);
+
+    private static final String SPOOL_FILE_SUFFIX = ".spool";
+
+    private final ArtifactRepository delegate;
+    private final Path directory;
+    private final Executor executor;
+
+    private final ConcurrentMap<String, CompletableFuture<AbstractDbArtifact>> artifactLookups = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, CompletableFuture<Boolean>> existsLookups = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, SpooledDownload> downloads = new ConcurrentHashMap<>();
+
+    /**
+     * @param delegate
+     *            the repository whose requests are coalesced
+     * @param directory
+     *            directory of the spool files, must not be used by other
+     *            instances, see {@link CoalescingDownloadExecutor}
+     * @param executor
+     *            runs the shared downloads, a read whose download is
+     *            rejected by the executor reads the backend directly
+     */
+    public CoalescingArtifactRepository(final ArtifactRepository delegate, final Path directory,
+            final Executor executor) {
+        Assert.notNull(delegate, "Delegate cannot be null");
+        Assert.notNull(directory, "Directory cannot be null");
+        Assert.notNull(executor, "Executor cannot be null");
+        this.delegate = delegate;
+        this.directory = directory;
+        this.executor = executor;
+
+        try {
+            Files.createDirectories(directory);
+        } catch (final IOException e) {
+            throw new ArtifactStoreException("Failed to initialize the spool directory " + directory, e);
+        }
+    }
+
+    @Override
+    public AbstractDbArtifact store(final String tenant, final InputStream content, final String filename,
+            final String contentType, final DbArtifactHash hash) {
+        return delegate.store(tenant, content, filename, contentType, hash);
+    }
+
+    @Override
+    public void deleteBySha1(final String tenant, final String sha1Hash) {
+        delegate.deleteBySha1(tenant, sha1Hash);
+    }
+
+    @Override
+    public AbstractDbArtifact getArtifactBySha1(final String tenant, final String sha1Hash) {
+        final String key = key(tenant, sha1Hash);
+        return coalesce(artifactLookups, key, () -> {
+            final AbstractDbArtifact artifact = delegate.getArtifactBySha1(tenant, sha1Hash);
+            return artifact == null ? null : new CoalescingArtifact(artifact, this, key);
+        });
+    }
+
+    @Override
+    public boolean existsByTenantAndSha1(final String tenant, final String sha1Hash) {
+        return coalesce(existsLookups, key(tenant, sha1Hash),
+                () -> delegate.existsByTenantAndSha1(tenant, sha1Hash));
+    }
+
+    @Override
+    public void deleteByTenant(final String tenant) {
+        delegate.deleteByTenant(tenant);
+    }
+
+    private static <T> T coalesce(final ConcurrentMap<String, CompletableFuture<T>> lookups, final String key,
+            final Supplier<T> lookup) {
+        final CompletableFuture<T> own = new CompletableFuture<>();
+        final CompletableFuture<T> inFlight = lookups.putIfAbsent(key, own);
+        if (inFlight != null) {
+            return join(inFlight, key);
+        }
+
+        try {
+            final T result = lookup.get();
+            own.complete(result);
+            return result;
+        } catch (final RuntimeException e) {
+            own.completeExceptionally(e);
+            throw e;
+        } finally {
+            lookups.remove(key, own);
+        }
+    }
+
+    private static <T> T join(final CompletableFuture<T> inFlight, final String key) {
+        try {
+            return inFlight.join();
+        } catch (final CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new ArtifactStoreException("Failed to look up artifact " + key, e.getCause());
+        }
+    }
+
+    /**
+     * Opens the content of an artifact as reader of the in-flight download of
+     * the artifact, or of a new download if none is in flight.
+     *
+     * @param key
+     *            key of the artifact
+     * @param artifact
+     *            the artifact of the backend
+     * @return the content of the artifact
+     */
+    InputStream getFileInputStream(final String key, final AbstractDbArtifact artifact) {
+        try {
+            while (true) {
+                final AtomicReference<InputStream> started = new AtomicReference<>();
+                final SpooledDownload download = downloads.computeIfAbsent(key,
+                        k -> startDownload(k, artifact, started));
+                if (download == null) {
+                    return artifact.getFileInputStream();
+                }
+                if (started.get() != null) {
+                    return started.get();
+                }
+
+                final InputStream reader = download.newReader();
+                if (reader != null) {
+                    return reader;
+                }
+                // aborted or finished while joining it
+                downloads.remove(key, download);
+            }
+        } catch (final IOException e) {
+            throw new ArtifactStoreException("Failed to read spooled artifact " + key, e);
+        }
+    }
+
+    /**
+     * Starts a new download before it is published, so the readers which
+     * join it cannot fail because the executor is saturated.
+     *
+     * @return the started download, or <code>null</code> if the artifact
+     *         cannot be spooled or the executor is saturated
+     */
+    private SpooledDownload startDownload(final String key, final AbstractDbArtifact artifact,
+            final AtomicReference<InputStream> reader) {
+        final Path spoolFile;
+        try {
+            spoolFile = Files.createTempFile(directory, null, SPOOL_FILE_SUFFIX);
+        } catch (final IOException e) {
+            LOG.warn("Failed to create spool file for artifact {}, not coalesced", key, e);
+            return null;
+        }
+
+        final SpooledDownload download = new SpooledDownload(key, artifact::getFileInputStream, spoolFile,
+                executor, finished -> downloads.remove(key, finished));
+        try {
+            reader.set(download.start());
+            return download;
+        } catch (final RejectedExecutionException e) {
+            LOG.debug("Maximum of shared downloads reached, artifact {} not coalesced", key, e);
+            return null;
+        } catch (final IOException e) {
+            LOG.warn("Failed to read spool file of artifact {}, not coalesced", key, e);
+            return null;
+        }
+    }
+
+    private static String key(final String tenant, final String sha1Hash) {
+        return tenant.trim().toUpperCase(Locale.ROOT) + "/" + sha1Hash.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,70 @@
+/**
+ * Copyright (c) 2020 Bosch.IO GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.artifact.repository;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.Executor;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.DisposableBean;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Runs the shared downloads of the {@link CoalescingArtifactRepository}, one
+ * thread per artifact which is downloaded concurrently up to a maximum. A
+ * download beyond the maximum is rejected instead of queued, so its reader
+ * reads the backend directly rather than waiting for a running download to
+ * finish. The downloads are spooled into a directory of this instance which
+ * is created below a spool directory that may be shared with other instances,
+ * see {@link CacheDirectory#create(Path, String)}. The threads are stopped
+ * and the directory is deleted when the application context is closed.
+ */
+public class CoalescingDownloadExecutor implements DisposableBean {
+
+    private static final String SPOOL_DIRECTORY_PREFIX = "instance-";
+
+    private final ThreadPoolExecutor executor;
+    private final CacheDirectory spoolDirectory;
+
+    /**
+     * @param maxDownloads
+     *            maximum number of concurrent shared downloads
+     * @param spoolDirectory
+     *            parent directory of the spool directory of this instance
+     */
+    public CoalescingDownloadExecutor(final int maxDownloads, final Path spoolDirectory) {
+        this.spoolDirectory = CacheDirectory.create(spoolDirectory, SPOOL_DIRECTORY_PREFIX);
+        executor = new ThreadPoolExecutor(0, maxDownloads, 60, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                new ThreadFactoryBuilder().setNameFormat("artifact-download-%d").setDaemon(true).build());
+    }
+
+    /**
+     * @return the {@link Executor} of the downloads
+     */
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * @return the spool directory of this instance
+     */
+    public Path getSpoolDirectory() {
+        return spoolDirectory.getPath();
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        executor.shutdownNow();
+        spoolDirectory.destroy();
+    }
+}
@@ -0,0 +1,58 @@
+/**
+ * Copyright (c) 2020 Bosch.IO GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.artifact.repository;
+
+import java.io.InputStream;
+import java.nio.file.Path;
+
+import org.eclipse.hawkbit.artifact.repository.model.AbstractDbArtifact;
+
+/**
+ * An {@link AbstractDbArtifact} implementation which reads the content from
+ * the {@link DiskCacheArtifactRepository} and from the artifact of the
+ * backend if it is not cached yet.
+ */
+public class DiskCacheArtifact extends AbstractDbArtifact {
+
+    private final AbstractDbArtifact artifact;
+    private final DiskCacheArtifactRepository cache;
+    private final Path key;
+
+    DiskCacheArtifact(final AbstractDbArtifact artifact, final DiskCacheArtifactRepository cache, final Path key) {
+        super(artifact.getArtifactId(), artifact.getHashes(), artifact.getSize(), artifact.getContentType());
+        this.artifact = artifact;
+        this.cache = cache;
+        this.key = key;
+    }
+
+    @Override
+    public InputStream getFileInputStream() {
+        return cache.getFileInputStream(key, artifact);
+    }
+
+    /**
+     * Opens a stream on a range of the artifact, e.g. to resume a download.
+     * The range is read from the cached file, or by the ranged read of the
+     * backend if the artifact is not cached.
+     *
+     * @param offset
+     *            position of the first byte to read
+     * @param length
+     *            number of bytes to read
+     * @return the {@link InputStream} of the requested range
+     */
+    public InputStream getFileInputStream(final long offset, final long length) {
+        return cache.getFileInputStream(key, artifact, offset, length);
+    }
+
+    @Override
+    public String toString() {
+        return "DiskCacheArtifact [key=" + key + ", artifact=" + artifact + "]";
+    }
+}
@@ -0,0 +1,368 @@
+/**
+ * Copyright (c) 2020 Bosch.IO GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.artifact.repository;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.eclipse.hawkbit.artifact.repository.model.AbstractDbArtifact;
+import org.eclipse.hawkbit.artifact.repository.model.DbArtifactHash;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+
+import com.google.common.io.BaseEncoding;
+import com.google.common.io.ByteStreams;
+
+/**
+ * {@link ArtifactRepository} which caches the content of the artifacts of
+ * another repository on the local disk. The cache is content-addressed: an
+ * artifact is stored as file named by its SHA1 hash in a directory of its
+ * tenant. The file is written while the content is read from the backend for
+ * the first time and served by a {@link FileChannel} afterwards. The least
+ * recently used files are evicted when the size of the cache exceeds its
+ * maximum.
+ * <p>
+ * The metadata of an artifact is still looked up in the backend, so an
+ * artifact which has been deleted by another instance is not served from the
+ * cache.
+ */
+public class DiskCacheArtifactRepository implements ArtifactRepository {
+    private static final Logger LOG = LoggerFactory.getLogger(DiskCacheArtifactRepository.class);
+
+    static final String TEMP_FILE_SUFFIX = ".tmp";
+    private static final Pattern SHA1_HASH = Pattern.compile("[0-9a-fA-F]{40}");
+
+    private final ArtifactRepository delegate;
+    private final Path directory;
+    private final long maxSize;
+
+    // relative path of the cached file -> size, in access order
+    private final Map<Path, Long> entries = new LinkedHashMap<>(16, 0.75F, true);
+    private long size;
+
+    // relative paths of the files which are being filled
+    private final Set<Path> filling = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param delegate
+     *            the repository whose artifacts are cached
+     * @param directory
+     *            directory of the cached artifacts, must not be used by
+     *            other instances, see {@link CacheDirectory}
+     * @param maxSize
+     *            maximum size of all cached artifacts in bytes
+     */
+    public DiskCacheArtifactRepository(final ArtifactRepository delegate, final Path directory,
+            final long maxSize) {
+        Assert.notNull(delegate, "Delegate cannot be null");
+        Assert.notNull(directory, "Directory cannot be null");
+        this.delegate = delegate;
+        this.directory = directory;
+        this.maxSize = maxSize;
+
+        try {
+            Files.createDirectories(directory);
+            loadEntries();
+        } catch (final IOException e) {
+            throw new ArtifactStoreException("Failed to initialize the artifact cache in " + directory, e);
+        }
+    }
+
+    private void loadEntries() throws IOException {
+        final List<Path> files;
+        try (final Stream<Path> walk = Files.walk(directory, 2)) {
+            files = walk.filter(Files::isRegularFile)
+                    .sorted(Comparator.comparingLong(file -> file.toFile().lastModified()))
+                    .collect(Collectors.toList());
+        }
+
+        for (final Path file : files) {
+            final Path key = directory.relativize(file);
+            if (key.getNameCount() == 2 && SHA1_HASH.matcher(key.getFileName().toString()).matches()) {
+                add(key, Files.size(file));
+            } else if (key.getFileName().toString().endsWith(TEMP_FILE_SUFFIX)) {
+                // left behind by a download which has been interrupted
+                Files.deleteIfExists(file);
+            }
+        }
+        LOG.info("Loaded {} cached artifacts with {} bytes from {}", entries.size(), size, directory);
+    }
+
+    @Override
+    public AbstractDbArtifact store(final String tenant, final InputStream content, final String filename,
+            final String contentType, final DbArtifactHash hash) {
+        return delegate.store(tenant, content, filename, contentType, hash);
+    }
+
+    @Override
+    public void deleteBySha1(final String tenant, final String sha1Hash) {
+        delegate.deleteBySha1(tenant, sha1Hash);
+        if (isCacheable(sha1Hash)) {
+            evict(key(tenant, sha1Hash));
+        }
+    }
+
+    @Override
+    public AbstractDbArtifact getArtifactBySha1(final String tenant, final String sha1Hash) {
+        final AbstractDbArtifact artifact = delegate.getArtifactBySha1(tenant, sha1Hash);
+        if (!isCacheable(sha1Hash)) {
+            return artifact;
+        }
+
+        final Path key = key(tenant, sha1Hash);
+        if (artifact == null) {
+            evict(key);
+            return null;
+        }
+        if (artifact.getSize() > maxSize) {
+            return artifact;
+        }
+        return new DiskCacheArtifact(artifact, this, key);
+    }
+
+    @Override
+    public boolean existsByTenantAndSha1(final String tenant, final String sha1Hash) {
+        return delegate.existsByTenantAndSha1(tenant, sha1Hash);
+    }
+
+    @Override
+    public void deleteByTenant(final String tenant) {
+        delegate.deleteByTenant(tenant);
+
+        final Path tenantDirectory = Paths.get(tenantDirectory(tenant));
+        final List<Path> evicted = new ArrayList<>();
+        synchronized (entries) {
+            final Iterator<Map.Entry<Path, Long>> iterator = entries.entrySet().iterator();
+            while (iterator.hasNext()) {
+                final Map.Entry<Path, Long> entry = iterator.next();
+                if (entry.getKey().startsWith(tenantDirectory)) {
+                    size -= entry.getValue();
+                    evicted.add(entry.getKey());
+                    iterator.remove();
+                }
+            }
+        }
+        evicted.forEach(this::deleteFile);
+
+        try {
+            Files.deleteIfExists(directory.resolve(tenantDirectory));
+        } catch (final DirectoryNotEmptyException e) {
+            LOG.debug("Cache directory of tenant {} is still in use", tenant, e);
+        } catch (final IOException e) {
+            LOG.warn("Failed to delete cache directory of tenant {}", tenant, e);
+        }
+    }
+
+    /**
+     * @return the size of all cached artifacts in bytes
+     */
+    public long getSize() {
+        synchronized (entries) {
+            return size;
+        }
+    }
+
+    /**
+     * @return the number of cached artifacts
+     */
+    public int getCount() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Opens the content of an artifact from the cache, or from the backend
+     * while it is written into the cache.
+     *
+     * @param key
+     *            relative path of the cached file
+     * @param artifact
+     *            the artifact of the backend
+     * @return the content of the artifact
+     */
+    InputStream getFileInputStream(final Path key, final AbstractDbArtifact artifact) {
+        final FileChannel cached = openCached(key);
+        if (cached != null) {
+            return Channels.newInputStream(cached);
+        }
+        return openAndFill(key, artifact);
+    }
+
+    /**
+     * Opens a range of the content of an artifact from the cache, or by the
+     * ranged read of the backend if it is not cached. A range does not fill
+     * the cache.
+     *
+     * @param key
+     *            relative path of the cached file
+     * @param artifact
+     *            the artifact of the backend
+     * @param offset
+     *            position of the first byte to read
+     * @param length
+     *            number of bytes to read
+     * @return the content of the range
+     */
+    InputStream getFileInputStream(final Path key, final AbstractDbArtifact artifact, final long offset,
+            final long length) {
+        ArtifactRanges.checkRange(offset, length);
+        final FileChannel cached = openCached(key);
+        if (cached == null) {
+            return ArtifactRanges.open(artifact, offset, length);
+        }
+
+        try {
+            cached.position(offset);
+        } catch (final IOException e) {
+            ArtifactRanges.closeQuietly(cached);
+            LOG.warn("Failed to read cached artifact {}, reading from backend", key, e);
+            return ArtifactRanges.open(artifact, offset, length);
+        }
+        return ByteStreams.limit(Channels.newInputStream(cached), length);
+    }
+
+    private FileChannel openCached(final Path key) {
+        synchronized (entries) {
+            // marks the entry as recently used
+            if (entries.get(key) == null) {
+                return null;
+            }
+        }
+
+        try {
+            return FileChannel.open(directory.resolve(key), StandardOpenOption.READ);
+        } catch (final NoSuchFileException e) {
+            LOG.debug("Cached artifact {} has been evicted concurrently", key, e);
+            return null;
+        } catch (final IOException e) {
+            LOG.warn("Failed to read cached artifact {}, reading from backend", key, e);
+            return null;
+        }
+    }
+
+    private InputStream openAndFill(final Path key, final AbstractDbArtifact artifact) {
+        final InputStream content = artifact.getFileInputStream();
+        if (!filling.add(key)) {
+            // concurrent misses are written into the cache only once
+            return content;
+        }
+
+        final MessageDigest sha1;
+        final Path tempFile;
+        final FileChannel cacheFile;
+        try {
+            sha1 = MessageDigest.getInstance("SHA-1");
+            tempFile = Files.createTempFile(directory, null, TEMP_FILE_SUFFIX);
+            cacheFile = FileChannel.open(tempFile, StandardOpenOption.WRITE);
+        } catch (final IOException | NoSuchAlgorithmException e) {
+            LOG.warn("Failed to create cache file for artifact {}, not cached", key, e);
+            filling.remove(key);
+            return content;
+        }
+
+        return new CacheFillInputStream(content, cacheFile, tempFile, artifact.getSize(),
+                artifact.getHashes().getSha1(), sha1, file -> commit(key, file), () -> filling.remove(key));
+    }
+
+    private void commit(final Path key, final Path tempFile) {
+        final Path file = directory.resolve(key);
+        final long length;
+        try {
+            length = Files.size(tempFile);
+            Files.createDirectories(file.getParent());
+            Files.move(tempFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (final IOException e) {
+            LOG.warn("Failed to commit artifact {} into the cache", key, e);
+            deleteFile(tempFile);
+            return;
+        }
+        LOG.debug("Cached artifact {} with {} bytes", key, length);
+        add(key, length);
+    }
+
+    private void add(final Path key, final long length) {
+        final List<Path> evicted = new ArrayList<>();
+        synchronized (entries) {
+            final Long previous = entries.put(key, length);
+            size += length - (previous == null ? 0 : previous);
+
+            final Iterator<Map.Entry<Path, Long>> iterator = entries.entrySet().iterator();
+            while (size > maxSize && iterator.hasNext()) {
+                final Map.Entry<Path, Long> eldest = iterator.next();
+                size -= eldest.getValue();
+                evicted.add(eldest.getKey());
+                iterator.remove();
+            }
+        }
+        // readers which have opened an evicted file keep reading it
+        evicted.forEach(this::deleteFile);
+    }
+
+    private void evict(final Path key) {
+        final Long length;
+        synchronized (entries) {
+            length = entries.remove(key);
+            if (length != null) {
+                size -= length;
+            }
+        }
+        if (length != null) {
+            deleteFile(key);
+        }
+    }
+
+    private void deleteFile(final Path key) {
+        try {
+            Files.deleteIfExists(directory.resolve(key));
+        } catch (final IOException e) {
+            LOG.warn("Failed to delete cached artifact {}", key, e);
+        }
+    }
+
+    private static boolean isCacheable(final String sha1Hash) {
+        // the hash is part of the file name
+        return sha1Hash != null && SHA1_HASH.matcher(sha1Hash).matches();
+    }
+
+    private static Path key(final String tenant, final String sha1Hash) {
+        return Paths.get(tenantDirectory(tenant), sha1Hash.toLowerCase(Locale.ROOT));
+    }
+
+    private static String tenantDirectory(final String tenant) {
+        // tenants are not restricted to valid file names
+        return BaseEncoding.base32Hex().omitPadding()
+                .encode(tenant.trim().toUpperCase(Locale.ROOT).getBytes(StandardCharsets.UTF_8));
+    }
+}
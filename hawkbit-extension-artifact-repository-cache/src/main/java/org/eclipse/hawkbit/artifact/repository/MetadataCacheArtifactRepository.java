@@ -0,0 +1,144 @@
+/**
+ * Copyright (c) 2020 Bosch.IO GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.artifact.repository;
+
+import java.io.InputStream;
+
+import org.eclipse.hawkbit.artifact.repository.model.AbstractDbArtifact;
+import org.eclipse.hawkbit.artifact.repository.model.DbArtifactHash;
+import org.springframework.util.Assert;
+
+/**
+ * {@link ArtifactRepository} which serves {@link #getArtifactBySha1} and
+ * {@link #existsByTenantAndSha1} from an {@link ArtifactMetadataCache}
+ * instead of a round trip to the backend. A cached artifact reads its content
+ * from the artifact of the backend which is kept for a short time, and looks
+ * it up again once it has expired. The cached lookups of an artifact are
+ * invalidated when it is stored or deleted, and the invalidation is
+ * published to the other instances of the cluster.
+ */
+public class MetadataCacheArtifactRepository implements ArtifactRepository {
+
+    private final ArtifactRepository delegate;
+    private final ArtifactMetadataCache cache;
+    private final InvalidationPublisher publisher;
+
+    /**
+     * @param delegate
+     *            the repository whose lookups are cached
+     * @param cache
+     *            the cache of the lookups
+     * @param publisher
+     *            publishes the invalidations to the other instances
+     */
+    public MetadataCacheArtifactRepository(final ArtifactRepository delegate, final ArtifactMetadataCache cache,
+            final InvalidationPublisher publisher) {
+        Assert.notNull(delegate, "Delegate cannot be null");
+        Assert.notNull(cache, "Cache cannot be null");
+        Assert.notNull(publisher, "Publisher cannot be null");
+        this.delegate = delegate;
+        this.cache = cache;
+        this.publisher = publisher;
+    }
+
+    @Override
+    public AbstractDbArtifact store(final String tenant, final InputStream content, final String filename,
+            final String contentType, final DbArtifactHash hash) {
+        final AbstractDbArtifact artifact = delegate.store(tenant, content, filename, contentType, hash);
+        // the artifact may be cached as missing
+        invalidate(tenant, artifact.getHashes().getSha1());
+        return artifact;
+    }
+
+    @Override
+    public void deleteBySha1(final String tenant, final String sha1Hash) {
+        delegate.deleteBySha1(tenant, sha1Hash);
+        invalidate(tenant, sha1Hash);
+    }
+
+    @Override
+    public AbstractDbArtifact getArtifactBySha1(final String tenant, final String sha1Hash) {
+        final Boolean exists = cache.exists(tenant, sha1Hash);
+        if (Boolean.FALSE.equals(exists)) {
+            return null;
+        }
+        final AbstractDbArtifact cached = cache.getArtifact(tenant, sha1Hash);
+        if (cached != null) {
+            return cached;
+        }
+
+        final long generation = cache.generation();
+        final AbstractDbArtifact artifact = delegate.getArtifactBySha1(tenant, sha1Hash);
+        if (artifact == null) {
+            cache.putArtifact(tenant, sha1Hash, null, generation);
+            return null;
+        }
+        cache.putBackendArtifact(tenant, sha1Hash, artifact, generation);
+        cache.putArtifact(tenant, sha1Hash, new CachedArtifact(artifact, () -> getBackendArtifact(tenant, sha1Hash)),
+                generation);
+        return artifact;
+    }
+
+    private AbstractDbArtifact getBackendArtifact(final String tenant, final String sha1Hash) {
+        final AbstractDbArtifact kept = cache.getBackendArtifact(tenant, sha1Hash);
+        if (kept != null) {
+            return kept;
+        }
+
+        final long generation = cache.generation();
+        final AbstractDbArtifact artifact = delegate.getArtifactBySha1(tenant, sha1Hash);
+        if (artifact != null) {
+            cache.putBackendArtifact(tenant, sha1Hash, artifact, generation);
+        }
+        return artifact;
+    }
+
+    @Override
+    public boolean existsByTenantAndSha1(final String tenant, final String sha1Hash) {
+        final Boolean cached = cache.exists(tenant, sha1Hash);
+        if (cached != null) {
+            return cached;
+        }
+
+        final long generation = cache.generation();
+        final boolean exists = delegate.existsByTenantAndSha1(tenant, sha1Hash);
+        cache.putExists(tenant, sha1Hash, exists, generation);
+        return exists;
+    }
+
+    @Override
+    public void deleteByTenant(final String tenant) {
+        delegate.deleteByTenant(tenant);
+        cache.invalidateTenant(tenant);
+        publisher.publish(tenant, null);
+    }
+
+    private void invalidate(final String tenant, final String sha1Hash) {
+        cache.invalidate(tenant, sha1Hash);
+        publisher.publish(tenant, sha1Hash);
+    }
+
+    /**
+     * Publishes the invalidation of cached lookups to the other instances of
+     * the cluster.
+     */
+    @FunctionalInterface
+    public interface InvalidationPublisher {
+
+        /**
+         * @param tenant
+         *            the tenant of the invalidated artifacts
+         * @param sha1Hash
+         *            the SHA1 hash of the invalidated artifact, or
+         *            <code>null</code> if all artifacts of the tenant have
+         *            been invalidated
+         */
+        void publish(String tenant, String sha1Hash);
+    }
+}
@@ -0,0 +1,282 @@
+/**
+ * Copyright (c) 2020 Bosch.IO GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.artifact.repository;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A single download of an artifact from the backend which is shared by all
+ * concurrent readers of the artifact. The download is started with the first
+ * reader and runs in the background. The content is written into a spool
+ * file as fast as the backend delivers it, every reader follows the spool
+ * file at its own pace and waits for the download when it has caught up.
+ * The download is aborted when all readers have been closed before it has
+ * completed, the spool file is deleted when the download has finished and
+ * the last reader has been closed.
+ */
+class SpooledDownload implements Runnable {
+    private static final Logger LOG = LoggerFactory.getLogger(SpooledDownload.class);
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final String key;
+    private final Supplier<InputStream> content;
+    private final Path spoolFile;
+    private final Executor executor;
+    private final Consumer<SpooledDownload> onFinish;
+
+    private long written;
+    private boolean completed;
+    private IOException failure;
+    private boolean aborted;
+    private boolean deleted;
+    private int readers;
+
+    /**
+     * @param key
+     *            key of the artifact
+     * @param content
+     *            opens the content of the artifact in the backend
+     * @param spoolFile
+     *            the empty spool file
+     * @param executor
+     *            runs the download
+     * @param onFinish
+     *            called when the download has finished and no further
+     *            readers can join it
+     */
+    SpooledDownload(final String key, final Supplier<InputStream> content, final Path spoolFile,
+            final Executor executor, final Consumer<SpooledDownload> onFinish) {
+        this.key = key;
+        this.content = content;
+        this.spoolFile = spoolFile;
+        this.executor = executor;
+        this.onFinish = onFinish;
+    }
+
+    @Override
+    public void run() {
+        try (final InputStream input = content.get();
+                final FileChannel output = FileChannel.open(spoolFile, StandardOpenOption.WRITE)) {
+            final byte[] buffer = new byte[BUFFER_SIZE];
+            int read = 0;
+            while (!isAborted() && (read = input.read(buffer)) >= 0) {
+                final ByteBuffer bytes = ByteBuffer.wrap(buffer, 0, read);
+                while (bytes.hasRemaining()) {
+                    output.write(bytes);
+                }
+                synchronized (this) {
+                    written += read;
+                    notifyAll();
+                }
+            }
+            finish(read < 0, null);
+        } catch (final IOException | RuntimeException e) {
+            LOG.warn("Failed to download artifact {}", key, e);
+            finish(false, e instanceof IOException ? (IOException) e
+                    : new IOException("Failed to download artifact " + key, e));
+        }
+    }
+
+    private synchronized boolean isAborted() {
+        return aborted;
+    }
+
+    private void finish(final boolean complete, final IOException e) {
+        synchronized (this) {
+            completed = complete;
+            failure = e;
+            aborted = !complete;
+            notifyAll();
+        }
+        onFinish.accept(this);
+        deleteIfUnused();
+    }
+
+    /**
+     * Starts the download with the first reader. The download must not be
+     * visible to other readers before it has been started, so no reader can
+     * join a download which is rejected.
+     *
+     * @return the first reader of the download
+     * @throws IOException
+     *             if the spool file cannot be opened
+     * @throws RejectedExecutionException
+     *             if the download cannot be started because the executor is
+     *             saturated
+     */
+    InputStream start() throws IOException {
+        final InputStream reader = newReader();
+        try {
+            executor.execute(this);
+        } catch (final RejectedExecutionException e) {
+            // aborts the download and deletes the spool file
+            reader.close();
+            throw e;
+        }
+        return reader;
+    }
+
+    /**
+     * @return a new reader of the started download, or <code>null</code> if
+     *         the download has been aborted or its spool file has been
+     *         deleted
+     * @throws IOException
+     *             if the spool file cannot be opened
+     */
+    InputStream newReader() throws IOException {
+        synchronized (this) {
+            if (deleted || (aborted && !completed)) {
+                return null;
+            }
+            readers++;
+        }
+
+        try {
+            return new Reader(FileChannel.open(spoolFile, StandardOpenOption.READ));
+        } catch (final IOException e) {
+            closeReader();
+            throw e;
+        }
+    }
+
+    private void closeReader() {
+        synchronized (this) {
+            readers--;
+            if (readers > 0) {
+                return;
+            }
+            if (!completed) {
+                // nobody is interested in the remaining content
+                aborted = true;
+            }
+        }
+        deleteIfUnused();
+    }
+
+    private void deleteIfUnused() {
+        synchronized (this) {
+            if (readers > 0 || deleted || !isFinished()) {
+                return;
+            }
+            deleted = true;
+        }
+        try {
+            Files.deleteIfExists(spoolFile);
+        } catch (final IOException e) {
+            LOG.warn("Failed to delete spool file {}", spoolFile, e);
+        }
+    }
+
+    private boolean isFinished() {
+        return completed || failure != null || (aborted && readers == 0);
+    }
+
+    /**
+     * Waits until the content at the given position has been downloaded.
+     *
+     * @return number of bytes available at the position, or <code>-1</code>
+     *         at the end of the content
+     */
+    private synchronized long awaitAvailable(final long position) throws IOException {
+        while (position >= written && !completed && failure == null) {
+            try {
+                wait();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for download of artifact " + key);
+            }
+        }
+        if (position < written) {
+            return written - position;
+        }
+        if (failure != null) {
+            throw new IOException("Download of artifact " + key + " failed", failure);
+        }
+        return -1;
+    }
+
+    private final class Reader extends InputStream {
+        private final FileChannel channel;
+        private long position;
+        private boolean closed;
+
+        private Reader(final FileChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final byte[] b = new byte[1];
+            return read(b, 0, 1) < 0 ? -1 : b[0] & 0xFF;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            ensureOpen();
+            if (len == 0) {
+                return 0;
+            }
+            final long available = awaitAvailable(position);
+            if (available < 0) {
+                return -1;
+            }
+            final int read = channel.read(ByteBuffer.wrap(b, off, (int) Math.min(len, available)), position);
+            if (read > 0) {
+                position += read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(final long n) throws IOException {
+            ensureOpen();
+            if (n <= 0) {
+                return 0;
+            }
+            final long available = awaitAvailable(position);
+            final long skipped = available < 0 ? 0 : Math.min(n, available);
+            position += skipped;
+            return skipped;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                channel.close();
+            } finally {
+                closeReader();
+            }
+        }
+
+        private void ensureOpen() throws IOException {
+            if (closed) {
+                throw new IOException("Stream closed");
+            }
+        }
+    }
+}
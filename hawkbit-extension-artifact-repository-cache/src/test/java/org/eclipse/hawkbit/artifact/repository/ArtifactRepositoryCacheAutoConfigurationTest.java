@@ -0,0 +1,229 @@
+/**
+ * Copyright (c) 2020 Bosch.IO GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.artifact.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.hawkbit.artifact.repository.model.AbstractDbArtifact;
+import org.eclipse.hawkbit.artifact.repository.model.DbArtifactHash;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StreamUtils;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.qameta.allure.Description;
+import io.qameta.allure.Feature;
+import io.qameta.allure.Story;
+
+/**
+ * Test class for the {@link ArtifactRepositoryCacheAutoConfiguration} on top
+ * of the instrumentation of a backend.
+ */
+@Feature("Component Tests - Artifact Repository Cache")
+@Story("Decorator Stacking")
+public class ArtifactRepositoryCacheAutoConfigurationTest {
+
+    private static final String TENANT = "test_tenant";
+    private static final String SHA1 = "a94a8fe5ccb19ba61c4c0873d391e987982fbbd3";
+    private static final byte[] CONTENT = "test".getBytes(StandardCharsets.UTF_8);
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    @Description("Verifies that the repository proxied by the instrumentation and the caches routes the repository "
+            + "methods through both decorators and all other methods to the repository itself.")
+    public void stackedDecoratorsRouteCalls() throws IOException {
+        contextRunner().run(context -> {
+            final TestRepository repository = context.getBean(TestRepository.class);
+            assertThat(AopUtils.isCglibProxy(repository)).isTrue();
+            final MeterRegistry meterRegistry = context.getBean(MeterRegistry.class);
+
+            final AbstractDbArtifact artifact = repository.getArtifactBySha1(TENANT, SHA1);
+            assertArtifact(artifact);
+            assertThat(artifact).isInstanceOf(DiskCacheArtifact.class);
+
+            // served by the metadata cache, the content from the disk cache
+            for (int i = 0; i < 3; i++) {
+                final AbstractDbArtifact cached = repository.getArtifactBySha1(TENANT, SHA1);
+                assertArtifact(cached);
+                assertThat(cached).isInstanceOf(CachedArtifact.class);
+            }
+            assertThat(repository.existsByTenantAndSha1(TENANT, SHA1)).isTrue();
+
+            // not an ArtifactRepository method, invoked on the repository
+            assertThat(repository.getLookups()).isEqualTo(1);
+            assertThat(repository.getContentReads()).isEqualTo(1);
+            assertThat(meterRegistry.get("hawkbit.artifact.repository.operations").tag("backend", "test")
+                    .tag("operation", "getArtifactBySha1").timer().count()).isEqualTo(1);
+        });
+    }
+
+    @Test
+    @Description("Verifies that the instrumentation of a backend leaves other repositories alone while the caches "
+            + "decorate every repository.")
+    public void instrumentationIsLimitedToBackend() throws IOException {
+        contextRunner().run(context -> {
+            final OtherRepository repository = context.getBean(OtherRepository.class);
+            assertThat(AopUtils.isCglibProxy(repository)).isTrue();
+
+            assertArtifact(repository.getArtifactBySha1(TENANT, SHA1));
+            assertThat(repository.getLookups()).isEqualTo(1);
+            assertThat(context.getBean(MeterRegistry.class).find("hawkbit.artifact.repository.operations").timers())
+                    .isEmpty();
+        });
+    }
+
+    @Test
+    @Description("Verifies that the disk cache is only enabled on request and requires a directory.")
+    public void diskCacheIsOptIn() throws IOException {
+        baseContextRunner().run(context -> {
+            assertThat(context).doesNotHaveBean(CacheDirectory.class);
+            assertThat(context.getBean(TestRepository.class).getArtifactBySha1(TENANT, SHA1))
+                    .isInstanceOf(CoalescingArtifact.class);
+        });
+
+        baseContextRunner().withPropertyValues("org.eclipse.hawkbit.repository.cache.disk.enabled=true")
+                .run(context -> assertThat(context).hasFailed());
+    }
+
+    @Test
+    @Description("Verifies that the directory of the disk cache is used by one instance only and released when "
+            + "the instance is closed.")
+    public void diskCacheDirectoryIsLockedByOneInstance() throws IOException {
+        final ApplicationContextRunner contextRunner = contextRunner();
+        contextRunner.run(context -> {
+            assertThat(context).hasSingleBean(CacheDirectory.class);
+            contextRunner.run(second -> assertThat(second).hasFailed());
+        });
+        contextRunner.run(context -> assertThat(context).hasSingleBean(CacheDirectory.class));
+    }
+
+    private ApplicationContextRunner contextRunner() throws IOException {
+        return baseContextRunner().withPropertyValues("org.eclipse.hawkbit.repository.cache.disk.enabled=true",
+                "org.eclipse.hawkbit.repository.cache.disk.directory=" + folder.newFolder());
+    }
+
+    private ApplicationContextRunner baseContextRunner() throws IOException {
+        return new ApplicationContextRunner()
+                .withConfiguration(AutoConfigurations.of(ArtifactRepositoryCacheAutoConfiguration.class))
+                .withUserConfiguration(TestConfiguration.class)
+                .withPropertyValues("spring.cloud.bus.enabled=false",
+                        "org.eclipse.hawkbit.repository.cache.coalescing.directory=" + folder.newFolder());
+    }
+
+    private static void assertArtifact(final AbstractDbArtifact artifact) throws IOException {
+        assertThat(artifact.getArtifactId()).isEqualTo(SHA1);
+        assertThat(artifact.getHashes().getSha1()).isEqualTo(SHA1);
+        assertThat(artifact.getSize()).isEqualTo(CONTENT.length);
+        try (InputStream content = artifact.getFileInputStream()) {
+            assertThat(StreamUtils.copyToByteArray(content)).isEqualTo(CONTENT);
+        }
+    }
+
+    @Configuration
+    static class TestConfiguration {
+
+        @Bean
+        static ArtifactRepositoryDecoratingPostProcessor testRepositoryInstrumentation(
+                final ObjectProvider<MeterRegistry> meterRegistry) {
+            return ArtifactRepositoryInstrumentation.postProcessor("test", TestRepository.class, meterRegistry);
+        }
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        TestRepository testRepository() {
+            return new TestRepository();
+        }
+
+        @Bean
+        OtherRepository otherRepository() {
+            return new OtherRepository();
+        }
+    }
+
+    public static class TestRepository extends CountingRepository {
+    }
+
+    public static class OtherRepository extends CountingRepository {
+    }
+
+    public abstract static class CountingRepository implements ArtifactRepository {
+        private final AtomicInteger lookups = new AtomicInteger();
+        private final AtomicInteger contentReads = new AtomicInteger();
+
+        @Override
+        public AbstractDbArtifact store(final String tenant, final InputStream content, final String filename,
+                final String contentType, final DbArtifactHash hash) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void deleteBySha1(final String tenant, final String sha1Hash) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public AbstractDbArtifact getArtifactBySha1(final String tenant, final String sha1Hash) {
+            lookups.incrementAndGet();
+            return new TestArtifact(contentReads);
+        }
+
+        @Override
+        public boolean existsByTenantAndSha1(final String tenant, final String sha1Hash) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void deleteByTenant(final String tenant) {
+            throw new UnsupportedOperationException();
+        }
+
+        public int getLookups() {
+            return lookups.get();
+        }
+
+        public int getContentReads() {
+            return contentReads.get();
+        }
+    }
+
+    private static final class TestArtifact extends AbstractDbArtifact {
+        private final AtomicInteger contentReads;
+
+        private TestArtifact(final AtomicInteger contentReads) {
+            super(SHA1, new DbArtifactHash(SHA1, null, null), (long) CONTENT.length, "application/octet-stream");
+            this.contentReads = contentReads;
+        }
+
+        @Override
+        public InputStream getFileInputStream() {
+            contentReads.incrementAndGet();
+            return new ByteArrayInputStream(CONTENT);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/**
+ * Copyright (c) 2020 Bosch.IO GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.artifact.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import io.qameta.allure.Description;
+import io.qameta.allure.Feature;
+import io.qameta.allure.Story;
+
+/**
+ * Test class for the {@link CacheDirectory}.
+ */
+@Feature("Unit Tests - Artifact Repository Cache")
+@Story("Cache Directories")
+public class CacheDirectoryTest {
+
+    private static final String PREFIX = "instance-";
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private Path parent;
+
+    @Before
+    public void before() throws IOException {
+        parent = folder.newFolder().toPath();
+    }
+
+    @Test
+    @Description("Verifies that a directory is locked by one instance until it is released.")
+    public void directoryIsLockedByOneInstance() throws IOException {
+        final CacheDirectory directory = CacheDirectory.lock(parent);
+        assertThatThrownBy(() -> CacheDirectory.lock(parent)).isInstanceOf(ArtifactStoreException.class);
+
+        directory.destroy();
+        assertThat(Files.exists(parent)).isTrue();
+        CacheDirectory.lock(parent).destroy();
+    }
+
+    @Test
+    @Description("Verifies that every instance gets a temporary directory of its own which is deleted on release, "
+            + "while the abandoned directories are deleted by the next instance and the used ones are kept.")
+    public void temporaryDirectoriesOfInstances() throws IOException {
+        final CacheDirectory first = CacheDirectory.create(parent, PREFIX);
+        final CacheDirectory second = CacheDirectory.create(parent, PREFIX);
+        assertThat(first.getPath()).isNotEqualTo(second.getPath());
+        Files.createFile(first.getPath().resolve("file.spool"));
+
+        // left behind by an instance which has crashed
+        final Path abandoned = Files.createDirectory(parent.resolve(PREFIX + "abandoned"));
+        Files.createFile(abandoned.resolve(CacheDirectory.LOCK_FILE));
+        Files.createFile(abandoned.resolve("file.spool"));
+
+        final CacheDirectory third = CacheDirectory.create(parent, PREFIX);
+        assertThat(Files.exists(abandoned)).isFalse();
+        assertThat(Files.exists(first.getPath().resolve("file.spool"))).isTrue();
+        assertThat(Files.exists(second.getPath())).isTrue();
+
+        first.destroy();
+        assertThat(Files.exists(first.getPath())).isFalse();
+        second.destroy();
+        third.destroy();
+    }
+}
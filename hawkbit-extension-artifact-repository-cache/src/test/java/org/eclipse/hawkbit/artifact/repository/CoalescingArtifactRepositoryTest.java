@@ -0,0 +1,315 @@
+/**
+ * Copyright (c) 2020 Bosch.IO GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.artifact.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import org.eclipse.hawkbit.artifact.repository.model.AbstractDbArtifact;
+import org.eclipse.hawkbit.artifact.repository.model.DbArtifactHash;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+
+import io.qameta.allure.Description;
+import io.qameta.allure.Feature;
+import io.qameta.allure.Story;
+
+/**
+ * Test class for the {@link CoalescingArtifactRepository}.
+ */
+@RunWith(MockitoJUnitRunner.class)
+@Feature("Unit Tests - Artifact Repository Cache")
+@Story("Request Coalescing")
+public class CoalescingArtifactRepositoryTest {
+
+    private static final String TENANT = "test_tenant";
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Mock
+    private ArtifactRepository delegateMock;
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    private Path directory;
+
+    @Before
+    public void before() throws IOException {
+        directory = folder.newFolder().toPath();
+    }
+
+    @After
+    public void after() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    @Description("Verifies that concurrent reads of an artifact share a single download from the backend.")
+    public void concurrentReadsShareDownload() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final TestArtifact artifact = new TestArtifact(randomBytes(1_000_000), release, false);
+        when(delegateMock.getArtifactBySha1(TENANT, artifact.getHashes().getSha1())).thenReturn(artifact);
+
+        final CoalescingArtifactRepository repository = new CoalescingArtifactRepository(delegateMock, directory,
+                executor);
+        final List<InputStream> readers = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            readers.add(repository.getArtifactBySha1(TENANT, artifact.getHashes().getSha1()).getFileInputStream());
+        }
+        release.countDown();
+
+        final List<Future<byte[]>> contents = new ArrayList<>();
+        for (final InputStream reader : readers) {
+            contents.add(executor.submit(() -> {
+                try (final InputStream content = reader) {
+                    return ByteStreams.toByteArray(content);
+                }
+            }));
+        }
+        for (final Future<byte[]> content : contents) {
+            assertThat(content.get(10, TimeUnit.SECONDS)).isEqualTo(artifact.content);
+        }
+
+        assertThat(artifact.opened.get()).isEqualTo(1);
+        try (final Stream<Path> spoolFiles = Files.list(directory)) {
+            assertThat(spoolFiles).isEmpty();
+        }
+    }
+
+    @Test
+    @Description("Verifies that all readers of a shared download fail if the download fails.")
+    public void failedDownloadFailsAllReaders() throws IOException {
+        final CountDownLatch release = new CountDownLatch(1);
+        final TestArtifact artifact = new TestArtifact(randomBytes(100_000), release, true);
+        when(delegateMock.getArtifactBySha1(TENANT, artifact.getHashes().getSha1())).thenReturn(artifact);
+
+        final CoalescingArtifactRepository repository = new CoalescingArtifactRepository(delegateMock, directory,
+                executor);
+        final AbstractDbArtifact coalesced = repository.getArtifactBySha1(TENANT, artifact.getHashes().getSha1());
+        try (final InputStream first = coalesced.getFileInputStream();
+                final InputStream second = coalesced.getFileInputStream()) {
+            release.countDown();
+            assertThatThrownBy(() -> ByteStreams.toByteArray(first)).isInstanceOf(IOException.class);
+            assertThatThrownBy(() -> ByteStreams.toByteArray(second)).isInstanceOf(IOException.class);
+        }
+        assertThat(artifact.opened.get()).isEqualTo(1);
+    }
+
+    @Test
+    @Description("Verifies that the disk cache on top of the coalescing is filled once by concurrent misses and "
+            + "serves hits from its file without spooling them.")
+    public void diskCacheOnTopOfCoalescing() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final TestArtifact artifact = new TestArtifact(randomBytes(1_000_000), release, false);
+        when(delegateMock.getArtifactBySha1(TENANT, artifact.getHashes().getSha1())).thenReturn(artifact);
+
+        final Path cacheDirectory = folder.newFolder().toPath();
+        final DiskCacheArtifactRepository repository = new DiskCacheArtifactRepository(
+                new CoalescingArtifactRepository(delegateMock, directory, executor), cacheDirectory, 10_000_000);
+        final List<InputStream> readers = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            readers.add(repository.getArtifactBySha1(TENANT, artifact.getHashes().getSha1()).getFileInputStream());
+        }
+        release.countDown();
+        for (final InputStream reader : readers) {
+            try (final InputStream content = reader) {
+                assertThat(ByteStreams.toByteArray(content)).isEqualTo(artifact.content);
+            }
+        }
+        assertThat(artifact.opened.get()).isEqualTo(1);
+        assertThat(repository.getCount()).isEqualTo(1);
+        // only one of the concurrent misses has written a cache file
+        try (final Stream<Path> tempFiles = Files.walk(cacheDirectory)) {
+            assertThat(tempFiles.filter(file -> file.toString().endsWith(DiskCacheArtifactRepository.TEMP_FILE_SUFFIX)))
+                    .isEmpty();
+        }
+
+        try (final InputStream hit = repository.getArtifactBySha1(TENANT, artifact.getHashes().getSha1())
+                .getFileInputStream()) {
+            try (final Stream<Path> spoolFiles = Files.list(directory)) {
+                assertThat(spoolFiles).isEmpty();
+            }
+            assertThat(ByteStreams.toByteArray(hit)).isEqualTo(artifact.content);
+        }
+        assertThat(artifact.opened.get()).isEqualTo(1);
+    }
+
+    @Test
+    @Description("Verifies that a read whose shared download is rejected by the saturated executor reads the backend "
+            + "directly.")
+    public void rejectedDownloadReadsBackend() throws IOException {
+        final TestArtifact artifact = new TestArtifact(randomBytes(100_000), new CountDownLatch(0), false);
+        when(delegateMock.getArtifactBySha1(TENANT, artifact.getHashes().getSha1())).thenReturn(artifact);
+
+        final CoalescingArtifactRepository repository = new CoalescingArtifactRepository(delegateMock, directory,
+                command -> {
+                    throw new RejectedExecutionException("saturated");
+                });
+        try (final InputStream content = repository.getArtifactBySha1(TENANT, artifact.getHashes().getSha1())
+                .getFileInputStream()) {
+            assertThat(ByteStreams.toByteArray(content)).isEqualTo(artifact.content);
+        }
+        assertThat(artifact.opened.get()).isEqualTo(1);
+        try (final Stream<Path> spoolFiles = Files.list(directory)) {
+            assertThat(spoolFiles).isEmpty();
+        }
+    }
+
+    @Test
+    @Description("Verifies that concurrent reads of an artifact whose shared download is rejected by the saturated "
+            + "executor all read the backend directly instead of joining the rejected download.")
+    public void concurrentReadsWithSaturatedExecutor() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final TestArtifact running = new TestArtifact(randomBytes(100_000), release, false);
+        final TestArtifact artifact = new TestArtifact(randomBytes(100_000), new CountDownLatch(0), false);
+        when(delegateMock.getArtifactBySha1(TENANT, running.getHashes().getSha1())).thenReturn(running);
+        when(delegateMock.getArtifactBySha1(TENANT, artifact.getHashes().getSha1())).thenReturn(artifact);
+
+        final CoalescingDownloadExecutor downloadExecutor = new CoalescingDownloadExecutor(1, directory);
+        try {
+            final CoalescingArtifactRepository repository = new CoalescingArtifactRepository(delegateMock,
+                    downloadExecutor.getSpoolDirectory(), downloadExecutor.getExecutor());
+            try (final InputStream blocking = repository.getArtifactBySha1(TENANT, running.getHashes().getSha1())
+                    .getFileInputStream()) {
+                final CountDownLatch start = new CountDownLatch(1);
+                final List<Future<byte[]>> contents = new ArrayList<>();
+                for (int i = 0; i < 10; i++) {
+                    contents.add(executor.submit(() -> {
+                        start.await();
+                        try (final InputStream content = repository
+                                .getArtifactBySha1(TENANT, artifact.getHashes().getSha1()).getFileInputStream()) {
+                            return ByteStreams.toByteArray(content);
+                        }
+                    }));
+                }
+                start.countDown();
+                for (final Future<byte[]> content : contents) {
+                    assertThat(content.get(10, TimeUnit.SECONDS)).isEqualTo(artifact.content);
+                }
+                assertThat(artifact.opened.get()).isEqualTo(10);
+
+                release.countDown();
+                assertThat(ByteStreams.toByteArray(blocking)).isEqualTo(running.content);
+            }
+            assertThat(running.opened.get()).isEqualTo(1);
+        } finally {
+            downloadExecutor.destroy();
+        }
+    }
+
+    @Test
+    @Description("Verifies that concurrent metadata lookups of an artifact share a single lookup in the backend.")
+    public void concurrentLookupsShareRequest() throws InterruptedException, ExecutionException {
+        final TestArtifact artifact = new TestArtifact(randomBytes(100), new CountDownLatch(0), false);
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger lookups = new AtomicInteger();
+        when(delegateMock.getArtifactBySha1(TENANT, artifact.getHashes().getSha1())).thenAnswer(invocation -> {
+            lookups.incrementAndGet();
+            entered.countDown();
+            release.await();
+            return artifact;
+        });
+
+        final CoalescingArtifactRepository repository = new CoalescingArtifactRepository(delegateMock, directory,
+                executor);
+        final List<Future<AbstractDbArtifact>> results = new ArrayList<>();
+        results.add(executor.submit(() -> repository.getArtifactBySha1(TENANT, artifact.getHashes().getSha1())));
+        entered.await();
+        for (int i = 0; i < 9; i++) {
+            results.add(executor.submit(() -> repository.getArtifactBySha1(TENANT, artifact.getHashes().getSha1())));
+        }
+        // give the lookups the chance to join the one in flight
+        TimeUnit.MILLISECONDS.sleep(500);
+        release.countDown();
+
+        for (final Future<AbstractDbArtifact> result : results) {
+            assertThat(result.get().getHashes().getSha1()).isEqualTo(artifact.getHashes().getSha1());
+        }
+        assertThat(lookups.get()).isEqualTo(1);
+        verify(delegateMock, times(1)).getArtifactBySha1(TENANT, artifact.getHashes().getSha1());
+    }
+
+    private static byte[] randomBytes(final int length) {
+        final byte[] bytes = new byte[length];
+        new Random().nextBytes(bytes);
+        return bytes;
+    }
+
+    private static final class TestArtifact extends AbstractDbArtifact {
+        private final byte[] content;
+        private final CountDownLatch release;
+        private final boolean fail;
+        private final AtomicInteger opened = new AtomicInteger();
+
+        @SuppressWarnings("deprecation")
+        private TestArtifact(final byte[] content, final CountDownLatch release, final boolean fail) {
+            super(Hashing.sha1().hashBytes(content).toString(),
+                    new DbArtifactHash(Hashing.sha1().hashBytes(content).toString(),
+                            Hashing.md5().hashBytes(content).toString(), null),
+                    (long) content.length, "application/octet-stream");
+            this.content = content;
+            this.release = release;
+            this.fail = fail;
+        }
+
+        @Override
+        public InputStream getFileInputStream() {
+            opened.incrementAndGet();
+            return new FilterInputStream(new ByteArrayInputStream(content)) {
+                @Override
+                public int read(final byte[] b, final int off, final int len) throws IOException {
+                    try {
+                        release.await();
+                    } catch (final InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException();
+                    }
+                    if (fail) {
+                        throw new IOException("Connection reset");
+                    }
+                    return super.read(b, off, len);
+                }
+            };
+        }
+    }
+}
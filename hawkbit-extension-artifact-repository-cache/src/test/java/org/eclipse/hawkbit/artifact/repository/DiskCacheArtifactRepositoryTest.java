@@ -0,0 +1,238 @@
+/**
+ * Copyright (c) 2020 Bosch.IO GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.artifact.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.hawkbit.artifact.repository.model.AbstractDbArtifact;
+import org.eclipse.hawkbit.artifact.repository.model.DbArtifactHash;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+
+import io.qameta.allure.Description;
+import io.qameta.allure.Feature;
+import io.qameta.allure.Story;
+
+/**
+ * Test class for the {@link DiskCacheArtifactRepository}.
+ */
+@RunWith(MockitoJUnitRunner.class)
+@Feature("Unit Tests - Artifact Repository Cache")
+@Story("Disk Cache")
+public class DiskCacheArtifactRepositoryTest {
+
+    private static final String TENANT = "test_tenant";
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Mock
+    private ArtifactRepository delegateMock;
+
+    private Path directory;
+
+    @Before
+    public void before() throws IOException {
+        directory = folder.newFolder().toPath();
+    }
+
+    @Test
+    @Description("Verifies that an artifact which has been read completely is served from the disk cache afterwards.")
+    public void readArtifactFromCache() throws IOException {
+        final TestArtifact artifact = new TestArtifact(randomBytes(10_000));
+        when(delegateMock.getArtifactBySha1(TENANT, artifact.getHashes().getSha1())).thenReturn(artifact);
+
+        final DiskCacheArtifactRepository cache = new DiskCacheArtifactRepository(delegateMock, directory, 100_000);
+        assertThat(read(cache, artifact)).isEqualTo(artifact.content);
+        assertThat(cache.getCount()).isEqualTo(1);
+        assertThat(cache.getSize()).isEqualTo(10_000);
+
+        assertThat(read(cache, artifact)).isEqualTo(artifact.content);
+        assertThat(artifact.opened.get()).isEqualTo(1);
+
+        // the cache survives a restart
+        final DiskCacheArtifactRepository restarted = new DiskCacheArtifactRepository(delegateMock, directory,
+                100_000);
+        assertThat(read(restarted, artifact)).isEqualTo(artifact.content);
+        assertThat(artifact.opened.get()).isEqualTo(1);
+    }
+
+    @Test
+    @Description("Verifies that an artifact which has not been read completely is not cached.")
+    public void partiallyReadArtifactIsNotCached() throws IOException {
+        final TestArtifact artifact = new TestArtifact(randomBytes(10_000));
+        when(delegateMock.getArtifactBySha1(TENANT, artifact.getHashes().getSha1())).thenReturn(artifact);
+
+        final DiskCacheArtifactRepository cache = new DiskCacheArtifactRepository(delegateMock, directory, 100_000);
+        try (final InputStream content = cache.getArtifactBySha1(TENANT, artifact.getHashes().getSha1())
+                .getFileInputStream()) {
+            assertThat(content.read(new byte[1000])).isPositive();
+        }
+
+        assertThat(cache.getCount()).isZero();
+        assertThat(read(cache, artifact)).isEqualTo(artifact.content);
+        assertThat(artifact.opened.get()).isEqualTo(2);
+    }
+
+    @Test
+    @Description("Verifies that ranges are read by the ranged read of the backend if the artifact is not cached and "
+            + "from the cached file afterwards.")
+    public void readRangeFromBackendOrCache() throws IOException {
+        final TestArtifact artifact = new TestArtifact(randomBytes(10_000));
+        when(delegateMock.getArtifactBySha1(TENANT, artifact.getHashes().getSha1())).thenReturn(artifact);
+
+        final DiskCacheArtifactRepository cache = new DiskCacheArtifactRepository(delegateMock, directory, 100_000);
+        assertThat(readRange(cache, artifact, 3_000, 2_000))
+                .isEqualTo(Arrays.copyOfRange(artifact.content, 3_000, 5_000));
+        assertThat(artifact.ranged.get()).isEqualTo(1);
+        assertThat(artifact.opened.get()).isZero();
+        assertThat(cache.getCount()).isZero();
+
+        read(cache, artifact);
+        assertThat(readRange(cache, artifact, 9_000, 2_000))
+                .isEqualTo(Arrays.copyOfRange(artifact.content, 9_000, 10_000));
+        assertThat(artifact.ranged.get()).isEqualTo(1);
+        assertThat(artifact.opened.get()).isEqualTo(1);
+    }
+
+    @Test
+    @Description("Verifies that an artifact whose stream is skipped to an offset, e.g. by a resumed download, is "
+            + "still cached.")
+    public void skippedArtifactIsCached() throws IOException {
+        final TestArtifact artifact = new TestArtifact(randomBytes(10_000));
+        when(delegateMock.getArtifactBySha1(TENANT, artifact.getHashes().getSha1())).thenReturn(artifact);
+
+        final DiskCacheArtifactRepository cache = new DiskCacheArtifactRepository(delegateMock, directory, 100_000);
+        try (final InputStream content = cache.getArtifactBySha1(TENANT, artifact.getHashes().getSha1())
+                .getFileInputStream()) {
+            ByteStreams.skipFully(content, 5_000);
+            assertThat(ByteStreams.toByteArray(content))
+                    .isEqualTo(Arrays.copyOfRange(artifact.content, 5_000, 10_000));
+        }
+
+        assertThat(cache.getCount()).isEqualTo(1);
+        assertThat(read(cache, artifact)).isEqualTo(artifact.content);
+        assertThat(artifact.opened.get()).isEqualTo(1);
+    }
+
+    @Test
+    @Description("Verifies that the least recently used artifacts are evicted if the cache exceeds its maximum size.")
+    public void evictLeastRecentlyUsedArtifacts() throws IOException {
+        final TestArtifact first = new TestArtifact(randomBytes(4_000));
+        final TestArtifact second = new TestArtifact(randomBytes(4_000));
+        final TestArtifact third = new TestArtifact(randomBytes(4_000));
+        when(delegateMock.getArtifactBySha1(TENANT, first.getHashes().getSha1())).thenReturn(first);
+        when(delegateMock.getArtifactBySha1(TENANT, second.getHashes().getSha1())).thenReturn(second);
+        when(delegateMock.getArtifactBySha1(TENANT, third.getHashes().getSha1())).thenReturn(third);
+
+        final DiskCacheArtifactRepository cache = new DiskCacheArtifactRepository(delegateMock, directory, 10_000);
+        read(cache, first);
+        read(cache, second);
+        read(cache, first);
+        read(cache, third);
+
+        assertThat(cache.getCount()).isEqualTo(2);
+        assertThat(cache.getSize()).isEqualTo(8_000);
+
+        read(cache, first);
+        read(cache, third);
+        read(cache, second);
+        assertThat(first.opened.get()).isEqualTo(1);
+        assertThat(second.opened.get()).isEqualTo(2);
+        assertThat(third.opened.get()).isEqualTo(1);
+    }
+
+    @Test
+    @Description("Verifies that deleted artifacts are evicted from the cache.")
+    public void deleteEvictsArtifact() throws IOException {
+        final TestArtifact artifact = new TestArtifact(randomBytes(1_000));
+        final TestArtifact other = new TestArtifact(randomBytes(1_000));
+        when(delegateMock.getArtifactBySha1(TENANT, artifact.getHashes().getSha1())).thenReturn(artifact);
+        when(delegateMock.getArtifactBySha1(TENANT, other.getHashes().getSha1())).thenReturn(other);
+
+        final DiskCacheArtifactRepository cache = new DiskCacheArtifactRepository(delegateMock, directory, 100_000);
+        read(cache, artifact);
+        read(cache, other);
+
+        cache.deleteBySha1(TENANT, artifact.getHashes().getSha1());
+        verify(delegateMock).deleteBySha1(TENANT, artifact.getHashes().getSha1());
+        assertThat(cache.getCount()).isEqualTo(1);
+
+        cache.deleteByTenant(TENANT);
+        verify(delegateMock).deleteByTenant(TENANT);
+        assertThat(cache.getCount()).isZero();
+        assertThat(cache.getSize()).isZero();
+    }
+
+    private static byte[] read(final ArtifactRepository repository, final TestArtifact artifact) throws IOException {
+        try (final InputStream content = repository.getArtifactBySha1(TENANT, artifact.getHashes().getSha1())
+                .getFileInputStream()) {
+            return ByteStreams.toByteArray(content);
+        }
+    }
+
+    private static byte[] readRange(final ArtifactRepository repository, final TestArtifact artifact,
+            final long offset, final long length) throws IOException {
+        final DiskCacheArtifact cached = (DiskCacheArtifact) repository.getArtifactBySha1(TENANT,
+                artifact.getHashes().getSha1());
+        try (final InputStream content = cached.getFileInputStream(offset, length)) {
+            return ByteStreams.toByteArray(content);
+        }
+    }
+
+    private static byte[] randomBytes(final int length) {
+        final byte[] bytes = new byte[length];
+        new Random().nextBytes(bytes);
+        return bytes;
+    }
+
+    private static final class TestArtifact extends AbstractDbArtifact {
+        private final byte[] content;
+        private final AtomicInteger opened = new AtomicInteger();
+        private final AtomicInteger ranged = new AtomicInteger();
+
+        @SuppressWarnings("deprecation")
+        private TestArtifact(final byte[] content) {
+            super(Hashing.sha1().hashBytes(content).toString(),
+                    new DbArtifactHash(Hashing.sha1().hashBytes(content).toString(),
+                            Hashing.md5().hashBytes(content).toString(), null),
+                    (long) content.length, "application/octet-stream");
+            this.content = content;
+        }
+
+        @Override
+        public InputStream getFileInputStream() {
+            opened.incrementAndGet();
+            return new ByteArrayInputStream(content);
+        }
+
+        public InputStream getFileInputStream(final long offset, final long length) {
+            ranged.incrementAndGet();
+            return new ByteArrayInputStream(content, (int) offset, (int) length);
+        }
+    }
+}
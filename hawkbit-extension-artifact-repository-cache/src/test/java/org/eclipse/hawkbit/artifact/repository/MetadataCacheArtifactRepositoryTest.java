@@ -0,0 +1,202 @@
+/**
+ * Copyright (c) 2020 Bosch.IO GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.artifact.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import org.eclipse.hawkbit.artifact.repository.model.AbstractDbArtifact;
+import org.eclipse.hawkbit.artifact.repository.model.DbArtifactHash;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.util.StreamUtils;
+
+import io.qameta.allure.Description;
+import io.qameta.allure.Feature;
+import io.qameta.allure.Story;
+
+/**
+ * Test class for the {@link MetadataCacheArtifactRepository}.
+ */
+@RunWith(MockitoJUnitRunner.class)
+@Feature("Unit Tests - Artifact Repository Cache")
+@Story("Metadata Cache")
+public class MetadataCacheArtifactRepositoryTest {
+
+    private static final String TENANT = "test_tenant";
+    private static final String SHA1 = "a94a8fe5ccb19ba61c4c0873d391e987982fbbd3";
+    private static final byte[] CONTENT = "test".getBytes(StandardCharsets.UTF_8);
+
+    @Mock
+    private ArtifactRepository delegateMock;
+
+    private final AbstractDbArtifact artifact = new TestArtifact();
+
+    @Mock
+    private MetadataCacheArtifactRepository.InvalidationPublisher publisherMock;
+
+    private ArtifactMetadataCache cache;
+    private MetadataCacheArtifactRepository repositoryUnderTest;
+
+    @Before
+    public void before() {
+        cache = new ArtifactMetadataCache(100, Duration.ofHours(1), Duration.ofHours(1), Duration.ofMinutes(5));
+        repositoryUnderTest = new MetadataCacheArtifactRepository(delegateMock, cache, publisherMock);
+    }
+
+    @Test
+    @Description("Verifies that found artifacts are served from the cache.")
+    public void lookupFoundArtifactFromCache() {
+        when(delegateMock.getArtifactBySha1(TENANT, SHA1)).thenReturn(artifact);
+
+        assertThat(repositoryUnderTest.getArtifactBySha1(TENANT, SHA1)).isSameAs(artifact);
+        final AbstractDbArtifact cached = repositoryUnderTest.getArtifactBySha1(TENANT.toUpperCase(), SHA1);
+        assertThat(cached).isInstanceOf(CachedArtifact.class);
+        assertThat(cached.getArtifactId()).isEqualTo(artifact.getArtifactId());
+        assertThat(cached.getHashes()).isSameAs(artifact.getHashes());
+        assertThat(cached.getSize()).isEqualTo(artifact.getSize());
+        assertThat(cached.getContentType()).isEqualTo(artifact.getContentType());
+        assertThat(repositoryUnderTest.existsByTenantAndSha1(TENANT, SHA1)).isTrue();
+
+        verify(delegateMock, times(1)).getArtifactBySha1(anyString(), anyString());
+        verify(delegateMock, times(0)).existsByTenantAndSha1(anyString(), anyString());
+    }
+
+    @Test
+    @Description("Verifies that the downloads of a cached artifact read the content of the kept artifact of the "
+            + "backend without looking it up again, until it has been invalidated.")
+    public void cachedArtifactReadsContentWithoutLookup() throws IOException {
+        when(delegateMock.getArtifactBySha1(TENANT, SHA1)).thenReturn(artifact, (AbstractDbArtifact) null);
+
+        repositoryUnderTest.getArtifactBySha1(TENANT, SHA1);
+        final AbstractDbArtifact cached = repositoryUnderTest.getArtifactBySha1(TENANT, SHA1);
+        for (int i = 0; i < 5; i++) {
+            try (InputStream content = cached.getFileInputStream()) {
+                assertThat(StreamUtils.copyToByteArray(content)).isEqualTo(CONTENT);
+            }
+        }
+        verify(delegateMock, times(1)).getArtifactBySha1(TENANT, SHA1);
+
+        // deleted by another instance
+        cache.invalidate(TENANT, SHA1);
+        assertThatThrownBy(cached::getFileInputStream).isInstanceOf(ArtifactStoreException.class);
+        verify(delegateMock, times(2)).getArtifactBySha1(TENANT, SHA1);
+    }
+
+    @Test
+    @Description("Verifies that the content of a cached artifact is read from an artifact of the backend which is "
+            + "looked up again once the kept one has expired.")
+    public void cachedArtifactLooksUpExpiredArtifact() throws IOException {
+        final ArtifactMetadataCache notKeeping = new ArtifactMetadataCache(100, Duration.ofHours(1),
+                Duration.ofHours(1), Duration.ZERO);
+        final MetadataCacheArtifactRepository repository = new MetadataCacheArtifactRepository(delegateMock,
+                notKeeping, publisherMock);
+        when(delegateMock.getArtifactBySha1(TENANT, SHA1)).thenReturn(artifact);
+
+        repository.getArtifactBySha1(TENANT, SHA1);
+        final AbstractDbArtifact cached = repository.getArtifactBySha1(TENANT, SHA1);
+        try (InputStream content = cached.getFileInputStream()) {
+            assertThat(StreamUtils.copyToByteArray(content)).isEqualTo(CONTENT);
+        }
+        verify(delegateMock, times(2)).getArtifactBySha1(TENANT, SHA1);
+    }
+
+    @Test
+    @Description("Verifies that a lookup which has been started before an invalidation is not cached.")
+    public void lookupConcurrentToInvalidationIsNotCached() {
+        when(delegateMock.getArtifactBySha1(TENANT, SHA1)).thenAnswer(invocation -> {
+            // the artifact is deleted by another instance while it is looked up
+            cache.invalidate(TENANT, SHA1);
+            return artifact;
+        });
+        when(delegateMock.existsByTenantAndSha1(TENANT, SHA1)).thenAnswer(invocation -> {
+            cache.invalidateTenant(TENANT);
+            return true;
+        });
+
+        repositoryUnderTest.getArtifactBySha1(TENANT, SHA1);
+        assertThat(cache.getArtifact(TENANT, SHA1)).isNull();
+        assertThat(repositoryUnderTest.existsByTenantAndSha1(TENANT, SHA1)).isTrue();
+        assertThat(cache.exists(TENANT, SHA1)).isNull();
+    }
+
+    @Test
+    @Description("Verifies that missing artifacts are cached until they are stored.")
+    public void lookupMissingArtifactFromCacheUntilStored() {
+        final AbstractDbArtifact stored = new TestArtifact();
+        when(delegateMock.existsByTenantAndSha1(TENANT, SHA1)).thenReturn(false);
+        when(delegateMock.store(eq(TENANT), any(), eq("file"), eq("application/octet-stream"), any()))
+                .thenReturn(stored);
+        when(delegateMock.getArtifactBySha1(TENANT, SHA1)).thenReturn(stored);
+
+        assertThat(repositoryUnderTest.existsByTenantAndSha1(TENANT, SHA1)).isFalse();
+        assertThat(repositoryUnderTest.getArtifactBySha1(TENANT, SHA1)).isNull();
+        verify(delegateMock, times(0)).getArtifactBySha1(anyString(), anyString());
+
+        repositoryUnderTest.store(TENANT, null, "file", "application/octet-stream", null);
+        verify(publisherMock).publish(TENANT, SHA1);
+
+        assertThat(repositoryUnderTest.getArtifactBySha1(TENANT, SHA1)).isSameAs(stored);
+    }
+
+    @Test
+    @Description("Verifies that deleted artifacts are invalidated and the invalidation is published.")
+    public void deleteInvalidatesArtifact() {
+        when(delegateMock.getArtifactBySha1(TENANT, SHA1)).thenReturn(artifact, (AbstractDbArtifact) null);
+
+        assertThat(repositoryUnderTest.getArtifactBySha1(TENANT, SHA1)).isSameAs(artifact);
+        repositoryUnderTest.deleteBySha1(TENANT, SHA1);
+        verify(delegateMock).deleteBySha1(TENANT, SHA1);
+        verify(publisherMock).publish(TENANT, SHA1);
+        assertThat(repositoryUnderTest.getArtifactBySha1(TENANT, SHA1)).isNull();
+
+        repositoryUnderTest.deleteByTenant(TENANT);
+        verify(delegateMock).deleteByTenant(TENANT);
+        verify(publisherMock).publish(TENANT, null);
+        assertThat(cache.exists(TENANT, SHA1)).isNull();
+    }
+
+    @Test
+    @Description("Verifies that an invalidation received from another instance invalidates the local cache.")
+    public void remoteInvalidationInvalidatesArtifact() {
+        when(delegateMock.getArtifactBySha1(TENANT, SHA1)).thenReturn(artifact);
+        repositoryUnderTest.getArtifactBySha1(TENANT, SHA1);
+
+        cache.invalidate(TENANT, SHA1);
+        repositoryUnderTest.getArtifactBySha1(TENANT, SHA1);
+        verify(delegateMock, times(2)).getArtifactBySha1(TENANT, SHA1);
+    }
+
+    private static final class TestArtifact extends AbstractDbArtifact {
+
+        private TestArtifact() {
+            super(SHA1, new DbArtifactHash(SHA1, null, null), (long) CONTENT.length, "application/octet-stream");
+        }
+
+        @Override
+        public InputStream getFileInputStream() {
+            return new ByteArrayInputStream(CONTENT);
+        }
+    }
+}
@@ -10,14 +10,17 @@ package org.eclipse.hawkbit.artifact.repository;
 
 import static java.nio.channels.Channels.newInputStream;
 
+import java.io.IOException;
 import java.io.InputStream;
 
 import org.eclipse.hawkbit.artifact.repository.model.AbstractDbArtifact;
 import org.eclipse.hawkbit.artifact.repository.model.DbArtifactHash;
 import org.springframework.util.Assert;
 
+import com.google.cloud.ReadChannel;
 import com.google.cloud.storage.BlobId;
 import com.google.cloud.storage.Storage;
+import com.google.common.io.ByteStreams;
 
 /**
  * An {@link AbstractDbArtifact} implementation which retrieves the
@@ -45,6 +48,30 @@ public class GcsArtifact extends AbstractDbArtifact {
         return newInputStream(gcsStorage.reader(BlobId.of(gcsProperties.getBucketName(), key)));
     }
 
+    /**
+     * Retrieves a range of the artifact by seeking the {@link ReadChannel} to
+     * the given offset, e.g. to resume a download without reading the already
+     * transferred bytes again.
+     *
+     * @param offset
+     *            position of the first byte to read
+     * @param length
+     *            number of bytes to read
+     * @return the {@link InputStream} of the requested range
+     */
+    public InputStream getFileInputStream(final long offset, final long length) {
+        Assert.isTrue(offset >= 0, "Offset cannot be negative");
+        Assert.isTrue(length >= 0, "Length cannot be negative");
+        final ReadChannel reader = gcsStorage.reader(BlobId.of(gcsProperties.getBucketName(), key));
+        try {
+            reader.seek(offset);
+        } catch (final IOException e) {
+            reader.close();
+            throw new ArtifactStoreException("Failed to seek GCS object " + key + " to offset " + offset, e);
+        }
+        return ByteStreams.limit(newInputStream(reader), length);
+    }
+
     @Override
     public String toString() {
         return "GcsArtifact [key=" + key + ", getArtifactId()=" + getArtifactId() + ", getHashes()=" + getHashes()
@@ -0,0 +1,148 @@
+/**
+ * Copyright (c) 2020 Bosch.IO GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.artifact.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.cloud.BatchResult;
+import com.google.cloud.storage.Blob;
+import com.google.cloud.storage.BlobId;
+import com.google.cloud.storage.Storage;
+import com.google.cloud.storage.Storage.BlobListOption;
+import com.google.cloud.storage.StorageBatch;
+import com.google.cloud.storage.StorageException;
+
+/**
+ * Deletes all objects below a name prefix. While the listing is iterated the
+ * objects are deleted by {@link StorageBatch}es of {@link #MAX_BATCH_SIZE}
+ * operations, with at most
+ * {@link GcsRepositoryProperties#getDeleteConcurrency()} batches in flight.
+ * Objects which cannot be deleted are collected and reported at the end
+ * instead of stopping at the first failure.
+ */
+class GcsBatchDelete {
+    private static final Logger LOG = LoggerFactory.getLogger(GcsBatchDelete.class);
+
+    /**
+     * Maximum number of operations GCS accepts in a single batch request.
+     */
+    static final int MAX_BATCH_SIZE = 100;
+
+    private final Storage gcsStorage;
+    private final GcsRepositoryProperties gcsProperties;
+
+    private final AtomicLong deleted = new AtomicLong();
+    private final Queue<BlobId> failed = new ConcurrentLinkedQueue<>();
+
+    GcsBatchDelete(final Storage gcsStorage, final GcsRepositoryProperties gcsProperties) {
+        this.gcsStorage = gcsStorage;
+        this.gcsProperties = gcsProperties;
+    }
+
+    /**
+     * Deletes all objects with the given name prefix.
+     *
+     * @param prefix
+     *            the name prefix
+     *
+     * @throws ArtifactStoreException
+     *             if any of the objects could not be deleted
+     */
+    void deleteByPrefix(final String prefix) {
+        final int concurrency = Math.max(1, gcsProperties.getDeleteConcurrency());
+        final ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        final Semaphore inFlight = new Semaphore(concurrency);
+        final List<Future<?>> batches = new ArrayList<>();
+
+        try {
+            List<BlobId> blobIds = new ArrayList<>(MAX_BATCH_SIZE);
+            for (final Blob blob : gcsStorage.list(gcsProperties.getBucketName(), BlobListOption.prefix(prefix))
+                    .iterateAll()) {
+                blobIds.add(blob.getBlobId());
+                if (blobIds.size() == MAX_BATCH_SIZE) {
+                    batches.add(submit(executor, inFlight, prefix, blobIds));
+                    blobIds = new ArrayList<>(MAX_BATCH_SIZE);
+                }
+            }
+            if (!blobIds.isEmpty()) {
+                batches.add(submit(executor, inFlight, prefix, blobIds));
+            }
+
+            for (final Future<?> batch : batches) {
+                batch.get();
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ArtifactStoreException("Interrupted while deleting GCS objects with prefix " + prefix, e);
+        } catch (final ExecutionException e) {
+            throw new ArtifactStoreException("Failed to delete GCS objects with prefix " + prefix, e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        LOG.info("Deleted {} GCS objects with prefix {} from bucket {}", deleted.get(), prefix,
+                gcsProperties.getBucketName());
+
+        if (!failed.isEmpty()) {
+            throw new ArtifactStoreException("Failed to delete " + failed.size() + " GCS objects with prefix "
+                    + prefix + " from bucket " + gcsProperties.getBucketName());
+        }
+    }
+
+    private Future<?> submit(final ExecutorService executor, final Semaphore inFlight, final String prefix,
+            final List<BlobId> blobIds) throws InterruptedException {
+        // bounds the number of listed but not yet deleted objects
+        inFlight.acquire();
+        return executor.submit(() -> {
+            try {
+                deleteBatch(prefix, blobIds);
+            } finally {
+                inFlight.release();
+            }
+        });
+    }
+
+    private void deleteBatch(final String prefix, final List<BlobId> blobIds) {
+        final StorageBatch batch = gcsStorage.batch();
+        blobIds.forEach(blobId -> batch.delete(blobId).notify(new BatchResult.Callback<Boolean, StorageException>() {
+            @Override
+            public void success(final Boolean result) {
+                // false if the object has been deleted in the meantime
+                deleted.incrementAndGet();
+            }
+
+            @Override
+            public void error(final StorageException exception) {
+                LOG.warn("Failed to delete GCS object {}: {}", blobId.getName(), exception.getMessage());
+                failed.add(blobId);
+            }
+        }));
+
+        try {
+            batch.submit();
+        } catch (final StorageException e) {
+            LOG.warn("Failed to delete batch of {} GCS objects with prefix {}", blobIds.size(), prefix, e);
+            failed.addAll(blobIds);
+        }
+
+        LOG.debug("Deleted {} GCS objects with prefix {} so far, {} failed", deleted.get(), prefix, failed.size());
+    }
+}
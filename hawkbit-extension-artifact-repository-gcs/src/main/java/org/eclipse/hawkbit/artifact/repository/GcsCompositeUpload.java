@@ -0,0 +1,167 @@
+/**
+ * Copyright (c) 2020 Bosch.IO GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.artifact.repository;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.cloud.WriteChannel;
+import com.google.cloud.storage.Blob;
+import com.google.cloud.storage.BlobId;
+import com.google.cloud.storage.BlobInfo;
+import com.google.cloud.storage.Storage;
+import com.google.cloud.storage.Storage.BlobWriteOption;
+import com.google.cloud.storage.Storage.ComposeRequest;
+import com.google.cloud.storage.StorageException;
+import com.google.common.hash.Hashing;
+import com.google.common.io.BaseEncoding;
+import com.google.common.io.ByteSource;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Files;
+import com.google.common.primitives.Ints;
+
+/**
+ * Parallel composite upload of a file to GCS. The file is split into up to
+ * {@link GcsRepositoryProperties#getCompositeUploadComponentCount()}
+ * components which are uploaded at the same time as temporary objects and then
+ * composed into the target object. GCS verifies the MD5 hash of every
+ * component. As composite objects have no MD5 hash the composed object is
+ * verified by its size and CRC32C checksum against the file. The temporary
+ * component objects are deleted in any case.
+ */
+class GcsCompositeUpload {
+    private static final Logger LOG = LoggerFactory.getLogger(GcsCompositeUpload.class);
+
+    /**
+     * Maximum number of source objects GCS accepts for a single compose
+     * request.
+     */
+    static final int MAX_COMPONENTS = 32;
+
+    private final Storage gcsStorage;
+    private final GcsRepositoryProperties gcsProperties;
+
+    GcsCompositeUpload(final Storage gcsStorage, final GcsRepositoryProperties gcsProperties) {
+        this.gcsStorage = gcsStorage;
+        this.gcsProperties = gcsProperties;
+    }
+
+    /**
+     * Uploads the given file as composite object.
+     *
+     * @param file
+     *            the file to upload
+     * @param target
+     *            the {@link BlobInfo} of the object to create
+     * @return the composed {@link Blob}
+     */
+    Blob upload(final File file, final BlobInfo target) {
+        final long length = file.length();
+        final int componentCount = (int) Math.max(1, Math.min(length,
+                Math.min(MAX_COMPONENTS, gcsProperties.getCompositeUploadComponentCount())));
+        final long componentSize = (length + componentCount - 1) / componentCount;
+        final String componentPrefix = target.getName() + ".component-" + UUID.randomUUID() + "-";
+
+        final List<BlobId> components = new ArrayList<>(componentCount);
+        final ExecutorService executor = Executors.newFixedThreadPool(componentCount);
+        try {
+            final List<Future<Void>> uploads = new ArrayList<>(componentCount);
+            for (long offset = 0; offset < length; offset += componentSize) {
+                final ByteSource component = Files.asByteSource(file).slice(offset,
+                        Math.min(componentSize, length - offset));
+                final BlobId componentId = BlobId.of(gcsProperties.getBucketName(),
+                        componentPrefix + components.size());
+                components.add(componentId);
+                uploads.add(executor.submit(() -> uploadComponent(component, componentId)));
+            }
+            for (final Future<Void> upload : uploads) {
+                upload.get();
+            }
+
+            LOG.debug("Uploaded {} components of GCS object {}, composing them", components.size(),
+                    target.getName());
+
+            final Blob blob = gcsStorage.compose(ComposeRequest.of(
+                    components.stream().map(BlobId::getName).collect(Collectors.toList()), target));
+            verify(blob, file);
+            return blob;
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ArtifactStoreException("Interrupted while storing artifact into GCS", e);
+        } catch (final ExecutionException e) {
+            throw new ArtifactStoreException("Failed to store artifact into GCS", e.getCause());
+        } catch (final IOException | StorageException e) {
+            throw new ArtifactStoreException("Failed to store artifact into GCS", e);
+        } finally {
+            executor.shutdownNow();
+            deleteComponents(components);
+        }
+    }
+
+    private Void uploadComponent(final ByteSource component, final BlobId componentId) throws IOException {
+        final BlobInfo componentInfo = BlobInfo.newBuilder(componentId).setMd5(md5Base64(component)).build();
+        try (final InputStream inputStream = component.openBufferedStream();
+                final WriteChannel writer = gcsStorage.writer(componentInfo, BlobWriteOption.md5Match())) {
+            writer.setChunkSize(gcsProperties.getUploadChunkSize());
+            ByteStreams.copy(inputStream, Channels.newOutputStream(writer));
+        }
+        return null;
+    }
+
+    private void verify(final Blob blob, final File file) throws IOException {
+        final String crc32c = BaseEncoding.base64()
+                .encode(Ints.toByteArray(Files.asByteSource(file).hash(Hashing.crc32c()).asInt()));
+        if (!Long.valueOf(file.length()).equals(blob.getSize()) || !crc32c.equals(blob.getCrc32c())) {
+            gcsStorage.delete(blob.getBlobId());
+            throw new ArtifactStoreException(
+                    "Composed GCS object " + blob.getName() + " does not match the uploaded artifact");
+        }
+    }
+
+    private void deleteComponents(final List<BlobId> components) {
+        if (components.isEmpty()) {
+            return;
+        }
+        try {
+            gcsStorage.delete(components);
+        } catch (final StorageException e) {
+            LOG.error("Failed to delete temporary components {}", components, e);
+        }
+    }
+
+    private static String md5Base64(final ByteSource component) throws IOException {
+        final MessageDigest md5;
+        try {
+            md5 = MessageDigest.getInstance("MD5");
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+
+        try (final InputStream inputStream = new DigestInputStream(component.openBufferedStream(), md5)) {
+            ByteStreams.exhaust(inputStream);
+        }
+        return BaseEncoding.base64().encode(md5.digest());
+    }
+}
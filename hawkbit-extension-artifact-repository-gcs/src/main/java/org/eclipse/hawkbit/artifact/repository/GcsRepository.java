@@ -12,20 +12,22 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.util.Collections;
 
-import org.apache.commons.io.IOUtils;
 import org.eclipse.hawkbit.artifact.repository.model.AbstractDbArtifact;
 import org.eclipse.hawkbit.artifact.repository.model.DbArtifactHash;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.validation.annotation.Validated;
 
-import com.google.api.gax.paging.Page;
+import com.google.cloud.WriteChannel;
 import com.google.cloud.storage.Blob;
 import com.google.cloud.storage.BlobId;
 import com.google.cloud.storage.BlobInfo;
 import com.google.cloud.storage.Storage;
 import com.google.common.io.BaseEncoding;
+import com.google.common.io.ByteStreams;
 
 /**
  * An {@link ArtifactRepository} implementation for the Gcloud GCS service. All
@@ -37,6 +39,11 @@ import com.google.common.io.BaseEncoding;
 public class GcsRepository extends AbstractArtifactRepository {
     private static final Logger LOG = LoggerFactory.getLogger(GcsRepository.class);
 
+    /**
+     * Meta data key of the base16 MD5 hash of composite objects.
+     */
+    static final String MD5_METADATA = "md5";
+
     private final Storage gcsStorage;
     private final GcsRepositoryProperties gcsProperties;
 
@@ -75,15 +82,35 @@ public class GcsRepository extends AbstractArtifactRepository {
             return gcsArtifact;
         }
 
-        try (final InputStream fileStream = new FileInputStream(file)) {
-            final byte[] data = IOUtils.toByteArray(fileStream);
-            final BlobInfo blobInfo = BlobInfo.newBuilder(BlobId.of(gcsProperties.getBucketName(), key))
-                    .setMd5(base16Hashes.getMd5()).setContentType(contentType).build();
-            final Blob blob = gcsStorage.create(blobInfo, data);
-            LOG.debug("Artifact {} stored on GCS bucket {} with server side Etag {} and MD5 hash {}", key,
-                    gcsProperties.getBucketName(), blob.getEtag(), blob.getMd5());
+        if (file.length() >= gcsProperties.getCompositeUploadThreshold()) {
+            // composite objects have no MD5 hash, so it is kept as meta data
+            final BlobInfo target = BlobInfo.newBuilder(BlobId.of(gcsProperties.getBucketName(), key))
+                    .setContentType(contentType)
+                    .setMetadata(Collections.singletonMap(MD5_METADATA, base16Hashes.getMd5())).build();
+            final Blob blob = new GcsCompositeUpload(gcsStorage, gcsProperties).upload(file, target);
+            LOG.debug("Artifact {} stored on GCS bucket {} by composite upload with CRC32C {}", key,
+                    gcsProperties.getBucketName(), blob.getCrc32c());
             return gcsArtifact;
         }
+
+        final BlobInfo blobInfo = BlobInfo.newBuilder(BlobId.of(gcsProperties.getBucketName(), key))
+                .setMd5(convertToBase64(base16Hashes.getMd5())).setContentType(contentType).build();
+
+        // resumable upload which streams the file in chunks so the heap usage
+        // does not depend on the artifact size
+        try (final InputStream fileStream = new FileInputStream(file);
+                final WriteChannel writer = gcsStorage.writer(blobInfo, Storage.BlobWriteOption.md5Match())) {
+            writer.setChunkSize(gcsProperties.getUploadChunkSize());
+            ByteStreams.copy(fileStream, Channels.newOutputStream(writer));
+        }
+
+        LOG.debug("Artifact {} stored on GCS bucket {} with MD5 hash {}", key, gcsProperties.getBucketName(),
+                base16Hashes.getMd5());
+        return gcsArtifact;
+    }
+
+    private static String convertToBase64(final String md5Base16) {
+        return BaseEncoding.base64().encode(BaseEncoding.base16().lowerCase().decode(md5Base16));
     }
 
     private GcsArtifact createGcsArtifact(final String tenant, final DbArtifactHash hashes, final String contentType,
@@ -108,14 +135,20 @@ public class GcsRepository extends AbstractArtifactRepository {
         if (blob == null || !blob.exists()) {
             return null;
         }
-        // the MD5Content is stored in the ETag
         return new GcsArtifact(gcsStorage, gcsProperties, key, sha1Hash,
-                new DbArtifactHash(sha1Hash,
-                        BaseEncoding.base16().lowerCase().encode(BaseEncoding.base64().decode(blob.getMd5())), null),
-                blob.getSize(), blob.getContentType());
+                new DbArtifactHash(sha1Hash, md5Base16(blob), null), blob.getSize(), blob.getContentType());
 
     }
 
+    private static String md5Base16(final Blob blob) {
+        if (blob.getMd5() == null && blob.getMetadata() != null) {
+            // composite object
+            return blob.getMetadata().get(MD5_METADATA);
+        }
+        // the MD5Content is stored in the ETag
+        return BaseEncoding.base16().lowerCase().encode(BaseEncoding.base64().decode(blob.getMd5()));
+    }
+
     private boolean exists(final String sha1) {
         final Blob blob = gcsStorage.get(gcsProperties.getBucketName(), sha1);
         if (blob == null) {
@@ -130,11 +163,7 @@ public class GcsRepository extends AbstractArtifactRepository {
 
         LOG.info("Deleting GCS object folder (tenant) from bucket {} and key {}", gcsProperties.getBucketName(),
                 folder);
-        final Page<Blob> blobs = gcsStorage.list(gcsProperties.getBucketName(),
-                Storage.BlobListOption.currentDirectory(), Storage.BlobListOption.prefix(tenant));
-        for (final Blob blob : blobs.iterateAll()) {
-            gcsStorage.delete(blob.getBlobId());
-        }
+        new GcsBatchDelete(gcsStorage, gcsProperties).deleteByPrefix(folder + "/");
     }
 
     @Override
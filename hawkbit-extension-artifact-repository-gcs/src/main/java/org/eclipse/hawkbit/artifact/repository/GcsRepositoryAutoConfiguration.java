@@ -10,6 +10,7 @@ package org.eclipse.hawkbit.artifact.repository;
 
 import java.io.IOException;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
@@ -21,6 +22,8 @@ import com.google.auth.oauth2.GoogleCredentials;
 import com.google.cloud.storage.Storage;
 import com.google.cloud.storage.StorageOptions;
 
+import io.micrometer.core.instrument.MeterRegistry;
+
 /**
  * The Spring auto-configuration to register the necessary beans for the GCS
  * artifact repository implementation.
@@ -65,4 +68,14 @@ public class GcsRepositoryAutoConfiguration {
     public ArtifactRepository artifactRepository(final GcsRepositoryProperties gcsProperties) {
         return new GcsRepository(gcsStorage(gcsProperties), gcsProperties);
     }
+
+    /**
+     * @return {@link ArtifactRepositoryDecoratingPostProcessor} which reports
+     *         the metrics of the GCS repository
+     */
+    @Bean
+    static ArtifactRepositoryDecoratingPostProcessor gcsRepositoryInstrumentation(
+            final ObjectProvider<MeterRegistry> meterRegistry) {
+        return ArtifactRepositoryInstrumentation.postProcessor("gcs", GcsRepository.class, meterRegistry);
+    }
 }
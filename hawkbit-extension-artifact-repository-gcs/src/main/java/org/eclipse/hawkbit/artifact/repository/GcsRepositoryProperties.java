@@ -22,6 +22,31 @@ public class GcsRepositoryProperties {
     private Resource credentialsLocation;
     private String projectId;
 
+    /**
+     * Size (in bytes) of the chunks in which artifacts are streamed to GCS by
+     * a resumable upload. This is the amount of heap buffered per upload.
+     * GCS rounds it up to a multiple of 256 KB.
+     */
+    private int uploadChunkSize = 8 * 1024 * 1024;
+
+    /**
+     * Artifacts with a size equal or above this threshold (in bytes) are
+     * uploaded by a parallel composite upload.
+     */
+    private long compositeUploadThreshold = 150L * 1024 * 1024;
+
+    /**
+     * Number of components which are uploaded in parallel by a composite
+     * upload. GCS composes at most 32 components.
+     */
+    private int compositeUploadComponentCount = 8;
+
+    /**
+     * Number of delete batches which are executed in parallel when all
+     * artifacts of a tenant are deleted.
+     */
+    private int deleteConcurrency = 4;
+
     public String getBucketName() {
         return bucketName;
     }
@@ -45,4 +70,36 @@ public class GcsRepositoryProperties {
     public void setProjectId(String projectId) {
         this.projectId = projectId;
     }
+
+    public int getUploadChunkSize() {
+        return uploadChunkSize;
+    }
+
+    public void setUploadChunkSize(final int uploadChunkSize) {
+        this.uploadChunkSize = uploadChunkSize;
+    }
+
+    public long getCompositeUploadThreshold() {
+        return compositeUploadThreshold;
+    }
+
+    public void setCompositeUploadThreshold(final long compositeUploadThreshold) {
+        this.compositeUploadThreshold = compositeUploadThreshold;
+    }
+
+    public int getCompositeUploadComponentCount() {
+        return compositeUploadComponentCount;
+    }
+
+    public void setCompositeUploadComponentCount(final int compositeUploadComponentCount) {
+        this.compositeUploadComponentCount = compositeUploadComponentCount;
+    }
+
+    public int getDeleteConcurrency() {
+        return deleteConcurrency;
+    }
+
+    public void setDeleteConcurrency(final int deleteConcurrency) {
+        this.deleteConcurrency = deleteConcurrency;
+    }
 }
@@ -12,6 +12,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.fail;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.when;
@@ -22,10 +23,14 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.security.DigestOutputStream;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
+import java.util.stream.StreamSupport;
 
 import org.eclipse.hawkbit.artifact.repository.model.AbstractDbArtifact;
 import org.eclipse.hawkbit.artifact.repository.model.DbArtifactHash;
@@ -33,16 +38,30 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
 import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.MockitoJUnitRunner;
 
+import com.google.api.gax.paging.Page;
+import com.google.cloud.BatchResult.Callback;
+import com.google.cloud.ReadChannel;
+import com.google.cloud.WriteChannel;
 import com.google.cloud.storage.Blob;
+import com.google.cloud.storage.BlobId;
 import com.google.cloud.storage.BlobInfo;
 import com.google.cloud.storage.Storage;
+import com.google.cloud.storage.Storage.BlobListOption;
+import com.google.cloud.storage.Storage.BlobWriteOption;
+import com.google.cloud.storage.Storage.ComposeRequest;
+import com.google.cloud.storage.StorageBatch;
+import com.google.cloud.storage.StorageBatchResult;
+import com.google.cloud.storage.StorageException;
+import com.google.common.hash.Hashing;
 import com.google.common.io.BaseEncoding;
 import com.google.common.io.ByteStreams;
+import com.google.common.primitives.Ints;
 
 import io.qameta.allure.Description;
 import io.qameta.allure.Feature;
@@ -63,11 +82,17 @@ public class GcsRepositoryTest {
     @Mock
     private Blob gcpObjectMock;
     @Mock
-    private Blob putObjectResultMock;
-    @Captor
-    private ArgumentCaptor<byte[]> inputStreamCaptor;
+    private WriteChannel writeChannelMock;
+    @Mock
+    private ReadChannel readChannelMock;
+    @Mock
+    private Page<Blob> blobPageMock;
+    @Mock
+    private StorageBatch storageBatchMock;
     @Captor
     private ArgumentCaptor<BlobInfo> blobCaptor;
+    @Captor
+    private ArgumentCaptor<ComposeRequest> composeRequestCaptor;
     private GcsRepository gcsRepositoryUnderTest;
 
     @Before
@@ -78,22 +103,76 @@ public class GcsRepositoryTest {
 
     @Test
     @Description("Verifies that the gcs storage client is called to put the object to GCS with the correct inputstream and meta-data")
-    public void storeInputStreamCallGcsStorageClient() throws IOException {
+    public void storeInputStreamCallGcsStorageClient() throws IOException, NoSuchAlgorithmException {
         final byte[] rndBytes = randomBytes();
         final String knownContentType = "application/octet-stream";
 
+        final ByteArrayOutputStream uploaded = new ByteArrayOutputStream();
+
         when(gcsStorageMock.get(anyString(), anyString())).thenReturn(gcpObjectMock);
-        when(gcsStorageMock.create(any(), (byte[]) any())).thenReturn(putObjectResultMock);
+        when(gcsStorageMock.writer(any(BlobInfo.class), any(BlobWriteOption.class))).thenReturn(writeChannelMock);
+        when(writeChannelMock.write(any())).thenAnswer(invocation -> {
+            final ByteBuffer buffer = invocation.getArgument(0);
+            final int length = buffer.remaining();
+            final byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            uploaded.write(bytes);
+            return length;
+        });
 
         // test
         storeRandomBytes(rndBytes, knownContentType);
 
         // verify
-        Mockito.verify(gcsStorageMock).create(blobCaptor.capture(), inputStreamCaptor.capture());
+        Mockito.verify(gcsStorageMock).writer(blobCaptor.capture(), any(BlobWriteOption.class));
+        Mockito.verify(gcsStorageMock, never()).create(any(), (byte[]) any());
+        Mockito.verify(writeChannelMock).setChunkSize(gcpProperties.getUploadChunkSize());
+        Mockito.verify(writeChannelMock).close();
 
         final BlobInfo recordedObjectMetadata = blobCaptor.getValue();
         assertThat(recordedObjectMetadata.getContentType()).isEqualTo(knownContentType);
-        assertThat(recordedObjectMetadata.getMd5()).isNotNull();
+        assertThat(recordedObjectMetadata.getMd5()).isEqualTo(
+                BaseEncoding.base64().encode(BaseEncoding.base16().lowerCase().decode(getMd5OfBytes(rndBytes))));
+        assertThat(uploaded.toByteArray()).isEqualTo(rndBytes);
+    }
+
+    @Test
+    @Description("Verifies that artifacts above the composite upload threshold are uploaded as parallel components which are composed "
+            + "into the artifact object and deleted afterwards")
+    public void storeAboveThresholdUsesCompositeUpload() throws IOException, NoSuchAlgorithmException {
+        final byte[] rndBytes = randomBytes();
+        final String knownContentType = "application/octet-stream";
+        gcpProperties.setCompositeUploadThreshold(rndBytes.length);
+        gcpProperties.setCompositeUploadComponentCount(4);
+
+        when(gcsStorageMock.writer(any(BlobInfo.class), any(BlobWriteOption.class))).thenReturn(writeChannelMock);
+        when(writeChannelMock.write(any())).thenAnswer(invocation -> {
+            final ByteBuffer buffer = invocation.getArgument(0);
+            final int length = buffer.remaining();
+            buffer.position(buffer.limit());
+            return length;
+        });
+        when(gcsStorageMock.compose(any())).thenReturn(gcpObjectMock);
+        when(gcpObjectMock.getSize()).thenReturn((long) rndBytes.length);
+        when(gcpObjectMock.getCrc32c()).thenReturn(BaseEncoding.base64()
+                .encode(Ints.toByteArray(Hashing.crc32c().hashBytes(rndBytes).asInt())));
+
+        // test
+        storeRandomBytes(rndBytes, knownContentType);
+
+        // verify
+        Mockito.verify(gcsStorageMock, Mockito.times(4)).writer(blobCaptor.capture(), any(BlobWriteOption.class));
+        assertThat(blobCaptor.getAllValues()).allMatch(component -> component.getMd5() != null);
+        Mockito.verify(gcsStorageMock).compose(composeRequestCaptor.capture());
+        final ComposeRequest composeRequest = composeRequestCaptor.getValue();
+        assertThat(composeRequest.getSourceBlobs()).hasSize(4);
+        assertThat(composeRequest.getTarget().getName())
+                .isEqualTo(TENANT.toUpperCase() + "/" + getSha1OfBytes(rndBytes));
+        assertThat(composeRequest.getTarget().getContentType()).isEqualTo(knownContentType);
+        assertThat(composeRequest.getTarget().getMetadata()).containsEntry(GcsRepository.MD5_METADATA,
+                getMd5OfBytes(rndBytes));
+        Mockito.verify(gcsStorageMock).delete(ArgumentMatchers.<Iterable<BlobId>> argThat(
+                components -> StreamSupport.stream(components.spliterator(), false).count() == 4));
     }
 
     @Test
@@ -123,6 +202,22 @@ public class GcsRepositoryTest {
         assertThat(artifactBySha1.getHashes().getMd5()).isEqualTo(knownMdBase16);
     }
 
+    @Test
+    @Description("Verifies that a ranged read of an artifact seeks the GCS read channel to the requested offset")
+    public void getFileInputStreamWithRangeSeeksReadChannel() throws IOException {
+        final String knownSHA1Hash = "da39a3ee5e6b4b0d3255bfef95601890afd80709";
+        final GcsArtifact artifact = new GcsArtifact(gcsStorageMock, gcpProperties, TENANT + "/" + knownSHA1Hash,
+                knownSHA1Hash, new DbArtifactHash(knownSHA1Hash, null, null), 100L, "application/octet-stream");
+
+        when(gcsStorageMock.reader(any(BlobId.class))).thenReturn(readChannelMock);
+
+        // test
+        artifact.getFileInputStream(10, 20);
+
+        // verify
+        Mockito.verify(readChannelMock).seek(10);
+    }
+
     @Test
     @Description("Verifies that the gcs storage client is not called to put the object to GCS due the artifact already exists on GCS")
     public void artifactIsNotUploadedIfAlreadyExists() throws IOException {
@@ -136,7 +231,7 @@ public class GcsRepositoryTest {
         storeRandomBytes(rndBytes, knownContentType);
 
         // verify
-        Mockito.verify(gcsStorageMock, never()).create(blobCaptor.capture(), inputStreamCaptor.capture());
+        Mockito.verify(gcsStorageMock, never()).writer(any(BlobInfo.class), any(BlobWriteOption.class));
     }
 
     @Test
@@ -152,6 +247,50 @@ public class GcsRepositoryTest {
         assertThat(artifactBySha1NotExists).isNull();
     }
 
+    @Test
+    @Description("Verifies that the objects of a tenant are deleted in batches of 100 and that failed deletions are "
+            + "reported after all batches have been processed")
+    @SuppressWarnings("unchecked")
+    public void deleteByTenantDeletesInBatchesAndReportsFailures() {
+        final List<Blob> blobs = new ArrayList<>();
+        for (int i = 0; i < 150; i++) {
+            final Blob blob = mock(Blob.class);
+            when(blob.getBlobId()).thenReturn(BlobId.of(gcpProperties.getBucketName(), "TEST_TENANT/" + i));
+            blobs.add(blob);
+        }
+        final StorageBatchResult<Boolean> successResult = mock(StorageBatchResult.class);
+        doAnswer(invocation -> {
+            invocation.<Callback<Boolean, StorageException>> getArgument(0).success(true);
+            return null;
+        }).when(successResult).notify(any());
+        final StorageBatchResult<Boolean> errorResult = mock(StorageBatchResult.class);
+        doAnswer(invocation -> {
+            invocation.<Callback<Boolean, StorageException>> getArgument(0)
+                    .error(new StorageException(403, "Forbidden"));
+            return null;
+        }).when(errorResult).notify(any());
+
+        when(gcsStorageMock.list(anyString(), any(BlobListOption.class))).thenReturn(blobPageMock);
+        when(blobPageMock.iterateAll()).thenReturn(blobs);
+        when(gcsStorageMock.batch()).thenReturn(storageBatchMock);
+        when(storageBatchMock.delete(any(BlobId.class))).thenReturn(errorResult).thenReturn(successResult);
+
+        // test
+        try {
+            gcsRepositoryUnderTest.deleteByTenant(TENANT);
+            fail("Expected an ArtifactStoreException, but didn't throw");
+        } catch (final ArtifactStoreException e) {
+            assertThat(e.getMessage()).contains("Failed to delete 1 GCS objects");
+        }
+
+        // verify
+        Mockito.verify(gcsStorageMock).list(gcpProperties.getBucketName(),
+                BlobListOption.prefix(TENANT.toUpperCase() + "/"));
+        Mockito.verify(storageBatchMock, Mockito.times(150)).delete(any(BlobId.class));
+        Mockito.verify(storageBatchMock, Mockito.times(2)).submit();
+        Mockito.verify(gcsStorageMock, never()).delete(any(BlobId.class));
+    }
+
     @Test
     @Description("Verifies that given SHA1 hash is checked and if not match will throw exception")
     public void sha1HashValuesAreNotTheSameThrowsException() throws IOException, NoSuchAlgorithmException {
@@ -0,0 +1,48 @@
+/**
+ * Copyright (c) 2020 Bosch.IO GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.artifact.repository;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event of an {@link ArtifactRepository} operation.
+ */
+@Name("org.eclipse.hawkbit.artifact.repository.Operation")
+@Label("Artifact Repository Operation")
+@Description("Operation of the artifact repository")
+@Category({ "hawkBit", "Artifact Repository" })
+@StackTrace(false)
+class ArtifactRepositoryOperationEvent extends Event {
+
+    @Label("Backend")
+    String backend;
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Tenant")
+    String tenant;
+
+    @Label("SHA1")
+    String sha1;
+
+    @Label("Size")
+    @DataAmount
+    long size = -1;
+
+    @Label("Outcome")
+    @Description("success, not_found or error")
+    String outcome;
+}
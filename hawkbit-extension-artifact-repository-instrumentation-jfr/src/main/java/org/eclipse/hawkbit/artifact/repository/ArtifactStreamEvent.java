@@ -0,0 +1,63 @@
+/**
+ * Copyright (c) 2020 Bosch.IO GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.artifact.repository;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight Recorder event of the lifecycle of an artifact stream, i.e. the
+ * content of an upload or of a download. The event lasts from opening the
+ * stream to its completion or abort.
+ */
+@Name("org.eclipse.hawkbit.artifact.repository.Stream")
+@Label("Artifact Stream")
+@Description("Upload or download of the content of an artifact")
+@Category({ "hawkBit", "Artifact Repository" })
+@StackTrace(false)
+class ArtifactStreamEvent extends Event {
+
+    @Label("Backend")
+    String backend;
+
+    @Label("Direction")
+    @Description("upload or download")
+    String direction;
+
+    @Label("Tenant")
+    String tenant;
+
+    @Label("SHA1")
+    String sha1;
+
+    @Label("Size")
+    @Description("Size of the artifact")
+    @DataAmount
+    long size = -1;
+
+    @Label("Bytes")
+    @Description("Bytes moved until the stream has been completed or aborted")
+    @DataAmount
+    long bytes;
+
+    @Label("First Byte")
+    @Description("Time from opening the stream to its first byte, 0 if no byte has been moved")
+    @Timespan
+    long firstByte;
+
+    @Label("Complete")
+    @Description("The stream has been read to its end")
+    boolean complete;
+}
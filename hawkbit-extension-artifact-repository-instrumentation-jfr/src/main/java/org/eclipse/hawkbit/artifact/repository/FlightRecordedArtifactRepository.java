@@ -0,0 +1,186 @@
+/**
+ * Copyright (c) 2020 Bosch.IO GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.artifact.repository;
+
+import java.io.InputStream;
+import java.util.function.Supplier;
+
+import org.eclipse.hawkbit.artifact.repository.model.AbstractDbArtifact;
+import org.eclipse.hawkbit.artifact.repository.model.DbArtifactHash;
+import org.springframework.util.Assert;
+
+/**
+ * {@link ArtifactRepository} which records the operations and the artifact
+ * streams of another repository as Java Flight Recorder events, i.e.
+ * {@link ArtifactRepositoryOperationEvent} and {@link ArtifactStreamEvent}.
+ * The events are only committed while a recording is running. The class must
+ * only be loaded if {@code jdk.jfr} is available, i.e. on Java 8u262 or
+ * later.
+ */
+public class FlightRecordedArtifactRepository implements ArtifactRepository {
+
+    private static final String UPLOAD = "upload";
+    private static final String DOWNLOAD = "download";
+    private static final String SUCCESS = "success";
+    private static final String NOT_FOUND = "not_found";
+    private static final String ERROR = "error";
+
+    private final ArtifactRepository delegate;
+    private final String backend;
+
+    /**
+     * @param delegate
+     *            the recorded repository
+     * @param backend
+     *            name of the backend of the repository, e.g. s3
+     */
+    public FlightRecordedArtifactRepository(final ArtifactRepository delegate, final String backend) {
+        Assert.notNull(delegate, "Delegate cannot be null");
+        Assert.notNull(backend, "Backend cannot be null");
+        this.delegate = delegate;
+        this.backend = backend;
+    }
+
+    @Override
+    public AbstractDbArtifact store(final String tenant, final InputStream content, final String filename,
+            final String contentType, final DbArtifactHash hash) {
+        final ArtifactStreamEvent upload = new ArtifactStreamEvent();
+        if (!upload.isEnabled()) {
+            return recordDownloads(tenant, record("store", tenant, sha1(hash),
+                    () -> delegate.store(tenant, content, filename, contentType, hash)));
+        }
+
+        final long start = System.nanoTime();
+        final ObservedInputStream observed = new ObservedInputStream(content, new ObservedInputStream.Observer() {
+            @Override
+            public void onFirstByte() {
+                upload.firstByte = System.nanoTime() - start;
+            }
+
+            @Override
+            public void onClose(final long bytes, final boolean complete) {
+                // the upload ends with the store operation
+            }
+        });
+        upload.begin();
+        AbstractDbArtifact artifact = null;
+        try {
+            artifact = record("store", tenant, sha1(hash),
+                    () -> delegate.store(tenant, observed, filename, contentType, hash));
+            return recordDownloads(tenant, artifact);
+        } finally {
+            upload.end();
+            if (upload.shouldCommit()) {
+                upload.backend = backend;
+                upload.direction = UPLOAD;
+                upload.tenant = tenant;
+                upload.sha1 = artifact != null ? artifact.getHashes().getSha1() : sha1(hash);
+                upload.size = artifact != null && artifact.getSize() != null ? artifact.getSize() : -1;
+                upload.bytes = observed.getBytes();
+                upload.complete = artifact != null;
+                upload.commit();
+            }
+        }
+    }
+
+    @Override
+    public void deleteBySha1(final String tenant, final String sha1Hash) {
+        record("deleteBySha1", tenant, sha1Hash, () -> {
+            delegate.deleteBySha1(tenant, sha1Hash);
+            return Boolean.TRUE;
+        });
+    }
+
+    @Override
+    public AbstractDbArtifact getArtifactBySha1(final String tenant, final String sha1Hash) {
+        return recordDownloads(tenant,
+                record("getArtifactBySha1", tenant, sha1Hash, () -> delegate.getArtifactBySha1(tenant, sha1Hash)));
+    }
+
+    @Override
+    public boolean existsByTenantAndSha1(final String tenant, final String sha1Hash) {
+        return record("existsByTenantAndSha1", tenant, sha1Hash,
+                () -> delegate.existsByTenantAndSha1(tenant, sha1Hash));
+    }
+
+    @Override
+    public void deleteByTenant(final String tenant) {
+        record("deleteByTenant", tenant, null, () -> {
+            delegate.deleteByTenant(tenant);
+            return Boolean.TRUE;
+        });
+    }
+
+    private <T> T record(final String operation, final String tenant, final String sha1Hash, final Supplier<T> call) {
+        final ArtifactRepositoryOperationEvent event = new ArtifactRepositoryOperationEvent();
+        if (!event.isEnabled()) {
+            return call.get();
+        }
+
+        event.begin();
+        String outcome = ERROR;
+        T result = null;
+        try {
+            result = call.get();
+            outcome = result == null ? NOT_FOUND : SUCCESS;
+            return result;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.backend = backend;
+                event.operation = operation;
+                event.tenant = tenant;
+                event.sha1 = sha1Hash;
+                if (result instanceof AbstractDbArtifact) {
+                    final AbstractDbArtifact artifact = (AbstractDbArtifact) result;
+                    event.sha1 = artifact.getHashes().getSha1();
+                    event.size = artifact.getSize() != null ? artifact.getSize() : -1;
+                }
+                event.outcome = outcome;
+                event.commit();
+            }
+        }
+    }
+
+    private AbstractDbArtifact recordDownloads(final String tenant, final AbstractDbArtifact artifact) {
+        return ObservedArtifact.decorate(artifact, (stream, openNanos) -> {
+            final ArtifactStreamEvent download = new ArtifactStreamEvent();
+            if (!download.isEnabled()) {
+                return stream;
+            }
+
+            download.begin();
+            return new ObservedInputStream(stream, new ObservedInputStream.Observer() {
+                @Override
+                public void onFirstByte() {
+                    download.firstByte = System.nanoTime() - openNanos;
+                }
+
+                @Override
+                public void onClose(final long bytes, final boolean complete) {
+                    download.end();
+                    if (download.shouldCommit()) {
+                        download.backend = backend;
+                        download.direction = DOWNLOAD;
+                        download.tenant = tenant;
+                        download.sha1 = artifact.getHashes().getSha1();
+                        download.size = artifact.getSize() != null ? artifact.getSize() : -1;
+                        download.bytes = bytes;
+                        download.complete = complete;
+                        download.commit();
+                    }
+                }
+            });
+        });
+    }
+
+    private static String sha1(final DbArtifactHash hash) {
+        return hash != null ? hash.getSha1() : null;
+    }
+}
@@ -0,0 +1,28 @@
+/**
+ * Copyright (c) 2020 Bosch.IO GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.artifact.repository;
+
+import org.springframework.util.ClassUtils;
+
+/**
+ * {@link ArtifactRepositoryRecorder} which records the repositories of the
+ * backends as Java Flight Recorder events by the
+ * {@link FlightRecordedArtifactRepository}. The repositories are left as they
+ * are if {@code jdk.jfr} is not available, i.e. before Java 8u262.
+ */
+public class FlightRecorderArtifactRepositoryRecorder implements ArtifactRepositoryRecorder {
+
+    private static final boolean FLIGHT_RECORDER_PRESENT = ClassUtils.isPresent("jdk.jfr.Event",
+            FlightRecorderArtifactRepositoryRecorder.class.getClassLoader());
+
+    @Override
+    public ArtifactRepository record(final ArtifactRepository repository, final String backend) {
+        return FLIGHT_RECORDER_PRESENT ? new FlightRecordedArtifactRepository(repository, backend) : repository;
+    }
+}
@@ -0,0 +1,146 @@
+/**
+ * Copyright (c) 2020 Bosch.IO GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.artifact.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.eclipse.hawkbit.artifact.repository.model.AbstractDbArtifact;
+import org.eclipse.hawkbit.artifact.repository.model.DbArtifactHash;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.util.StreamUtils;
+
+import io.qameta.allure.Description;
+import io.qameta.allure.Feature;
+import io.qameta.allure.Story;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * Test class for the {@link FlightRecordedArtifactRepository}.
+ */
+@RunWith(MockitoJUnitRunner.class)
+@Feature("Unit Tests - Artifact Repository Instrumentation")
+@Story("Flight Recorder Events")
+public class FlightRecordedArtifactRepositoryTest {
+
+    private static final String TENANT = "test_tenant";
+    private static final String SHA1 = "a94a8fe5ccb19ba61c4c0873d391e987982fbbd3";
+    private static final String BACKEND = "test";
+    private static final byte[] CONTENT = "test".getBytes(StandardCharsets.UTF_8);
+
+    @Mock
+    private ArtifactRepository delegateMock;
+
+    private FlightRecordedArtifactRepository repositoryUnderTest;
+    private Recording recording;
+
+    @Before
+    public void before() {
+        repositoryUnderTest = new FlightRecordedArtifactRepository(delegateMock, BACKEND);
+        recording = new Recording();
+        recording.enable(ArtifactRepositoryOperationEvent.class).withoutThreshold();
+        recording.enable(ArtifactStreamEvent.class).withoutThreshold();
+        recording.start();
+    }
+
+    @After
+    public void after() {
+        recording.close();
+    }
+
+    @Test
+    @Description("Verifies that the operations are recorded with tenant, SHA1, backend, size and outcome.")
+    public void operationsAreRecorded() throws IOException {
+        when(delegateMock.getArtifactBySha1(TENANT, SHA1)).thenReturn(new TestArtifact());
+        when(delegateMock.existsByTenantAndSha1(TENANT, SHA1)).thenReturn(false);
+
+        repositoryUnderTest.getArtifactBySha1(TENANT, SHA1);
+        repositoryUnderTest.existsByTenantAndSha1(TENANT, SHA1);
+        repositoryUnderTest.deleteByTenant(TENANT);
+
+        final List<RecordedEvent> events = events("org.eclipse.hawkbit.artifact.repository.Operation");
+        assertThat(events).extracting(event -> event.getString("operation")).containsExactly("getArtifactBySha1",
+                "existsByTenantAndSha1", "deleteByTenant");
+        assertThat(events).allMatch(event -> BACKEND.equals(event.getString("backend"))
+                && TENANT.equals(event.getString("tenant")));
+        assertThat(events.get(0).getString("sha1")).isEqualTo(SHA1);
+        assertThat(events.get(0).getLong("size")).isEqualTo(4L);
+        assertThat(events.get(0).getString("outcome")).isEqualTo("success");
+    }
+
+    @Test
+    @Description("Verifies that the lifecycles of uploads and complete and aborted downloads are recorded.")
+    public void streamsAreRecorded() throws IOException {
+        when(delegateMock.store(eq(TENANT), any(), eq("file"), eq("application/octet-stream"), any()))
+                .thenAnswer(invocation -> {
+                    StreamUtils.copyToByteArray(invocation.getArgument(1));
+                    return new TestArtifact();
+                });
+
+        final AbstractDbArtifact artifact = repositoryUnderTest.store(TENANT,
+                new ByteArrayInputStream(new byte[] { 1, 2, 3, 4 }), "file", "application/octet-stream", null);
+        try (InputStream stream = artifact.getFileInputStream()) {
+            StreamUtils.copyToByteArray(stream);
+        }
+        try (InputStream stream = artifact.getFileInputStream()) {
+            stream.read();
+        }
+
+        final List<RecordedEvent> events = events("org.eclipse.hawkbit.artifact.repository.Stream");
+        assertThat(events).extracting(event -> event.getString("direction")).containsExactly("upload", "download",
+                "download");
+        assertThat(events).allMatch(event -> SHA1.equals(event.getString("sha1"))
+                && TENANT.equals(event.getString("tenant")) && event.getLong("size") == 4L);
+        assertThat(events).extracting(event -> event.getLong("bytes")).containsExactly(4L, 4L, 1L);
+        assertThat(events).extracting(event -> event.getBoolean("complete")).containsExactly(true, true, false);
+    }
+
+    private List<RecordedEvent> events(final String name) throws IOException {
+        recording.stop();
+        final Path file = Files.createTempFile("artifact-repository", ".jfr");
+        try {
+            recording.dump(file);
+            return RecordingFile.readAllEvents(file).stream()
+                    .filter(event -> name.equals(event.getEventType().getName()))
+                    .sorted((a, b) -> a.getStartTime().compareTo(b.getStartTime())).collect(Collectors.toList());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static final class TestArtifact extends AbstractDbArtifact {
+
+        private TestArtifact() {
+            super(SHA1, new DbArtifactHash(SHA1, null, null), (long) CONTENT.length, "application/octet-stream");
+        }
+
+        @Override
+        public InputStream getFileInputStream() {
+            return new ByteArrayInputStream(CONTENT);
+        }
+    }
+}
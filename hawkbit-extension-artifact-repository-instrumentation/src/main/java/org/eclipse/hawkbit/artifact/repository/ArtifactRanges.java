@@ -0,0 +1,87 @@
+/**
+ * Copyright (c) 2020 Bosch.IO GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.artifact.repository;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+
+import org.eclipse.hawkbit.artifact.repository.model.AbstractDbArtifact;
+import org.springframework.util.Assert;
+import org.springframework.util.ReflectionUtils;
+
+import com.google.common.io.ByteStreams;
+
+/**
+ * Opens ranges of the artifacts of the backends. {@link AbstractDbArtifact}
+ * has no ranged read, so the {@code getFileInputStream(long, long)} of the
+ * artifact classes of the backends, e.g. {@code S3Artifact}, is looked up by
+ * its signature.
+ */
+public final class ArtifactRanges {
+
+    private static final String GET_FILE_INPUT_STREAM = "getFileInputStream";
+
+    private ArtifactRanges() {
+        // utility class
+    }
+
+    /**
+     * Opens a range of the artifact by the ranged read of the backend, or by
+     * skipping the content up to the offset if the artifact has none.
+     *
+     * @param artifact
+     *            the artifact of the backend
+     * @param offset
+     *            position of the first byte to read
+     * @param length
+     *            number of bytes to read
+     * @return the {@link InputStream} of the requested range
+     */
+    public static InputStream open(final AbstractDbArtifact artifact, final long offset, final long length) {
+        checkRange(offset, length);
+        final Method rangedRead = ReflectionUtils.findMethod(artifact.getClass(), GET_FILE_INPUT_STREAM, long.class,
+                long.class);
+        if (rangedRead != null && InputStream.class.isAssignableFrom(rangedRead.getReturnType())) {
+            ReflectionUtils.makeAccessible(rangedRead);
+            return (InputStream) ReflectionUtils.invokeMethod(rangedRead, artifact, offset, length);
+        }
+
+        final InputStream content = artifact.getFileInputStream();
+        try {
+            ByteStreams.skipFully(content, offset);
+        } catch (final IOException e) {
+            closeQuietly(content);
+            throw new ArtifactStoreException(
+                    "Failed to skip to offset " + offset + " of artifact " + artifact.getArtifactId(), e);
+        }
+        return ByteStreams.limit(content, length);
+    }
+
+    /**
+     * @throws IllegalArgumentException
+     *             if the offset or the length is negative
+     */
+    public static void checkRange(final long offset, final long length) {
+        Assert.isTrue(offset >= 0, "Offset cannot be negative");
+        Assert.isTrue(length >= 0, "Length cannot be negative");
+    }
+
+    /**
+     * Closes a stream or channel which is not used anymore, e.g. after a
+     * failure.
+     */
+    public static void closeQuietly(final AutoCloseable closeable) {
+        try {
+            closeable.close();
+        } catch (final Exception e) {
+            // nothing to do, it is not used anymore
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/**
+ * Copyright (c) 2020 Bosch.IO GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.artifact.repository;
+
+import java.lang.reflect.Method;
+import java.util.function.Function;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.Ordered;
+import org.springframework.util.Assert;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * {@link BeanPostProcessor} which decorates the {@link ArtifactRepository}
+ * beans of a type, e.g. the repository registered by the auto-configuration
+ * of the backend. The bean is
+ * replaced by a class based proxy which routes the {@link ArtifactRepository}
+ * methods to the decorator, so it can still be injected by its concrete type,
+ * e.g. as {@code AzureStorageRepository}. All other methods are invoked on the
+ * repository itself. Several decorators are stacked by their order, the
+ * decorator with the highest precedence wraps the repository itself.
+ */
+public class ArtifactRepositoryDecoratingPostProcessor implements BeanPostProcessor, Ordered {
+
+    /**
+     * Order of the instrumentation, which measures the backend itself.
+     */
+    public static final int INSTRUMENTATION_ORDER = Ordered.HIGHEST_PRECEDENCE + 1000;
+
+    /**
+     * Order of the caches in front of the backend.
+     */
+    public static final int CACHE_ORDER = Ordered.LOWEST_PRECEDENCE - 1000;
+
+    private final Class<? extends ArtifactRepository> repositoryType;
+    private final Function<ArtifactRepository, ArtifactRepository> decorator;
+    private final int order;
+
+    /**
+     * Decorates every {@link ArtifactRepository} bean.
+     *
+     * @param decorator
+     *            creates the decorator of a repository, may return the
+     *            repository itself to leave it undecorated
+     * @param order
+     *            order of the decorator
+     */
+    public ArtifactRepositoryDecoratingPostProcessor(final Function<ArtifactRepository, ArtifactRepository> decorator,
+            final int order) {
+        this(ArtifactRepository.class, decorator, order);
+    }
+
+    /**
+     * @param repositoryType
+     *            type of the repository beans which are decorated, e.g. the
+     *            implementation of a backend
+     * @param decorator
+     *            creates the decorator of a repository, may return the
+     *            repository itself to leave it undecorated
+     * @param order
+     *            order of the decorator
+     */
+    public ArtifactRepositoryDecoratingPostProcessor(final Class<? extends ArtifactRepository> repositoryType,
+            final Function<ArtifactRepository, ArtifactRepository> decorator, final int order) {
+        Assert.notNull(repositoryType, "Repository type cannot be null");
+        Assert.notNull(decorator, "Decorator cannot be null");
+        this.repositoryType = repositoryType;
+        this.decorator = decorator;
+        this.order = order;
+    }
+
+    @Override
+    public int getOrder() {
+        return order;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(final Object bean, final String beanName) {
+        // a bean which has been decorated already is a subclass of its type
+        if (!repositoryType.isInstance(bean)) {
+            return bean;
+        }
+
+        final ArtifactRepository decorated = decorator.apply((ArtifactRepository) bean);
+        if (decorated == bean) {
+            return bean;
+        }
+
+        final ProxyFactory proxyFactory = new ProxyFactory(bean);
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAdvice(new DecoratingInterceptor(decorated));
+        return proxyFactory.getProxy(bean.getClass().getClassLoader());
+    }
+
+    private static final class DecoratingInterceptor implements MethodInterceptor {
+
+        private final ArtifactRepository decorated;
+
+        private DecoratingInterceptor(final ArtifactRepository decorated) {
+            this.decorated = decorated;
+        }
+
+        @Override
+        public Object invoke(final MethodInvocation invocation) throws Throwable {
+            final Method method = invocation.getMethod();
+            final Method repositoryMethod = ReflectionUtils.findMethod(ArtifactRepository.class, method.getName(),
+                    method.getParameterTypes());
+            if (repositoryMethod == null) {
+                return invocation.proceed();
+            }
+            return AopUtils.invokeJoinpointUsingReflection(decorated, repositoryMethod, invocation.getArguments());
+        }
+    }
+}
@@ -0,0 +1,59 @@
+/**
+ * Copyright (c) 2020 Bosch.IO GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.artifact.repository;
+
+import java.util.List;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.io.support.SpringFactoriesLoader;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+
+/**
+ * Instrumentation of the artifact repositories which is registered by the
+ * auto-configuration of every artifact repository extension.
+ */
+public final class ArtifactRepositoryInstrumentation {
+
+    private static final List<ArtifactRepositoryRecorder> RECORDERS = SpringFactoriesLoader
+            .loadFactories(ArtifactRepositoryRecorder.class, ArtifactRepositoryInstrumentation.class.getClassLoader());
+
+    private ArtifactRepositoryInstrumentation() {
+        // utility class
+    }
+
+    /**
+     * @param backend
+     *            name of the backend of the repository, e.g. s3
+     * @param repositoryType
+     *            implementation of the repository of the backend, other
+     *            {@link ArtifactRepository} beans are not instrumented
+     * @param meterRegistry
+     *            the registry of the metrics, the global registry is used if
+     *            none is available
+     * @return {@link ArtifactRepositoryDecoratingPostProcessor} which
+     *         instruments the {@link ArtifactRepository} of the backend with
+     *         metrics and the {@link ArtifactRepositoryRecorder}s on the
+     *         classpath, e.g. Java Flight Recorder events
+     */
+    public static ArtifactRepositoryDecoratingPostProcessor postProcessor(final String backend,
+            final Class<? extends ArtifactRepository> repositoryType,
+            final ObjectProvider<MeterRegistry> meterRegistry) {
+        return new ArtifactRepositoryDecoratingPostProcessor(repositoryType, repository -> {
+            // the recorders are innermost, so they measure the backend only
+            ArtifactRepository recorded = repository;
+            for (final ArtifactRepositoryRecorder recorder : RECORDERS) {
+                recorded = recorder.record(recorded, backend);
+            }
+            return new MeteredArtifactRepository(recorded, backend,
+                    meterRegistry.getIfAvailable(() -> Metrics.globalRegistry));
+        }, ArtifactRepositoryDecoratingPostProcessor.INSTRUMENTATION_ORDER);
+    }
+}
@@ -0,0 +1,30 @@
+/**
+ * Copyright (c) 2020 Bosch.IO GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.artifact.repository;
+
+/**
+ * Records the operations of the repository of a backend in addition to the
+ * metrics, e.g. as Java Flight Recorder events. The recorders are optional
+ * modules which are registered in {@code META-INF/spring.factories} and
+ * applied by the {@link ArtifactRepositoryInstrumentation} inside the
+ * metrics, so they measure the backend only.
+ */
+@FunctionalInterface
+public interface ArtifactRepositoryRecorder {
+
+    /**
+     * @param repository
+     *            the repository of the backend
+     * @param backend
+     *            name of the backend of the repository, e.g. s3
+     * @return the recorded repository, or the repository itself if the
+     *         recording is not available in this runtime
+     */
+    ArtifactRepository record(ArtifactRepository repository, String backend);
+}
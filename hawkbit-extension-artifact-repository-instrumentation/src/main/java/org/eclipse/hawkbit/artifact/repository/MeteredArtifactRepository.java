@@ -0,0 +1,242 @@
+/**
+ * Copyright (c) 2020 Bosch.IO GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.artifact.repository;
+
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.eclipse.hawkbit.artifact.repository.model.AbstractDbArtifact;
+import org.eclipse.hawkbit.artifact.repository.model.DbArtifactHash;
+import org.springframework.util.Assert;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * {@link ArtifactRepository} which reports Micrometer metrics of the
+ * operations and transfers of another repository:
+ * <ul>
+ * <li>{@code hawkbit.artifact.repository.operations}: timer of every
+ * {@link ArtifactRepository} operation by operation and outcome</li>
+ * <li>{@code hawkbit.artifact.repository.transferred}: bytes uploaded and
+ * downloaded by direction</li>
+ * <li>{@code hawkbit.artifact.repository.throughput}: distribution of the
+ * throughput of uploads and downloads in bytes per second by direction</li>
+ * <li>{@code hawkbit.artifact.repository.streams.active}: number of uploads
+ * and downloads in flight by direction</li>
+ * <li>{@code hawkbit.artifact.repository.download.first.byte}: time from
+ * opening the content stream of an artifact to its first byte</li>
+ * <li>{@code hawkbit.artifact.repository.download}: timer of the content
+ * streams by outcome, i.e. complete or aborted</li>
+ * </ul>
+ * All metrics are tagged by the backend of the repository.
+ */
+public class MeteredArtifactRepository implements ArtifactRepository {
+
+    static final String OPERATIONS = "hawkbit.artifact.repository.operations";
+    static final String TRANSFERRED = "hawkbit.artifact.repository.transferred";
+    static final String THROUGHPUT = "hawkbit.artifact.repository.throughput";
+    static final String STREAMS_ACTIVE = "hawkbit.artifact.repository.streams.active";
+    static final String FIRST_BYTE = "hawkbit.artifact.repository.download.first.byte";
+    static final String DOWNLOAD = "hawkbit.artifact.repository.download";
+
+    static final String TAG_BACKEND = "backend";
+    static final String TAG_OPERATION = "operation";
+    static final String TAG_OUTCOME = "outcome";
+    static final String TAG_DIRECTION = "direction";
+
+    private static final String UPLOAD = "upload";
+    private static final String DOWNLOAD_DIRECTION = "download";
+    private static final String SUCCESS = "success";
+    private static final String NOT_FOUND = "not_found";
+    private static final String ERROR = "error";
+    private static final String COMPLETE = "complete";
+    private static final String ABORTED = "aborted";
+
+    private final ArtifactRepository delegate;
+    private final String backend;
+    private final MeterRegistry meterRegistry;
+
+    private final AtomicInteger activeUploads = new AtomicInteger();
+    private final AtomicInteger activeDownloads = new AtomicInteger();
+
+    private final Counter uploadedBytes;
+    private final Counter downloadedBytes;
+    private final DistributionSummary uploadThroughput;
+    private final DistributionSummary downloadThroughput;
+    private final Timer firstByte;
+    private final Timer completeDownloads;
+    private final Timer abortedDownloads;
+
+    private final OperationTimers storeTimers;
+    private final OperationTimers deleteBySha1Timers;
+    private final OperationTimers getArtifactBySha1Timers;
+    private final OperationTimers existsByTenantAndSha1Timers;
+    private final OperationTimers deleteByTenantTimers;
+
+    /**
+     * @param delegate
+     *            the measured repository
+     * @param backend
+     *            name of the backend of the repository, e.g. s3
+     * @param meterRegistry
+     *            the registry of the metrics
+     */
+    public MeteredArtifactRepository(final ArtifactRepository delegate, final String backend,
+            final MeterRegistry meterRegistry) {
+        Assert.notNull(delegate, "Delegate cannot be null");
+        Assert.notNull(backend, "Backend cannot be null");
+        Assert.notNull(meterRegistry, "Meter registry cannot be null");
+        this.delegate = delegate;
+        this.backend = backend;
+        this.meterRegistry = meterRegistry;
+
+        Gauge.builder(STREAMS_ACTIVE, activeUploads, AtomicInteger::get).description("Uploads in flight")
+                .tags(TAG_BACKEND, backend, TAG_DIRECTION, UPLOAD).register(meterRegistry);
+        Gauge.builder(STREAMS_ACTIVE, activeDownloads, AtomicInteger::get).description("Downloads in flight")
+                .tags(TAG_BACKEND, backend, TAG_DIRECTION, DOWNLOAD_DIRECTION).register(meterRegistry);
+        this.uploadedBytes = transferred(UPLOAD);
+        this.downloadedBytes = transferred(DOWNLOAD_DIRECTION);
+        this.uploadThroughput = throughput(UPLOAD);
+        this.downloadThroughput = throughput(DOWNLOAD_DIRECTION);
+        this.firstByte = Timer.builder(FIRST_BYTE)
+                .description("Time from opening the content stream of an artifact to its first byte")
+                .tags(TAG_BACKEND, backend).publishPercentileHistogram().register(meterRegistry);
+        this.completeDownloads = download(COMPLETE);
+        this.abortedDownloads = download(ABORTED);
+        // registered once, the operations are on the hot path
+        this.storeTimers = new OperationTimers("store");
+        this.deleteBySha1Timers = new OperationTimers("deleteBySha1");
+        this.getArtifactBySha1Timers = new OperationTimers("getArtifactBySha1");
+        this.existsByTenantAndSha1Timers = new OperationTimers("existsByTenantAndSha1");
+        this.deleteByTenantTimers = new OperationTimers("deleteByTenant");
+    }
+
+    private Counter transferred(final String direction) {
+        return Counter.builder(TRANSFERRED).description("Bytes transferred to and from the artifact repository")
+                .baseUnit("bytes").tags(TAG_BACKEND, backend, TAG_DIRECTION, direction).register(meterRegistry);
+    }
+
+    private DistributionSummary throughput(final String direction) {
+        return DistributionSummary.builder(THROUGHPUT)
+                .description("Throughput of the transfers to and from the artifact repository")
+                .baseUnit("bytes.per.second").tags(TAG_BACKEND, backend, TAG_DIRECTION, direction)
+                .publishPercentileHistogram().register(meterRegistry);
+    }
+
+    private Timer operation(final String operation, final String outcome) {
+        return Timer.builder(OPERATIONS).description("Operations of the artifact repository")
+                .tags(TAG_BACKEND, backend, TAG_OPERATION, operation, TAG_OUTCOME, outcome).register(meterRegistry);
+    }
+
+    private Timer download(final String outcome) {
+        return Timer.builder(DOWNLOAD).description("Duration of the content streams of artifacts")
+                .tags(TAG_BACKEND, backend, TAG_OUTCOME, outcome).register(meterRegistry);
+    }
+
+    @Override
+    public AbstractDbArtifact store(final String tenant, final InputStream content, final String filename,
+            final String contentType, final DbArtifactHash hash) {
+        final ObservedInputStream observed = new ObservedInputStream(content);
+        final long start = System.nanoTime();
+        activeUploads.incrementAndGet();
+        try {
+            final AbstractDbArtifact artifact = record(storeTimers,
+                    () -> delegate.store(tenant, observed, filename, contentType, hash));
+            uploadedBytes.increment(observed.getBytes());
+            recordThroughput(uploadThroughput, observed.getBytes(), System.nanoTime() - start);
+            return meterDownloads(artifact);
+        } finally {
+            activeUploads.decrementAndGet();
+        }
+    }
+
+    @Override
+    public void deleteBySha1(final String tenant, final String sha1Hash) {
+        record(deleteBySha1Timers, () -> {
+            delegate.deleteBySha1(tenant, sha1Hash);
+            return Boolean.TRUE;
+        });
+    }
+
+    @Override
+    public AbstractDbArtifact getArtifactBySha1(final String tenant, final String sha1Hash) {
+        return meterDownloads(record(getArtifactBySha1Timers, () -> delegate.getArtifactBySha1(tenant, sha1Hash)));
+    }
+
+    @Override
+    public boolean existsByTenantAndSha1(final String tenant, final String sha1Hash) {
+        return record(existsByTenantAndSha1Timers, () -> delegate.existsByTenantAndSha1(tenant, sha1Hash));
+    }
+
+    @Override
+    public void deleteByTenant(final String tenant) {
+        record(deleteByTenantTimers, () -> {
+            delegate.deleteByTenant(tenant);
+            return Boolean.TRUE;
+        });
+    }
+
+    private <T> T record(final OperationTimers timers, final Supplier<T> call) {
+        final Timer.Sample sample = Timer.start(meterRegistry);
+        Timer outcome = timers.error;
+        try {
+            final T result = call.get();
+            outcome = result == null ? timers.notFound : timers.success;
+            return result;
+        } finally {
+            sample.stop(outcome);
+        }
+    }
+
+    private AbstractDbArtifact meterDownloads(final AbstractDbArtifact artifact) {
+        return ObservedArtifact.decorate(artifact, (stream, openNanos) -> {
+            activeDownloads.incrementAndGet();
+            return new ObservedInputStream(stream, new ObservedInputStream.Observer() {
+                @Override
+                public void onFirstByte() {
+                    firstByte.record(System.nanoTime() - openNanos, TimeUnit.NANOSECONDS);
+                }
+
+                @Override
+                public void onClose(final long bytes, final boolean complete) {
+                    activeDownloads.decrementAndGet();
+                    final long duration = System.nanoTime() - openNanos;
+                    downloadedBytes.increment(bytes);
+                    recordThroughput(downloadThroughput, bytes, duration);
+                    (complete ? completeDownloads : abortedDownloads).record(duration, TimeUnit.NANOSECONDS);
+                }
+            });
+        });
+    }
+
+    private static void recordThroughput(final DistributionSummary throughput, final long bytes,
+            final long durationNanos) {
+        if (bytes > 0 && durationNanos > 0) {
+            throughput.record(bytes * (double) TimeUnit.SECONDS.toNanos(1) / durationNanos);
+        }
+    }
+
+    private final class OperationTimers {
+        private final Timer success;
+        private final Timer notFound;
+        private final Timer error;
+
+        private OperationTimers(final String name) {
+            this.success = operation(name, SUCCESS);
+            this.notFound = operation(name, NOT_FOUND);
+            this.error = operation(name, ERROR);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/**
+ * Copyright (c) 2020 Bosch.IO GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.artifact.repository;
+
+import java.io.InputStream;
+
+import org.eclipse.hawkbit.artifact.repository.model.AbstractDbArtifact;
+
+/**
+ * An {@link AbstractDbArtifact} implementation which decorates the content
+ * streams of the artifact of a backend, e.g. to measure the downloads. The
+ * backend specific methods of the artifact, e.g. of {@code S3Artifact}, are
+ * available by {@link #getArtifact()}.
+ */
+public class ObservedArtifact extends AbstractDbArtifact {
+
+    private final AbstractDbArtifact artifact;
+    private final StreamDecorator decorator;
+
+    /**
+     * @param artifact
+     *            the artifact of the backend
+     * @param decorator
+     *            decorates the opened content streams
+     */
+    public ObservedArtifact(final AbstractDbArtifact artifact, final StreamDecorator decorator) {
+        super(artifact.getArtifactId(), artifact.getHashes(), artifact.getSize(), artifact.getContentType());
+        this.artifact = artifact;
+        this.decorator = decorator;
+    }
+
+    /**
+     * @param artifact
+     *            the artifact to decorate, may be <code>null</code>
+     * @param decorator
+     *            decorates the opened content streams
+     * @return the decorated artifact or <code>null</code> if the artifact is
+     *         <code>null</code>
+     */
+    public static AbstractDbArtifact decorate(final AbstractDbArtifact artifact, final StreamDecorator decorator) {
+        return artifact == null ? null : new ObservedArtifact(artifact, decorator);
+    }
+
+    @Override
+    public InputStream getFileInputStream() {
+        final long openNanos = System.nanoTime();
+        return decorate(artifact.getFileInputStream(), openNanos);
+    }
+
+    /**
+     * Opens a stream on a range of the artifact by the ranged read of the
+     * backend, e.g. to resume a download.
+     *
+     * @param offset
+     *            position of the first byte to read
+     * @param length
+     *            number of bytes to read
+     * @return the {@link InputStream} of the requested range
+     */
+    public InputStream getFileInputStream(final long offset, final long length) {
+        final long openNanos = System.nanoTime();
+        return decorate(ArtifactRanges.open(artifact, offset, length), openNanos);
+    }
+
+    /**
+     * @return the artifact of the backend
+     */
+    public AbstractDbArtifact getArtifact() {
+        return artifact;
+    }
+
+    private InputStream decorate(final InputStream stream, final long openNanos) {
+        return stream == null ? null : decorator.decorate(stream, openNanos);
+    }
+
+    @Override
+    public String toString() {
+        return "ObservedArtifact [artifact=" + artifact + "]";
+    }
+
+    /**
+     * Decorates an opened content stream.
+     */
+    @FunctionalInterface
+    public interface StreamDecorator {
+
+        /**
+         * @param stream
+         *            the opened stream
+         * @param openNanos
+         *            {@link System#nanoTime()} before the stream has been
+         *            requested
+         * @return the decorated stream
+         */
+        InputStream decorate(InputStream stream, long openNanos);
+    }
+}
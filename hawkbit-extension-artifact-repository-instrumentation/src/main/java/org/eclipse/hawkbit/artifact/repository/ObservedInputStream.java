@@ -0,0 +1,140 @@
+/**
+ * Copyright (c) 2020 Bosch.IO GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.artifact.repository;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * {@link InputStream} which counts the bytes read from another stream and
+ * reports the first byte and the end of the stream to an {@link Observer}.
+ */
+public class ObservedInputStream extends FilterInputStream {
+
+    private final Observer observer;
+
+    private long bytes;
+    private boolean firstByte;
+    private boolean complete;
+    private boolean failed;
+    private boolean closed;
+
+    /**
+     * @param in
+     *            the stream whose bytes are counted
+     */
+    public ObservedInputStream(final InputStream in) {
+        this(in, new Observer() {
+            @Override
+            public void onFirstByte() {
+                // only counted
+            }
+
+            @Override
+            public void onClose(final long bytes, final boolean complete) {
+                // only counted
+            }
+        });
+    }
+
+    /**
+     * @param in
+     *            the observed stream
+     * @param observer
+     *            is notified of the first byte and the close of the stream
+     */
+    public ObservedInputStream(final InputStream in, final Observer observer) {
+        super(in);
+        this.observer = observer;
+    }
+
+    @Override
+    public int read() throws IOException {
+        final int read;
+        try {
+            read = super.read();
+        } catch (final IOException | RuntimeException e) {
+            failed = true;
+            throw e;
+        }
+        if (read < 0) {
+            complete = true;
+        } else {
+            count(1);
+        }
+        return read;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+        final int read;
+        try {
+            read = super.read(b, off, len);
+        } catch (final IOException | RuntimeException e) {
+            failed = true;
+            throw e;
+        }
+        if (read < 0) {
+            complete = true;
+        } else if (read > 0) {
+            count(read);
+        }
+        return read;
+    }
+
+    private void count(final int read) {
+        if (!firstByte) {
+            firstByte = true;
+            observer.onFirstByte();
+        }
+        bytes += read;
+    }
+
+    /**
+     * @return the number of bytes read so far
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            super.close();
+        } finally {
+            if (!closed) {
+                closed = true;
+                observer.onClose(bytes, complete && !failed);
+            }
+        }
+    }
+
+    /**
+     * Observer of an {@link ObservedInputStream}.
+     */
+    public interface Observer {
+
+        /**
+         * Called when the first byte has been read.
+         */
+        void onFirstByte();
+
+        /**
+         * Called when the stream is closed.
+         *
+         * @param bytes
+         *            the number of bytes read
+         * @param complete
+         *            <code>true</code> if the stream has been read to its end,
+         *            <code>false</code> if it has been aborted or has failed
+         */
+        void onClose(long bytes, boolean complete);
+    }
+}
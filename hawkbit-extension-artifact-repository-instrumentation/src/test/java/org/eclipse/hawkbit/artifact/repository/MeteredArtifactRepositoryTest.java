@@ -0,0 +1,154 @@
+/**
+ * Copyright (c) 2020 Bosch.IO GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.artifact.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.eclipse.hawkbit.artifact.repository.model.AbstractDbArtifact;
+import org.eclipse.hawkbit.artifact.repository.model.DbArtifactHash;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.util.StreamUtils;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.qameta.allure.Description;
+import io.qameta.allure.Feature;
+import io.qameta.allure.Story;
+
+/**
+ * Test class for the {@link MeteredArtifactRepository}.
+ */
+@RunWith(MockitoJUnitRunner.class)
+@Feature("Unit Tests - Artifact Repository Instrumentation")
+@Story("Metrics")
+public class MeteredArtifactRepositoryTest {
+
+    private static final String TENANT = "test_tenant";
+    private static final String SHA1 = "a94a8fe5ccb19ba61c4c0873d391e987982fbbd3";
+    private static final String BACKEND = "test";
+    private static final byte[] CONTENT = "test".getBytes(StandardCharsets.UTF_8);
+
+    @Mock
+    private ArtifactRepository delegateMock;
+
+    private SimpleMeterRegistry meterRegistry;
+    private MeteredArtifactRepository repositoryUnderTest;
+
+    @Before
+    public void before() {
+        meterRegistry = new SimpleMeterRegistry();
+        repositoryUnderTest = new MeteredArtifactRepository(delegateMock, BACKEND, meterRegistry);
+    }
+
+    @Test
+    @Description("Verifies that the operations are timed by their outcome.")
+    public void operationsAreTimedByOutcome() {
+        when(delegateMock.getArtifactBySha1(TENANT, SHA1)).thenReturn(new TestArtifact(), (AbstractDbArtifact) null);
+        when(delegateMock.existsByTenantAndSha1(anyString(), anyString())).thenThrow(new ArtifactStoreException("test"));
+
+        repositoryUnderTest.getArtifactBySha1(TENANT, SHA1);
+        repositoryUnderTest.getArtifactBySha1(TENANT, SHA1);
+        assertThatThrownBy(() -> repositoryUnderTest.existsByTenantAndSha1(TENANT, SHA1))
+                .isInstanceOf(ArtifactStoreException.class);
+        repositoryUnderTest.deleteBySha1(TENANT, SHA1);
+
+        assertThat(operations("getArtifactBySha1", "success")).isEqualTo(1);
+        assertThat(operations("getArtifactBySha1", "not_found")).isEqualTo(1);
+        assertThat(operations("existsByTenantAndSha1", "error")).isEqualTo(1);
+        assertThat(operations("deleteBySha1", "success")).isEqualTo(1);
+    }
+
+    @Test
+    @Description("Verifies that the uploaded bytes are counted.")
+    public void uploadIsMetered() throws IOException {
+        when(delegateMock.store(eq(TENANT), any(), eq("file"), eq("application/octet-stream"), any()))
+                .thenAnswer(invocation -> {
+                    StreamUtils.copyToByteArray(invocation.getArgument(1));
+                    return new TestArtifact();
+                });
+
+        repositoryUnderTest.store(TENANT, new ByteArrayInputStream(CONTENT), "file", "application/octet-stream",
+                null);
+
+        assertThat(transferred("upload")).isEqualTo(CONTENT.length);
+        assertThat(operations("store", "success")).isEqualTo(1);
+        assertThat(meterRegistry.get(MeteredArtifactRepository.STREAMS_ACTIVE)
+                .tag(MeteredArtifactRepository.TAG_DIRECTION, "upload").gauge().value()).isEqualTo(0);
+    }
+
+    @Test
+    @Description("Verifies that complete, aborted and ranged downloads are metered when their stream is closed.")
+    public void downloadIsMetered() throws IOException {
+        when(delegateMock.getArtifactBySha1(TENANT, SHA1)).thenReturn(new TestArtifact());
+        final AbstractDbArtifact artifact = repositoryUnderTest.getArtifactBySha1(TENANT, SHA1);
+        assertThat(artifact).isInstanceOf(ObservedArtifact.class);
+        assertThat(((ObservedArtifact) artifact).getArtifact()).isInstanceOf(TestArtifact.class);
+        assertThat(artifact.getHashes().getSha1()).isEqualTo(SHA1);
+        assertThat(artifact.getSize()).isEqualTo(CONTENT.length);
+
+        try (InputStream stream = artifact.getFileInputStream()) {
+            assertThat(downloads("complete")).isEqualTo(0);
+            assertThat(StreamUtils.copyToByteArray(stream)).isEqualTo(CONTENT);
+        }
+        try (InputStream stream = artifact.getFileInputStream()) {
+            assertThat(stream.read()).isEqualTo(CONTENT[0]);
+        }
+
+        try (InputStream stream = ((ObservedArtifact) artifact).getFileInputStream(1, 2)) {
+            assertThat(StreamUtils.copyToByteArray(stream)).isEqualTo(new byte[] { CONTENT[1], CONTENT[2] });
+        }
+
+        assertThat(downloads("complete")).isEqualTo(2);
+        assertThat(downloads("aborted")).isEqualTo(1);
+        assertThat(transferred("download")).isEqualTo(CONTENT.length + 1 + 2);
+        assertThat(meterRegistry.get(MeteredArtifactRepository.FIRST_BYTE).timer().count()).isEqualTo(3);
+    }
+
+    private long operations(final String operation, final String outcome) {
+        return meterRegistry.get(MeteredArtifactRepository.OPERATIONS)
+                .tag(MeteredArtifactRepository.TAG_BACKEND, BACKEND)
+                .tag(MeteredArtifactRepository.TAG_OPERATION, operation)
+                .tag(MeteredArtifactRepository.TAG_OUTCOME, outcome).timer().count();
+    }
+
+    private double transferred(final String direction) {
+        return meterRegistry.get(MeteredArtifactRepository.TRANSFERRED)
+                .tag(MeteredArtifactRepository.TAG_DIRECTION, direction).counter().count();
+    }
+
+    private long downloads(final String outcome) {
+        return meterRegistry.get(MeteredArtifactRepository.DOWNLOAD)
+                .tag(MeteredArtifactRepository.TAG_OUTCOME, outcome).timer().count();
+    }
+
+    static class TestArtifact extends AbstractDbArtifact {
+
+        TestArtifact() {
+            super(SHA1, new DbArtifactHash(SHA1, null, null), (long) CONTENT.length, "application/octet-stream");
+        }
+
+        @Override
+        public InputStream getFileInputStream() {
+            return new ByteArrayInputStream(CONTENT);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+/**
+ * Copyright (c) 2020 Bosch.IO GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.artifact.repository;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+
+/**
+ * Blocking {@link InputStream} on a {@link Publisher} of {@link DataBuffer}s
+ * for callers which need the classic stream API. At most {@link #PREFETCH}
+ * buffers are requested ahead of the reader, so the publisher is throttled
+ * to the speed of the reader. Closing the stream cancels the subscription.
+ */
+class DataBufferInputStream extends InputStream {
+
+    /**
+     * Number of buffers requested ahead of the reader.
+     */
+    static final int PREFETCH = 2;
+
+    private static final Object COMPLETE = new Object();
+
+    private final BlockingQueue<Object> signals = new LinkedBlockingQueue<>();
+    private volatile Subscription subscription;
+
+    private DataBuffer current;
+    private boolean done;
+    private boolean closed;
+
+    DataBufferInputStream(final Publisher<DataBuffer> content) {
+        content.subscribe(new Subscriber<DataBuffer>() {
+            @Override
+            public void onSubscribe(final Subscription s) {
+                subscription = s;
+                s.request(PREFETCH);
+            }
+
+            @Override
+            public void onNext(final DataBuffer buffer) {
+                signals.add(buffer);
+            }
+
+            @Override
+            public void onError(final Throwable error) {
+                signals.add(error);
+            }
+
+            @Override
+            public void onComplete() {
+                signals.add(COMPLETE);
+            }
+        });
+    }
+
+    private boolean nextBuffer() throws IOException {
+        while (current == null || current.readableByteCount() == 0) {
+            if (done) {
+                return false;
+            }
+            release();
+
+            final Object signal;
+            try {
+                signal = signals.take();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for content");
+            }
+
+            if (signal == COMPLETE) {
+                done = true;
+            } else if (signal instanceof Throwable) {
+                done = true;
+                throw new IOException("Failed to read content", (Throwable) signal);
+            } else {
+                current = (DataBuffer) signal;
+                subscription.request(1);
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int read() throws IOException {
+        ensureOpen();
+        if (!nextBuffer()) {
+            return -1;
+        }
+        return current.read() & 0xFF;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+        ensureOpen();
+        if (len == 0) {
+            return 0;
+        }
+        if (!nextBuffer()) {
+            return -1;
+        }
+        final int count = Math.min(len, current.readableByteCount());
+        current.read(b, off, count);
+        return count;
+    }
+
+    @Override
+    public int available() throws IOException {
+        ensureOpen();
+        return current == null ? 0 : current.readableByteCount();
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        release();
+        if (!done && subscription != null) {
+            subscription.cancel();
+        }
+        Object signal;
+        while ((signal = signals.poll()) != null) {
+            if (signal instanceof DataBuffer) {
+                DataBufferUtils.release((DataBuffer) signal);
+            }
+        }
+    }
+
+    private void release() {
+        if (current != null) {
+            DataBufferUtils.release(current);
+            current = null;
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+    }
+}
@@ -8,12 +8,15 @@
  */
 package org.eclipse.hawkbit.artifact.repository;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.util.function.Supplier;
 
 import org.eclipse.hawkbit.artifact.repository.model.AbstractDbArtifact;
 import org.eclipse.hawkbit.artifact.repository.model.DbArtifactHash;
+import org.springframework.util.Assert;
 
+import com.google.common.io.ByteStreams;
 import com.mongodb.gridfs.GridFSDBFile;
 
 /**
@@ -49,4 +52,37 @@ public class GridFsArtifact extends AbstractDbArtifact {
         return inputStreamSupplier.get();
     }
 
+    /**
+     * Opens a stream on a range of the artifact, e.g. to resume a download. The
+     * GridFS download stream skips whole chunks without fetching them so only
+     * the chunks of the requested range are read.
+     *
+     * @param offset
+     *            position of the first byte to read
+     * @param length
+     *            number of bytes to read
+     * @return the {@link InputStream} of the requested range
+     */
+    public InputStream getFileInputStream(final long offset, final long length) {
+        Assert.isTrue(offset >= 0, "Offset cannot be negative");
+        Assert.isTrue(length >= 0, "Length cannot be negative");
+        final InputStream inputStream = getFileInputStream();
+        try {
+            ByteStreams.skipFully(inputStream, offset);
+        } catch (final IOException e) {
+            closeQuietly(inputStream);
+            throw new ArtifactStoreException("Failed to skip to offset " + offset + " of artifact " + getArtifactId(),
+                    e);
+        }
+        return ByteStreams.limit(inputStream, length);
+    }
+
+    private static void closeQuietly(final InputStream inputStream) {
+        try {
+            inputStream.close();
+        } catch (final IOException e) {
+            // nothing to do, the stream is not used anymore
+        }
+    }
+
 }
@@ -0,0 +1,211 @@
+/**
+ * Copyright (c) 2020 Bosch.IO GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.artifact.repository;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.types.Binary;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+
+/**
+ * {@link InputStream} on a GridFS file which reads the next
+ * {@code readAhead} chunks asynchronously while the current chunk is
+ * consumed, so the reader does not wait for a round trip to MongoDB per
+ * chunk. The chunks are returned in order. The read-ahead starts with the
+ * first read, so {@link #skip(long)} before it jumps over whole chunks
+ * without reading them. Reads which are not needed anymore are cancelled
+ * without interrupting them, an interrupt would close the connection of the
+ * MongoDB driver.
+ */
+class GridFsReadAheadInputStream extends InputStream {
+
+    private static final String CHUNK_NUMBER = "n";
+    private static final String CHUNK_DATA = "data";
+
+    private final MongoCollection<Document> chunks;
+    private final BsonValue fileId;
+    private final long length;
+    private final int chunkSize;
+    private final int chunkCount;
+    private final int readAhead;
+    private final ExecutorService executor;
+
+    private final Deque<Future<byte[]>> pending = new ArrayDeque<>();
+    private int nextChunk;
+
+    private byte[] current;
+    private int position;
+    private int skipInNextChunk;
+    private boolean closed;
+
+    /**
+     * @param chunks
+     *            the chunks collection of the bucket
+     * @param fileId
+     *            id of the file
+     * @param length
+     *            length of the file
+     * @param chunkSize
+     *            chunk size of the file
+     * @param readAhead
+     *            number of chunks which are read ahead
+     * @param executor
+     *            executes the chunk reads
+     */
+    GridFsReadAheadInputStream(final MongoCollection<Document> chunks, final BsonValue fileId, final long length,
+            final int chunkSize, final int readAhead, final ExecutorService executor) {
+        this.chunks = chunks;
+        this.fileId = fileId;
+        this.length = length;
+        this.chunkSize = chunkSize;
+        this.chunkCount = (int) ((length + chunkSize - 1) / chunkSize);
+        this.readAhead = Math.max(1, readAhead);
+        this.executor = executor;
+    }
+
+    private void scheduleChunks() {
+        while (pending.size() < readAhead && nextChunk < chunkCount) {
+            final int chunk = nextChunk++;
+            pending.add(executor.submit(() -> readChunk(chunk)));
+        }
+    }
+
+    private byte[] readChunk(final int chunk) throws IOException {
+        final Document document = chunks
+                .find(Filters.and(Filters.eq(MongoDBArtifactStore.FILES_ID, fileId), Filters.eq(CHUNK_NUMBER, chunk)))
+                .first();
+        if (document == null) {
+            throw new IOException("Chunk " + chunk + " of file " + fileId + " is missing");
+        }
+
+        final Object data = document.get(CHUNK_DATA);
+        final byte[] bytes = data instanceof Binary ? ((Binary) data).getData() : (byte[]) data;
+        final long expected = Math.min(chunkSize, length - (long) chunk * chunkSize);
+        if (bytes == null || bytes.length != expected) {
+            throw new IOException("Chunk " + chunk + " of file " + fileId + " has an unexpected size");
+        }
+        return bytes;
+    }
+
+    private boolean nextChunk() throws IOException {
+        while (current == null || position == current.length) {
+            scheduleChunks();
+            final Future<byte[]> chunk = pending.poll();
+            if (chunk == null) {
+                return false;
+            }
+            try {
+                current = chunk.get();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while reading file " + fileId);
+            } catch (final ExecutionException e) {
+                throw new IOException("Failed to read chunk of file " + fileId, e.getCause());
+            }
+            position = skipInNextChunk;
+            skipInNextChunk = 0;
+            scheduleChunks();
+        }
+        return true;
+    }
+
+    @Override
+    public int read() throws IOException {
+        ensureOpen();
+        if (!nextChunk()) {
+            return -1;
+        }
+        return current[position++] & 0xFF;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+        ensureOpen();
+        if (len == 0) {
+            return 0;
+        }
+        if (!nextChunk()) {
+            return -1;
+        }
+        final int count = Math.min(len, current.length - position);
+        System.arraycopy(current, position, b, off, count);
+        position += count;
+        return count;
+    }
+
+    @Override
+    public long skip(final long n) throws IOException {
+        ensureOpen();
+        if (n <= 0) {
+            return 0;
+        }
+        if (current != null && n <= current.length - position) {
+            position += (int) n;
+            return n;
+        }
+
+        final long streamPosition = streamPosition();
+        final long target = Math.min(length, streamPosition + n);
+        cancelPending();
+        current = null;
+        position = 0;
+        nextChunk = (int) (target / chunkSize);
+        skipInNextChunk = (int) (target % chunkSize);
+        // scheduled from the target by the next read
+        return target - streamPosition;
+    }
+
+    /**
+     * @return position of the next byte to read within the file
+     */
+    private long streamPosition() {
+        // the chunks of the pending reads and the current chunk precede
+        // nextChunk
+        final long currentChunkStart = (long) (nextChunk - pending.size() - 1) * chunkSize;
+        if (current == null) {
+            return (long) (nextChunk - pending.size()) * chunkSize + skipInNextChunk;
+        }
+        return currentChunkStart + position;
+    }
+
+    @Override
+    public int available() throws IOException {
+        ensureOpen();
+        return current == null ? 0 : current.length - position;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        current = null;
+        cancelPending();
+    }
+
+    private void cancelPending() {
+        pending.forEach(chunk -> chunk.cancel(false));
+        pending.clear();
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+    }
+}
@@ -8,38 +8,78 @@
  */
 package org.eclipse.hawkbit.artifact.repository;
 
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 import org.bson.Document;
+import org.bson.codecs.configuration.CodecRegistries;
+import org.bson.conversions.Bson;
+import org.bson.types.Binary;
 import org.bson.types.ObjectId;
 import org.eclipse.hawkbit.artifact.repository.model.AbstractDbArtifact;
 import org.eclipse.hawkbit.artifact.repository.model.DbArtifactHash;
 import org.eclipse.hawkbit.tenancy.TenantAware;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.data.mongodb.gridfs.GridFsOperations;
-import org.springframework.data.mongodb.gridfs.GridFsResource;
 import org.springframework.validation.annotation.Validated;
 
+import com.google.common.collect.Lists;
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.mongodb.MongoClient;
 import com.mongodb.MongoClientException;
 import com.mongodb.MongoException;
 import com.mongodb.MongoGridFSException;
+import com.mongodb.ReadPreference;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.gridfs.GridFSBucket;
+import com.mongodb.client.gridfs.GridFSBuckets;
 import com.mongodb.client.gridfs.model.GridFSFile;
+import com.mongodb.client.gridfs.model.GridFSUploadOptions;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.DeleteManyModel;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.result.UpdateResult;
 
 /**
  * The file management based on MongoDb GridFS.
  *
  */
 @Validated
-public class MongoDBArtifactStore extends AbstractArtifactRepository {
+public class MongoDBArtifactStore extends AbstractArtifactRepository implements DisposableBean {
+    private static final Logger LOG = LoggerFactory.getLogger(MongoDBArtifactStore.class);
+
     /**
      * The mongoDB field which holds the filename of the file to download.
      * hawkBit update-server uses the SHA hash as a filename and lookup in the
      * mongoDB.
      */
-    private static final String FILENAME = "filename";
+    static final String FILENAME = "filename";
 
     /**
      * The mongoDB field which holds the tenant of the file to download.
@@ -49,7 +89,7 @@ public class MongoDBArtifactStore extends AbstractArtifactRepository {
     /**
      * Query by {@link TenantAware} field.
      */
-    private static final String TENANT_QUERY = "metadata." + TENANT;
+    static final String TENANT_QUERY = "metadata." + TENANT;
 
     /**
      * The mongoDB field which holds the SHA1 hash, stored in the meta data
@@ -57,14 +97,214 @@ public class MongoDBArtifactStore extends AbstractArtifactRepository {
      */
     private static final String SHA1 = "sha1";
 
-    private static final String ID = "_id";
+    /**
+     * The mongoDB field which holds the MD5 hash, stored in the meta data
+     * object.
+     */
+    private static final String MD5 = "md5";
+
+    /**
+     * The mongoDB field which holds the SHA256 hash, stored in the meta data
+     * object.
+     */
+    private static final String SHA256 = "sha256";
+
+    static final String ID = "_id";
+
+    private static final String LENGTH = "length";
+
+    private static final String CHUNK_SIZE = "chunkSize";
 
     private static final String CONTENT_TYPE = "contentType";
 
+    private static final String METADATA = "metadata";
+
+    static final String TEMP_FILE_PREFIX = "TMP_";
+
+    /**
+     * The collection which holds the file documents of the default GridFS
+     * bucket.
+     */
+    static final String FILES_COLLECTION = "fs.files";
+
+    /**
+     * The collection which holds the chunks of the default GridFS bucket.
+     */
+    static final String CHUNKS_COLLECTION = "fs.chunks";
+
+    /**
+     * The field of a chunk which references its file.
+     */
+    static final String FILES_ID = "files_id";
+
+    /**
+     * The mongoDB field which holds the content of inline artifacts, stored in
+     * the meta data object.
+     */
+    private static final String INLINE_CONTENT = "content";
+
+    /**
+     * The mongoDB field which marks an inline artifact, stored in the meta
+     * data object. The file documents are looked up without their inline
+     * content, so the marker tells that the content has to be loaded.
+     */
+    private static final String INLINE = "inline";
+
+    /**
+     * Projection of the lookups which leaves out the inline content of up to
+     * {@link #MAX_INLINE_THRESHOLD} bytes.
+     */
+    private static final Bson WITHOUT_INLINE_CONTENT = Projections.exclude(METADATA + "." + INLINE_CONTENT);
+
+    /**
+     * Upper bound of the inline threshold which keeps the file document well
+     * below the maximum BSON document size of 16 MB.
+     */
+    static final long MAX_INLINE_THRESHOLD = 8L * 1024 * 1024;
+
+    /**
+     * The default chunk size of GridFS.
+     */
+    static final int DEFAULT_CHUNK_SIZE = 255 * 1024;
+
+    /**
+     * Upper bound of the content which is buffered to select the chunk size,
+     * i.e. of the lower bound of a chunk size band. It is buffered for every
+     * upload in flight.
+     */
+    static final long MAX_CHUNK_SIZE_PEEK = 8L * 1024 * 1024;
+
+    /**
+     * Number of files whose chunks are deleted by a single delete of the bulk
+     * write which purges a tenant.
+     */
+    static final int PURGE_CHUNKS_PER_DELETE = 100;
+
+    /**
+     * Keys of the indexes the queries on {@link #FILES_COLLECTION} rely on.
+     * Lookups by filename (with or without tenant) use the compound index,
+     * the deletion of a tenant uses the tenant index and the
+     * {@link MongoDBTempFileSweeper} the GridFS index on filename and upload
+     * date.
+     */
+    static final List<Document> INDEX_KEYS = Arrays.asList(new Document(FILENAME, 1).append(TENANT_QUERY, 1),
+            new Document(TENANT_QUERY, 1), new Document(FILENAME, 1).append(MongoDBTempFileSweeper.UPLOAD_DATE, 1));
+
     private final GridFsOperations gridFs;
 
-    MongoDBArtifactStore(final GridFsOperations gridFs) {
+    private final MongoCollection<Document> files;
+
+    /**
+     * The {@link #FILES_COLLECTION} decoded as {@link GridFSFile}s, like the
+     * GridFS bucket does, for lookups with a projection.
+     */
+    private final MongoCollection<GridFSFile> fileDocuments;
+
+    private final MongoCollection<Document> chunks;
+
+    /**
+     * Bucket for the uploads without MD5 computation, the hashes are
+     * calculated while the content is streamed and kept in the metadata.
+     */
+    private final GridFSBucket gridFsBucket;
+
+    /**
+     * Read preference of the lookups and content reads of
+     * {@link #getArtifactBySha1(String, String)}. Everything else reads from
+     * the primary to be consistent with preceding writes.
+     */
+    private final ReadPreference downloadReadPreference;
+
+    /**
+     * Executes the chunk reads of all {@link GridFsReadAheadInputStream}s with
+     * at most readAheadThreads threads, <code>null</code> if read-ahead is
+     * disabled.
+     */
+    private final ExecutorService readAheadExecutor;
+
+    /**
+     * Content of the uploads below the inline threshold by their temporary
+     * filename. They are kept in memory until they are stored, so they are
+     * written by a single insert without temporary chunks.
+     */
+    private final Map<String, byte[]> inlineTempFiles = new ConcurrentHashMap<>();
+
+    private final MongoDBArtifactStoreProperties properties;
+
+    MongoDBArtifactStore(final GridFsOperations gridFs, final MongoDatabase database,
+            final MongoDBArtifactStoreProperties properties) {
         this.gridFs = gridFs;
+        this.files = database.getCollection(FILES_COLLECTION);
+        this.fileDocuments = database.getCollection(FILES_COLLECTION, GridFSFile.class).withCodecRegistry(
+                CodecRegistries.fromRegistries(database.getCodecRegistry(), MongoClient.getDefaultCodecRegistry()));
+        this.chunks = database.getCollection(CHUNKS_COLLECTION);
+        this.gridFsBucket = GridFSBuckets.create(database).withDisableMD5(true);
+        this.downloadReadPreference = toReadPreference(properties.getDownloadReadPreference(),
+                properties.getDownloadMaxStaleness().getSeconds());
+        this.readAheadExecutor = properties.getReadAheadChunks() > 0
+                ? Executors.newFixedThreadPool(properties.getReadAheadThreads(),
+                        new ThreadFactoryBuilder().setNameFormat("gridfs-read-ahead-%d").setDaemon(true).build())
+                : null;
+        this.properties = properties;
+        checkChunkSizes(properties.getChunkSizes());
+    }
+
+    /**
+     * Rejects chunk size bands which can never be selected because their
+     * lower bound is above {@link #MAX_CHUNK_SIZE_PEEK}.
+     */
+    private static void checkChunkSizes(final Map<Long, Integer> chunkSizes) {
+        for (final Long minSize : chunkSizes.keySet()) {
+            if (minSize > MAX_CHUNK_SIZE_PEEK) {
+                throw new IllegalArgumentException(
+                        "Chunk size band " + minSize + " is above the maximum of " + MAX_CHUNK_SIZE_PEEK + " bytes");
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (readAheadExecutor != null) {
+            readAheadExecutor.shutdownNow();
+        }
+    }
+
+    private static ReadPreference toReadPreference(final String name, final long maxStalenessSeconds) {
+        if (ReadPreference.primary().getName().equalsIgnoreCase(name)) {
+            // the primary does not accept a maximum staleness
+            return ReadPreference.primary();
+        }
+        return ReadPreference.valueOf(name, Collections.emptyList(), maxStalenessSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Creates the indexes of {@link #INDEX_KEYS} if they do not exist yet and
+     * checks afterwards that all of them are present. The indexes are built
+     * in the background, so a large files collection is not locked for the
+     * whole build on the first start. A failure is logged but
+     * does not prevent the start, e.g. if the database user is not allowed to
+     * create indexes and they are maintained manually.
+     */
+    void ensureIndexes() {
+        for (final Document keys : INDEX_KEYS) {
+            try {
+                files.createIndex(keys, new IndexOptions().background(true));
+            } catch (final MongoException e) {
+                LOG.warn("Failed to create index {} on collection {}: {}", keys.toJson(), FILES_COLLECTION,
+                        e.getMessage());
+            }
+        }
+
+        final List<List<String>> existing = new ArrayList<>();
+        for (final Document index : files.listIndexes()) {
+            existing.add(new ArrayList<>(index.get("key", Document.class).keySet()));
+        }
+        for (final Document keys : INDEX_KEYS) {
+            if (!existing.contains(new ArrayList<>(keys.keySet()))) {
+                LOG.error("Index {} is missing on collection {}, artifact queries will scan the collection",
+                        keys.toJson(), FILES_COLLECTION);
+            }
+        }
     }
 
     /**
@@ -80,13 +320,11 @@ public class MongoDBArtifactStore extends AbstractArtifactRepository {
 
         try {
 
-            GridFSFile found = gridFs.findOne(new Query()
-                    .addCriteria(Criteria.where(FILENAME).is(sha1Hash).and(TENANT_QUERY).is(sanitizeTenant(tenant))));
+            GridFSFile found = findForDownload(artifactFilter(tenant, sha1Hash));
 
             // fallback pre-multi-tenancy
-            if (found == null) {
-                found = gridFs.findOne(
-                        new Query().addCriteria(Criteria.where(FILENAME).is(sha1Hash).and(TENANT_QUERY).exists(false)));
+            if (found == null && properties.isLegacyFallback()) {
+                found = findForDownload(legacyArtifactFilter(sha1Hash));
             }
 
             return createGridFsArtifact(found);
@@ -95,11 +333,16 @@ public class MongoDBArtifactStore extends AbstractArtifactRepository {
         }
     }
 
+    private GridFSFile findForDownload(final Bson filter) {
+        return fileDocuments.withReadPreference(downloadReadPreference).find(filter)
+                .projection(WITHOUT_INLINE_CONTENT).first();
+    }
+
     @Override
     public void deleteBySha1(final String tenant, final String sha1Hash) {
         try {
-            deleteArtifact(gridFs.findOne(new Query()
-                    .addCriteria(Criteria.where(FILENAME).is(sha1Hash).and(TENANT_QUERY).is(sanitizeTenant(tenant)))));
+            deleteArtifact(fileDocuments.find(artifactFilter(tenant, sha1Hash)).projection(WITHOUT_INLINE_CONTENT)
+                    .first());
         } catch (final MongoException e) {
             throw new ArtifactStoreException(e.getMessage(), e);
         }
@@ -119,48 +362,175 @@ public class MongoDBArtifactStore extends AbstractArtifactRepository {
     protected AbstractDbArtifact store(final String tenant, final DbArtifactHash base16Hashes, final String contentType,
             final String tempFile) throws IOException {
 
-        final GridFSFile result = gridFs.findOne(new Query().addCriteria(
-                Criteria.where(FILENAME).is(base16Hashes.getSha1()).and(TENANT_QUERY).is(sanitizeTenant(tenant))));
+        final Bson filter = artifactFilter(tenant, base16Hashes.getSha1());
 
-        if (result == null) {
+        if (!exists(filter)) {
             try {
-                final GridFSFile temp = loadTempFile(tempFile);
-
                 final Document metadata = new Document();
                 metadata.put(SHA1, base16Hashes.getSha1());
+                metadata.put(MD5, base16Hashes.getMd5());
+                metadata.put(SHA256, base16Hashes.getSha256());
                 metadata.put(TENANT, tenant);
                 metadata.put(FILENAME, base16Hashes.getSha1());
                 metadata.put(CONTENT_TYPE, contentType);
 
-                final GridFsResource resource = gridFs.getResource(temp);
-                final ObjectId id = gridFs.store(resource.getInputStream(), base16Hashes.getSha1(), contentType, metadata);
-                final GridFSFile file = gridFs.findOne(new Query().addCriteria(Criteria.where(ID).is(id)));
+                final byte[] inlineContent = inlineTempFiles.get(tempFile);
+                if (inlineContent != null) {
+                    return insertInline(metadata, inlineContent, contentType, base16Hashes);
+                }
 
-                return createGridFsArtifact(file, contentType, base16Hashes);
+                final GridFSFile file = promoteTempFile(loadTempFile(tempFile), metadata);
+                return createGridFsArtifact(file, contentType, base16Hashes, ReadPreference.primary());
 
             } catch (final MongoClientException e) {
                 throw new ArtifactStoreException(e.getMessage(), e);
             }
         }
 
-        return createGridFsArtifact(result, contentType, base16Hashes);
+        return createGridFsArtifact(fileDocuments.find(filter).projection(WITHOUT_INLINE_CONTENT).first(),
+                contentType, base16Hashes, ReadPreference.primary());
+    }
+
+    /**
+     * @return <code>true</code> if a file matches the filter, only its id is
+     *         read and not e.g. the content of an inline artifact
+     */
+    private boolean exists(final Bson filter) {
+        return files.find(filter).projection(Projections.include(ID)).first() != null;
+    }
+
+    /**
+     * Turns the temporary file into the artifact by renaming it and setting
+     * its metadata. The chunks of the file are kept as they are so the content
+     * is not written a second time. The subsequent
+     * {@link #deleteTempFile(String)} does not find the temporary file anymore.
+     *
+     * @param temp
+     *            the temporary file
+     * @param metadata
+     *            the metadata of the artifact
+     * @return the promoted file
+     */
+    private GridFSFile promoteTempFile(final GridFSFile temp, final Document metadata) {
+        final ObjectId id = temp.getObjectId();
+        final UpdateResult result = files.updateOne(Filters.eq(ID, id), Updates
+                .combine(Updates.set(FILENAME, metadata.getString(FILENAME)), Updates.set(METADATA, metadata)));
+        if (result.getMatchedCount() == 0) {
+            throw new ArtifactStoreException("Temporary file " + temp.getFilename() + " does not exist anymore");
+        }
+        return gridFs.findOne(new Query().addCriteria(Criteria.where(ID).is(id)));
+    }
+
+    /**
+     * Writes an artifact below the inline threshold as a single file document
+     * with the content in its metadata and without chunks, so it is written
+     * by a single insert. The lookup leaves the content out, it is read by a
+     * single query when the artifact is read.
+     *
+     * @param metadata
+     *            the metadata of the artifact
+     * @param content
+     *            the content of the artifact
+     * @param contentType
+     *            the content type of the artifact
+     * @param hashes
+     *            the hashes of the artifact
+     * @return the stored artifact
+     */
+    private GridFsArtifact insertInline(final Document metadata, final byte[] content, final String contentType,
+            final DbArtifactHash hashes) {
+        final ObjectId id = new ObjectId();
+        files.insertOne(new Document(ID, id).append(FILENAME, metadata.getString(FILENAME))
+                .append(LENGTH, (long) content.length).append(CHUNK_SIZE, DEFAULT_CHUNK_SIZE)
+                .append(MongoDBTempFileSweeper.UPLOAD_DATE, new Date())
+                .append(METADATA,
+                        new Document(metadata).append(INLINE, true).append(INLINE_CONTENT, new Binary(content))));
+        return new GridFsArtifact(id.toString(), hashes, (long) content.length, contentType,
+                () -> new ByteArrayInputStream(content));
+    }
+
+    private long getInlineThreshold() {
+        return Math.min(properties.getInlineThreshold(), MAX_INLINE_THRESHOLD);
+    }
+
+    private static boolean isInline(final GridFSFile file) {
+        final Document metadata = file.getMetadata();
+        return metadata != null && Boolean.TRUE.equals(metadata.getBoolean(INLINE));
+    }
+
+    /**
+     * Loads the content of an inline artifact which has been left out by the
+     * lookup.
+     */
+    private byte[] loadInlineContent(final GridFSFile file, final ReadPreference readPreference) {
+        final Document document;
+        try {
+            document = files.withReadPreference(readPreference).find(Filters.eq(ID, file.getId()))
+                    .projection(Projections.include(METADATA + "." + INLINE_CONTENT)).first();
+        } catch (final MongoException e) {
+            throw new ArtifactStoreException(e.getMessage(), e);
+        }
+        final Document metadata = document == null ? null : document.get(METADATA, Document.class);
+        final Object content = metadata == null ? null : metadata.get(INLINE_CONTENT);
+        if (content instanceof Binary) {
+            return ((Binary) content).getData();
+        }
+        throw new ArtifactStoreException("Inline content of file " + file.getId() + " does not exist anymore");
     }
 
     private GridFSFile loadTempFile(final String tempFile) {
-        return gridFs.findOne(new Query().addCriteria(Criteria.where(FILENAME).is(getTempFilename(tempFile))));
+        return fileDocuments.find(tempFileFilter(tempFile)).first();
     }
 
     @Override
     protected String storeTempFile(final InputStream content) {
-        final String fileName = findUnusedTempFileName();
-
         try {
-            gridFs.store(content, getTempFilename(fileName));
-        } catch (final MongoClientException e) {
+            final long inlineThreshold = getInlineThreshold();
+            InputStream remaining = content;
+            if (inlineThreshold > 0) {
+                final byte[] head = ByteStreams.toByteArray(ByteStreams.limit(content, inlineThreshold));
+                if (head.length < inlineThreshold) {
+                    // the whole content is below the threshold and stored
+                    // inline, the temporary file is kept in memory only
+                    final String fileName = UUID.randomUUID().toString();
+                    inlineTempFiles.put(fileName, head);
+                    return fileName;
+                }
+                remaining = new SequenceInputStream(new ByteArrayInputStream(head), content);
+            }
+
+            final String fileName = findUnusedTempFileName();
+            final BufferedInputStream bufferedContent = new BufferedInputStream(remaining);
+            gridFsBucket.uploadFromStream(getTempFilename(fileName), bufferedContent,
+                    new GridFSUploadOptions().chunkSizeBytes(chunkSizeFor(bufferedContent)));
+            return fileName;
+        } catch (final MongoClientException | IOException e) {
             throw new ArtifactStoreException(e.getMessage(), e);
         }
+    }
 
-        return fileName;
+    /**
+     * Selects the chunk size by the size band of the content. The content is
+     * read ahead (and buffered) up to the lower bound of the largest band to
+     * find out in which band it falls, the stream is reset afterwards.
+     *
+     * @param content
+     *            the content to upload
+     * @return the chunk size for the content
+     */
+    private int chunkSizeFor(final BufferedInputStream content) throws IOException {
+        final NavigableMap<Long, Integer> chunkSizes = new TreeMap<>(properties.getChunkSizes());
+        if (chunkSizes.isEmpty()) {
+            return DEFAULT_CHUNK_SIZE;
+        }
+
+        final int peek = (int) Math.min(chunkSizes.lastKey(), MAX_CHUNK_SIZE_PEEK);
+        content.mark(peek);
+        final long minSize = ByteStreams.exhaust(ByteStreams.limit(content, peek));
+        content.reset();
+
+        final Map.Entry<Long, Integer> band = chunkSizes.floorEntry(minSize);
+        return band == null ? DEFAULT_CHUNK_SIZE : band.getValue();
     }
 
     private String findUnusedTempFileName() {
@@ -174,6 +544,9 @@ public class MongoDBArtifactStore extends AbstractArtifactRepository {
 
     @Override
     protected void deleteTempFile(final String tempFile) {
+        if (inlineTempFiles.remove(tempFile) != null) {
+            return;
+        }
         try {
             deleteArtifact(loadTempFile(tempFile));
         } catch (final MongoException e) {
@@ -183,7 +556,40 @@ public class MongoDBArtifactStore extends AbstractArtifactRepository {
     }
 
     private static String getTempFilename(final String fileName) {
-        return "TMP_" + fileName;
+        return TEMP_FILE_PREFIX + fileName;
+    }
+
+    /**
+     * @return filter of the file of the tenant with the SHA1 hash, covered by
+     *         the index on filename and tenant
+     */
+    static Bson artifactFilter(final String tenant, final String sha1Hash) {
+        return Filters.and(Filters.eq(FILENAME, sha1Hash), Filters.eq(TENANT_QUERY, sanitizeTenant(tenant)));
+    }
+
+    /**
+     * @return filter of the file with the SHA1 hash which has been stored
+     *         before multi-tenancy, covered by the index on filename and
+     *         tenant
+     */
+    static Bson legacyArtifactFilter(final String sha1Hash) {
+        return Filters.and(Filters.eq(FILENAME, sha1Hash), Filters.exists(TENANT_QUERY, false));
+    }
+
+    /**
+     * @return filter of the temporary file, covered by the index on filename
+     *         and tenant
+     */
+    static Bson tempFileFilter(final String tempFile) {
+        return Filters.eq(FILENAME, getTempFilename(tempFile));
+    }
+
+    /**
+     * @return filter of all files of the tenant, covered by the index on
+     *         tenant
+     */
+    static Bson tenantFilter(final String tenant) {
+        return Filters.eq(TENANT_QUERY, sanitizeTenant(tenant));
     }
 
     /**
@@ -198,8 +604,23 @@ public class MongoDBArtifactStore extends AbstractArtifactRepository {
         if (file == null) {
             return null;
         }
-        return createGridFsArtifact(file, getContentType(file),
-                new DbArtifactHash(file.getFilename(), file.getMD5(), null));
+        return createGridFsArtifact(file, getContentType(file), getHashes(file), downloadReadPreference);
+    }
+
+    /**
+     * Reads the hashes from the metadata of the file. Files stored before the
+     * hashes were added to the metadata fall back to the filename and the MD5
+     * hash calculated by GridFS.
+     */
+    @SuppressWarnings("deprecation")
+    private static DbArtifactHash getHashes(final GridFSFile file) {
+        final Document metadata = file.getMetadata();
+        if (metadata == null || metadata.getString(MD5) == null) {
+            return new DbArtifactHash(file.getFilename(), file.getMD5(), null);
+        }
+        final String sha1 = metadata.getString(SHA1);
+        return new DbArtifactHash(sha1 != null ? sha1 : file.getFilename(), metadata.getString(MD5),
+                metadata.getString(SHA256));
     }
 
     /**
@@ -211,13 +632,54 @@ public class MongoDBArtifactStore extends AbstractArtifactRepository {
      *            the content type of the artifact
      * @param hashes
      *            the {@link DbArtifactHash} object of the artifact
+     * @param readPreference
+     *            the {@link ReadPreference} of the content reads
      * @return a mapped artifact from the given file
      */
     private GridFsArtifact createGridFsArtifact(final GridFSFile file, final String contentType,
-            final DbArtifactHash hashes) {
+            final DbArtifactHash hashes, final ReadPreference readPreference) {
         if (file == null) {
             return null;
         }
+        if (isInline(file)) {
+            return new GridFsArtifact(file.getId().toString(), hashes, file.getLength(), contentType,
+                    () -> new ByteArrayInputStream(loadInlineContent(file, readPreference)));
+        }
+        return newGridFsArtifact(file, contentType, hashes, readPreference);
+    }
+
+    /**
+     * Creates the {@link GridFsArtifact} which streams the content of the
+     * given file.
+     *
+     * @param file
+     *            the {@link GridFSFile} object, not <code>null</code>
+     * @param contentType
+     *            the content type of the artifact
+     * @param hashes
+     *            the {@link DbArtifactHash} object of the artifact
+     * @param readPreference
+     *            the {@link ReadPreference} of the content reads
+     * @return the artifact
+     */
+    protected GridFsArtifact newGridFsArtifact(final GridFSFile file, final String contentType,
+            final DbArtifactHash hashes, final ReadPreference readPreference) {
+        if (readAheadExecutor != null) {
+            final MongoCollection<Document> chunksToRead = chunks.withReadPreference(readPreference);
+            return new GridFsArtifact(file.getId().toString(), hashes, file.getLength(), contentType,
+                    () -> new GridFsReadAheadInputStream(chunksToRead, file.getId(), file.getLength(),
+                            file.getChunkSize(), properties.getReadAheadChunks(), readAheadExecutor));
+        }
+        if (!ReadPreference.primary().equals(readPreference)) {
+            final GridFSBucket bucket = gridFsBucket.withReadPreference(readPreference);
+            return new GridFsArtifact(file.getId().toString(), hashes, file.getLength(), contentType, () -> {
+                try {
+                    return bucket.openDownloadStream(file.getId());
+                } catch (final MongoException e) {
+                    throw new ArtifactStoreException(e.getMessage(), e);
+                }
+            });
+        }
         return new GridFsArtifact(file.getId().toString(), hashes, file.getLength(), contentType, () -> {
             try {
                 return gridFs.getResource(file).getInputStream();
@@ -245,20 +707,51 @@ public class MongoDBArtifactStore extends AbstractArtifactRepository {
         return contentType;
     }
 
+    /**
+     * Deletes all files of the tenant in batches of
+     * {@link MongoDBArtifactStoreProperties#getPurgeBatchSize()} files. The
+     * chunks of a batch are deleted by an unordered bulk write of
+     * {@link #PURGE_CHUNKS_PER_DELETE} files per delete, followed by a single
+     * delete of the files of the batch. As the chunks are deleted first an
+     * interrupted purge can simply be repeated.
+     */
     @Override
     public void deleteByTenant(final String tenant) {
+        final Bson tenantFiles = tenantFilter(tenant);
+        final int batchSize = Math.max(1, properties.getPurgeBatchSize());
+
         try {
-            gridFs.delete(new Query().addCriteria(Criteria.where(TENANT_QUERY).is(sanitizeTenant(tenant))));
-        } catch (final MongoClientException e) {
+            long deleted = 0;
+            List<Object> ids;
+            do {
+                ids = new ArrayList<>(batchSize);
+                for (final Document file : files.find(tenantFiles).projection(Projections.include(ID))
+                        .limit(batchSize)) {
+                    ids.add(file.get(ID));
+                }
+                if (ids.isEmpty()) {
+                    break;
+                }
+
+                final List<DeleteManyModel<Document>> chunkDeletes = Lists.partition(ids, PURGE_CHUNKS_PER_DELETE)
+                        .stream().map(part -> new DeleteManyModel<Document>(Filters.in(FILES_ID, part)))
+                        .collect(Collectors.toList());
+                chunks.bulkWrite(chunkDeletes, new BulkWriteOptions().ordered(false));
+                deleted += files.deleteMany(Filters.in(ID, ids)).getDeletedCount();
+            } while (ids.size() == batchSize);
+
+            LOG.info("Deleted {} files of tenant {}", deleted, tenant);
+        } catch (final MongoException e) {
             throw new ArtifactStoreException(e.getMessage(), e);
         }
     }
 
     @Override
     public boolean existsByTenantAndSha1(final String tenant, final String sha1Hash) {
-        final GridFSFile artifact = gridFs.findOne(new Query()
-                .addCriteria(Criteria.where(FILENAME).is(sha1Hash).and(TENANT_QUERY).is(sanitizeTenant(tenant))));
-
-        return artifact != null;
+        try {
+            return exists(artifactFilter(tenant, sha1Hash));
+        } catch (final MongoException e) {
+            throw new ArtifactStoreException(e.getMessage(), e);
+        }
     }
 }
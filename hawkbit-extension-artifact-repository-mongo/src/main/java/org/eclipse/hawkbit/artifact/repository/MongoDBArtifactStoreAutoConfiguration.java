@@ -8,13 +8,32 @@
  */
 package org.eclipse.hawkbit.artifact.repository;
 
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.mongo.MongoProperties;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.PropertySource;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.MongoDbFactory;
 import org.springframework.data.mongodb.gridfs.GridFsOperations;
+import org.springframework.util.StringUtils;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.mongodb.client.MongoDatabase;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
 
 /**
  * Auto configuration for the {@link MongoDBArtifactStore}.
@@ -22,14 +41,149 @@ import org.springframework.data.mongodb.gridfs.GridFsOperations;
 @Configuration
 @ConditionalOnProperty(prefix = "org.eclipse.hawkbit.artifact.repository.mongo", name = "enabled", matchIfMissing = true)
 @PropertySource("classpath:/hawkbit-mongodb-defaults.properties")
-@EnableConfigurationProperties(MongoProperties.class)
+@EnableConfigurationProperties({ MongoProperties.class, MongoDBArtifactStoreProperties.class })
 public class MongoDBArtifactStoreAutoConfiguration {
 
     /**
-     * @return Default {@link ArtifactRepository} implementation.
+     * @return Default {@link ArtifactRepository} implementation with the
+     *         indexes of its queries in place.
      */
     @Bean
-    ArtifactRepository artifactRepository(final GridFsOperations gridFs) {
-        return new MongoDBArtifactStore(gridFs);
+    @ConditionalOnMissingBean(ArtifactRepository.class)
+    ArtifactRepository artifactRepository(final GridFsOperations gridFs, final MongoDbFactory mongoDbFactory,
+            final MongoProperties mongoProperties, final MongoDBArtifactStoreProperties artifactStoreProperties) {
+        final MongoDBArtifactStore artifactStore = new MongoDBArtifactStore(gridFs,
+                gridFsDatabase(mongoDbFactory, mongoProperties), artifactStoreProperties);
+        artifactStore.ensureIndexes();
+        return artifactStore;
+    }
+
+    /**
+     * @return {@link ArtifactRepositoryDecoratingPostProcessor} which reports
+     *         the metrics of the MongoDB repository
+     */
+    @Bean
+    static ArtifactRepositoryDecoratingPostProcessor mongoDBRepositoryInstrumentation(
+            final ObjectProvider<MeterRegistry> meterRegistry) {
+        return ArtifactRepositoryInstrumentation.postProcessor("mongo", MongoDBArtifactStore.class, meterRegistry);
+    }
+
+    /**
+     * Configuration of the {@link ReactiveMongoDBArtifactStore} which replaces
+     * the default implementation if the reactive MongoDB driver is on the
+     * classpath and the reactive backend is enabled.
+     */
+    @Configuration
+    @ConditionalOnClass(name = { "com.mongodb.reactivestreams.client.MongoClient", "reactor.core.publisher.Flux" })
+    @ConditionalOnProperty(prefix = "org.eclipse.hawkbit.repository.mongo", name = "reactive")
+    static class ReactiveMongoDBArtifactStoreConfiguration {
+
+        /**
+         * @return the {@link ReactiveMongoDBArtifactStore} with the indexes
+         *         of its queries in place.
+         */
+        @Bean
+        ArtifactRepository reactiveArtifactRepository(final GridFsOperations gridFs,
+                final MongoDbFactory mongoDbFactory, final MongoProperties mongoProperties,
+                final com.mongodb.reactivestreams.client.MongoClient reactiveMongoClient,
+                final MongoDBArtifactStoreProperties artifactStoreProperties) {
+            final String gridFsDatabase = mongoProperties.getGridFsDatabase();
+            final MongoDBArtifactStore artifactStore = new ReactiveMongoDBArtifactStore(gridFs,
+                    gridFsDatabase(mongoDbFactory, mongoProperties),
+                    reactiveMongoClient.getDatabase(StringUtils.hasText(gridFsDatabase) ? gridFsDatabase
+                            : mongoProperties.getMongoClientDatabase()),
+                    artifactStoreProperties);
+            artifactStore.ensureIndexes();
+            return artifactStore;
+        }
+    }
+
+    /**
+     * @return the {@link MongoDBLegacyTenantMigration} which is started in
+     *         the background once the application is ready
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "org.eclipse.hawkbit.repository.mongo.legacy-migration", name = "enabled")
+    MongoDBLegacyTenantMigrationRunner mongoDBLegacyTenantMigrationRunner(final MongoDbFactory mongoDbFactory,
+            final MongoProperties mongoProperties, final MongoDBArtifactStoreProperties artifactStoreProperties) {
+        return new MongoDBLegacyTenantMigrationRunner(new MongoDBLegacyTenantMigration(
+                gridFsDatabase(mongoDbFactory, mongoProperties), artifactStoreProperties.getLegacyMigration()));
+    }
+
+    /**
+     * Runs the {@link MongoDBLegacyTenantMigration} in a background thread
+     * once the application is ready and stops it on shutdown.
+     */
+    static class MongoDBLegacyTenantMigrationRunner implements DisposableBean {
+        private final MongoDBLegacyTenantMigration migration;
+
+        MongoDBLegacyTenantMigrationRunner(final MongoDBLegacyTenantMigration migration) {
+            this.migration = migration;
+        }
+
+        @EventListener(ApplicationReadyEvent.class)
+        public void start() {
+            final Thread thread = new Thread(migration, "mongodb-legacy-tenant-migration");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        @Override
+        public void destroy() {
+            migration.stop();
+        }
+    }
+
+    /**
+     * @return the {@link MongoDBTempFileSweeper} which runs periodically once
+     *         the application is ready
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "org.eclipse.hawkbit.repository.mongo.temp-file-sweep", name = "enabled",
+            matchIfMissing = true)
+    MongoDBTempFileSweeperRunner mongoDBTempFileSweeperRunner(final MongoDbFactory mongoDbFactory,
+            final MongoProperties mongoProperties, final MongoDBArtifactStoreProperties artifactStoreProperties,
+            final ObjectProvider<MeterRegistry> meterRegistry) {
+        return new MongoDBTempFileSweeperRunner(
+                new MongoDBTempFileSweeper(gridFsDatabase(mongoDbFactory, mongoProperties),
+                        artifactStoreProperties.getTempFileSweep(),
+                        meterRegistry.getIfAvailable(() -> Metrics.globalRegistry)),
+                artifactStoreProperties.getTempFileSweep().getInterval());
+    }
+
+    /**
+     * Runs the {@link MongoDBTempFileSweeper} periodically once the
+     * application is ready and stops it on shutdown.
+     */
+    static class MongoDBTempFileSweeperRunner implements DisposableBean {
+        private final MongoDBTempFileSweeper sweeper;
+        private final Duration interval;
+        private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setNameFormat("mongodb-temp-file-sweeper").setDaemon(true).build());
+
+        MongoDBTempFileSweeperRunner(final MongoDBTempFileSweeper sweeper, final Duration interval) {
+            this.sweeper = sweeper;
+            this.interval = interval;
+        }
+
+        @EventListener(ApplicationReadyEvent.class)
+        public void start() {
+            executor.scheduleWithFixedDelay(sweeper, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public void destroy() {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * @return the {@link MongoDatabase} which holds the GridFS collections,
+     *         i.e. the same database the {@link GridFsOperations} use
+     */
+    private static MongoDatabase gridFsDatabase(final MongoDbFactory mongoDbFactory,
+            final MongoProperties mongoProperties) {
+        final String gridFsDatabase = mongoProperties.getGridFsDatabase();
+        return StringUtils.hasText(gridFsDatabase) ? mongoDbFactory.getDb(gridFsDatabase) : mongoDbFactory.getDb();
     }
 }
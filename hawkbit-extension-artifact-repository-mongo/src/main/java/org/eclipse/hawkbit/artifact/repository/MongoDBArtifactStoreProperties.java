@@ -0,0 +1,274 @@
+/**
+ * Copyright (c) 2020 Bosch.IO GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.artifact.repository;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * The configuration properties for the MongoDB GridFS artifact repository
+ * implementation.
+ */
+@ConfigurationProperties("org.eclipse.hawkbit.repository.mongo")
+public class MongoDBArtifactStoreProperties {
+
+    /**
+     * Looks up artifacts without tenant (stored before multi-tenancy) if an
+     * artifact is not found for the requested tenant. Can be switched off
+     * once the legacy files have been migrated, so every lookup is a single
+     * query.
+     */
+    private boolean legacyFallback = true;
+
+    /**
+     * Streams the artifact content by the reactive MongoDB driver
+     * ({@link ReactiveMongoDBArtifactStore}). Requires the reactive driver on
+     * the classpath.
+     */
+    private boolean reactive;
+
+    /**
+     * Read preference of artifact lookups and content reads for downloads,
+     * e.g. secondaryPreferred to spread the downloads across the replica set.
+     * Uploads, existence checks and deletions always use the primary.
+     */
+    private String downloadReadPreference = "primary";
+
+    /**
+     * Maximum replication lag of a secondary which serves downloads. MongoDB
+     * requires at least 90 seconds. Not used for the primary read preference.
+     */
+    private Duration downloadMaxStaleness = Duration.ofSeconds(90);
+
+    /**
+     * Artifacts smaller than this size (in bytes) are stored inline as a
+     * single document instead of a GridFS file with chunks. 0 disables inline
+     * storage, the threshold is capped at 8 MB.
+     */
+    private long inlineThreshold;
+
+    /**
+     * Chunk size (in bytes) of uploaded artifacts by size band: an artifact
+     * of at least the key size (in bytes) is stored with the chunk size of
+     * the largest matching key. Smaller artifacts use the GridFS default of
+     * 255 KB. The content of every upload is buffered in memory up to the
+     * largest key to select the band, so keys above 8 MB are rejected.
+     */
+    private final Map<Long, Integer> chunkSizes = new HashMap<>();
+
+    /**
+     * Number of chunks which are read ahead asynchronously while an artifact
+     * is streamed. 0 uses the default GridFS stream which reads the chunks on
+     * demand.
+     */
+    private int readAheadChunks;
+
+    /**
+     * Number of threads which read ahead the chunks of all downloads
+     * together. Chunk reads beyond are queued.
+     */
+    private int readAheadThreads = 32;
+
+    /**
+     * Number of files which are deleted by a single batch when all artifacts
+     * of a tenant are deleted.
+     */
+    private int purgeBatchSize = 1000;
+
+    private final LegacyMigration legacyMigration = new LegacyMigration();
+
+    private final TempFileSweep tempFileSweep = new TempFileSweep();
+
+    public boolean isLegacyFallback() {
+        return legacyFallback;
+    }
+
+    public void setLegacyFallback(final boolean legacyFallback) {
+        this.legacyFallback = legacyFallback;
+    }
+
+    public boolean isReactive() {
+        return reactive;
+    }
+
+    public void setReactive(final boolean reactive) {
+        this.reactive = reactive;
+    }
+
+    public String getDownloadReadPreference() {
+        return downloadReadPreference;
+    }
+
+    public void setDownloadReadPreference(final String downloadReadPreference) {
+        this.downloadReadPreference = downloadReadPreference;
+    }
+
+    public Duration getDownloadMaxStaleness() {
+        return downloadMaxStaleness;
+    }
+
+    public void setDownloadMaxStaleness(final Duration downloadMaxStaleness) {
+        this.downloadMaxStaleness = downloadMaxStaleness;
+    }
+
+    public long getInlineThreshold() {
+        return inlineThreshold;
+    }
+
+    public void setInlineThreshold(final long inlineThreshold) {
+        this.inlineThreshold = inlineThreshold;
+    }
+
+    public Map<Long, Integer> getChunkSizes() {
+        return chunkSizes;
+    }
+
+    public int getReadAheadChunks() {
+        return readAheadChunks;
+    }
+
+    public void setReadAheadChunks(final int readAheadChunks) {
+        this.readAheadChunks = readAheadChunks;
+    }
+
+    public int getReadAheadThreads() {
+        return readAheadThreads;
+    }
+
+    public void setReadAheadThreads(final int readAheadThreads) {
+        this.readAheadThreads = readAheadThreads;
+    }
+
+    public int getPurgeBatchSize() {
+        return purgeBatchSize;
+    }
+
+    public void setPurgeBatchSize(final int purgeBatchSize) {
+        this.purgeBatchSize = purgeBatchSize;
+    }
+
+    public LegacyMigration getLegacyMigration() {
+        return legacyMigration;
+    }
+
+    public TempFileSweep getTempFileSweep() {
+        return tempFileSweep;
+    }
+
+    /**
+     * Migration which writes a tenant into the files stored before
+     * multi-tenancy.
+     */
+    public static class LegacyMigration {
+
+        /**
+         * Runs the migration in the background after the start of the
+         * application.
+         */
+        private boolean enabled;
+
+        /**
+         * The tenant the legacy files are assigned to.
+         */
+        private String tenant = "DEFAULT";
+
+        /**
+         * Number of files which are migrated by a single update.
+         */
+        private int batchSize = 1000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(final boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getTenant() {
+            return tenant;
+        }
+
+        public void setTenant(final String tenant) {
+            this.tenant = tenant;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(final int batchSize) {
+            this.batchSize = batchSize;
+        }
+    }
+
+    /**
+     * Scheduled deletion of temporary upload files which have been left
+     * behind.
+     */
+    public static class TempFileSweep {
+
+        /**
+         * Deletes orphaned temporary files periodically.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Age of a temporary file or a chunk without file after which it is
+         * considered orphaned. Has to be longer than the longest upload.
+         */
+        private Duration maxAge = Duration.ofDays(1);
+
+        /**
+         * Time between two runs.
+         */
+        private Duration interval = Duration.ofHours(1);
+
+        /**
+         * Number of files which are deleted by a single delete, and number of
+         * chunks whose files are checked at once.
+         */
+        private int batchSize = 1000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(final boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getMaxAge() {
+            return maxAge;
+        }
+
+        public void setMaxAge(final Duration maxAge) {
+            this.maxAge = maxAge;
+        }
+
+        public Duration getInterval() {
+            return interval;
+        }
+
+        public void setInterval(final Duration interval) {
+            this.interval = interval;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(final int batchSize) {
+            this.batchSize = batchSize;
+        }
+    }
+}
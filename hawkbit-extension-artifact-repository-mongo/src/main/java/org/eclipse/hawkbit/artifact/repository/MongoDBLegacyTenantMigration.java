@@ -0,0 +1,94 @@
+/**
+ * Copyright (c) 2020 Bosch.IO GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.artifact.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.Updates;
+
+/**
+ * Writes the configured tenant into all files which have been stored before
+ * multi-tenancy, i.e. have no tenant in their metadata. The files are
+ * migrated in batches ordered by their id. Migrated files do not match the
+ * query anymore, so an interrupted migration continues where it stopped on
+ * the next run. Once it has finished
+ * {@link MongoDBArtifactStoreProperties#isLegacyFallback()} can be switched
+ * off.
+ */
+class MongoDBLegacyTenantMigration implements Runnable {
+    private static final Logger LOG = LoggerFactory.getLogger(MongoDBLegacyTenantMigration.class);
+
+    private static final Bson LEGACY_FILES = Filters.and(Filters.exists(MongoDBArtifactStore.TENANT_QUERY, false),
+            Filters.not(Filters.regex(MongoDBArtifactStore.FILENAME, "^" + MongoDBArtifactStore.TEMP_FILE_PREFIX)));
+
+    private final MongoCollection<Document> files;
+    private final MongoDBArtifactStoreProperties.LegacyMigration properties;
+
+    private volatile boolean stopped;
+
+    MongoDBLegacyTenantMigration(final MongoDatabase database,
+            final MongoDBArtifactStoreProperties.LegacyMigration properties) {
+        this.files = database.getCollection(MongoDBArtifactStore.FILES_COLLECTION);
+        this.properties = properties;
+    }
+
+    @Override
+    public void run() {
+        final String tenant = AbstractArtifactRepository.sanitizeTenant(properties.getTenant());
+        final int batchSize = Math.max(1, properties.getBatchSize());
+
+        LOG.info("Migrating files without tenant to tenant {}", tenant);
+        long migrated = 0;
+        Object lastId = null;
+        try {
+            while (!stopped) {
+                final Bson query = lastId == null ? LEGACY_FILES
+                        : Filters.and(LEGACY_FILES, Filters.gt(MongoDBArtifactStore.ID, lastId));
+                final List<Object> ids = new ArrayList<>(batchSize);
+                for (final Document file : files.find(query).projection(Projections.include(MongoDBArtifactStore.ID))
+                        .sort(Sorts.ascending(MongoDBArtifactStore.ID)).limit(batchSize)) {
+                    ids.add(file.get(MongoDBArtifactStore.ID));
+                }
+                if (ids.isEmpty()) {
+                    LOG.info("Migrated {} files without tenant to tenant {}, migration finished", migrated, tenant);
+                    return;
+                }
+
+                migrated += files.updateMany(Filters.and(Filters.in(MongoDBArtifactStore.ID, ids), LEGACY_FILES),
+                        Updates.set(MongoDBArtifactStore.TENANT_QUERY, tenant)).getModifiedCount();
+                lastId = ids.get(ids.size() - 1);
+                LOG.debug("Migrated {} files without tenant to tenant {} so far", migrated, tenant);
+            }
+            LOG.info("Migration of files without tenant stopped after {} files, will continue on next start",
+                    migrated);
+        } catch (final MongoException e) {
+            LOG.error("Migration of files without tenant failed after {} files, will continue on next start",
+                    migrated, e);
+        }
+    }
+
+    /**
+     * Stops the migration after the current batch.
+     */
+    void stop() {
+        stopped = true;
+    }
+}
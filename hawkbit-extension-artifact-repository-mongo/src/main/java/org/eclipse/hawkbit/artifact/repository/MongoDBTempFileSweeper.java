@@ -0,0 +1,200 @@
+/**
+ * Copyright (c) 2020 Bosch.IO GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.artifact.repository;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Sorts;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Deletes temporary upload files which have been left behind, e.g. by a crash
+ * between the upload of the temporary file and its promotion or deletion.
+ * Temporary files older than
+ * {@link MongoDBArtifactStoreProperties.TempFileSweep#getMaxAge()} are found
+ * by the index on filename and upload date and deleted with their chunks in
+ * batches. The number of deleted files and their size are counted as metrics.
+ * <p>
+ * Afterwards the chunks of files which do not exist anymore are deleted, e.g.
+ * left behind by a crash during a GridFS delete which removes the file before
+ * its chunks. Their age is taken from the timestamp of the file id, see
+ * {@link #sweepChunks(Date)}.
+ */
+class MongoDBTempFileSweeper implements Runnable {
+    private static final Logger LOG = LoggerFactory.getLogger(MongoDBTempFileSweeper.class);
+
+    static final String UPLOAD_DATE = "uploadDate";
+    private static final String LENGTH = "length";
+
+    private final MongoCollection<Document> files;
+    private final MongoCollection<Document> chunks;
+    private final MongoDBArtifactStoreProperties.TempFileSweep properties;
+
+    private final Counter deletedFiles;
+    private final Counter deletedBytes;
+    private final Counter deletedChunks;
+
+    MongoDBTempFileSweeper(final MongoDatabase database,
+            final MongoDBArtifactStoreProperties.TempFileSweep properties, final MeterRegistry meterRegistry) {
+        this.files = database.getCollection(MongoDBArtifactStore.FILES_COLLECTION);
+        this.chunks = database.getCollection(MongoDBArtifactStore.CHUNKS_COLLECTION);
+        this.properties = properties;
+        this.deletedFiles = Counter.builder("hawkbit.artifact.repository.mongo.tempfiles.deleted")
+                .description("Orphaned temporary upload files deleted by the sweeper").register(meterRegistry);
+        this.deletedBytes = Counter.builder("hawkbit.artifact.repository.mongo.tempfiles.deleted.size")
+                .description("Size of the orphaned temporary upload files deleted by the sweeper").baseUnit("bytes")
+                .register(meterRegistry);
+        this.deletedChunks = Counter.builder("hawkbit.artifact.repository.mongo.chunks.deleted")
+                .description("Orphaned chunks without file deleted by the sweeper").register(meterRegistry);
+    }
+
+    @Override
+    public void run() {
+        try {
+            sweep();
+        } catch (final MongoException e) {
+            LOG.error("Failed to delete orphaned temporary files", e);
+        }
+    }
+
+    /**
+     * Deletes all temporary files and all chunks without file older than the
+     * configured maximum age.
+     *
+     * @return the number of deleted files
+     */
+    long sweep() {
+        final Date uploadedBefore = new Date(System.currentTimeMillis() - properties.getMaxAge().toMillis());
+        final long deleted = sweepTempFiles(uploadedBefore);
+        sweepChunks(uploadedBefore);
+        return deleted;
+    }
+
+    private long sweepTempFiles(final Date uploadedBefore) {
+        final Bson orphaned = orphanedFilter(uploadedBefore);
+        final int batchSize = Math.max(1, properties.getBatchSize());
+
+        long deleted = 0;
+        long size = 0;
+        while (true) {
+            final List<Object> ids = new ArrayList<>(batchSize);
+            long batchLength = 0;
+            for (final Document file : files.find(orphaned)
+                    .projection(Projections.include(MongoDBArtifactStore.ID, LENGTH)).limit(batchSize)) {
+                ids.add(file.get(MongoDBArtifactStore.ID));
+                final Object length = file.get(LENGTH);
+                batchLength += length instanceof Number ? ((Number) length).longValue() : 0;
+            }
+            if (ids.isEmpty()) {
+                break;
+            }
+
+            // chunks first, so a failed batch leaves the file to be found
+            // again by the next run
+            chunks.deleteMany(Filters.in(MongoDBArtifactStore.FILES_ID, ids));
+            final long batchDeleted = files.deleteMany(Filters.in(MongoDBArtifactStore.ID, ids)).getDeletedCount();
+
+            deletedFiles.increment(batchDeleted);
+            deletedBytes.increment(batchLength);
+            deleted += batchDeleted;
+            size += batchLength;
+
+            if (ids.size() < batchSize) {
+                break;
+            }
+        }
+
+        if (deleted > 0) {
+            LOG.info("Deleted {} orphaned temporary files with {} bytes", deleted, size);
+        }
+        return deleted;
+    }
+
+    /**
+     * Deletes the chunks whose file does not exist and whose file id is an
+     * {@link ObjectId} created before the given date. The file ids of the
+     * chunks are read in batches by a scan of the index on files_id and n of
+     * GridFS, so every run reads the index entries of all chunks older than
+     * the maximum age. Files with another type of id are not covered.
+     *
+     * @return the number of deleted chunks
+     */
+    long sweepChunks(final Date uploadedBefore) {
+        final ObjectId maxFileId = new ObjectId(uploadedBefore);
+        final int batchSize = Math.max(1, properties.getBatchSize());
+
+        long deleted = 0;
+        Object lastFileId = null;
+        while (true) {
+            final Bson older = Filters.lt(MongoDBArtifactStore.FILES_ID, maxFileId);
+            final Bson range = lastFileId == null ? older
+                    : Filters.and(Filters.gt(MongoDBArtifactStore.FILES_ID, lastFileId), older);
+            final Set<Object> fileIds = new LinkedHashSet<>();
+            int scanned = 0;
+            for (final Document chunk : chunks.find(range)
+                    .projection(Projections.fields(Projections.include(MongoDBArtifactStore.FILES_ID),
+                            Projections.excludeId()))
+                    .sort(Sorts.ascending(MongoDBArtifactStore.FILES_ID)).limit(batchSize)) {
+                lastFileId = chunk.get(MongoDBArtifactStore.FILES_ID);
+                fileIds.add(lastFileId);
+                scanned++;
+            }
+            if (fileIds.isEmpty()) {
+                break;
+            }
+
+            // the remaining chunks of the last file are deleted with it, so
+            // the next batch continues after it
+            for (final Document file : files.find(Filters.in(MongoDBArtifactStore.ID, fileIds))
+                    .projection(Projections.include(MongoDBArtifactStore.ID))) {
+                fileIds.remove(file.get(MongoDBArtifactStore.ID));
+            }
+            if (!fileIds.isEmpty()) {
+                deleted += chunks.deleteMany(Filters.in(MongoDBArtifactStore.FILES_ID, fileIds)).getDeletedCount();
+            }
+
+            if (scanned < batchSize) {
+                break;
+            }
+        }
+
+        if (deleted > 0) {
+            deletedChunks.increment(deleted);
+            LOG.info("Deleted {} orphaned chunks without file", deleted);
+        }
+        return deleted;
+    }
+
+    /**
+     * @return filter of the temporary files uploaded before the given date,
+     *         covered by the index on filename and upload date
+     */
+    static Bson orphanedFilter(final Date uploadedBefore) {
+        return Filters.and(
+                Filters.regex(MongoDBArtifactStore.FILENAME, "^" + MongoDBArtifactStore.TEMP_FILE_PREFIX),
+                Filters.lt(UPLOAD_DATE, uploadedBefore));
+    }
+}
@@ -0,0 +1,161 @@
+/**
+ * Copyright (c) 2020 Bosch.IO GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.artifact.repository;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.types.Binary;
+import org.eclipse.hawkbit.artifact.repository.model.DbArtifactHash;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.util.Assert;
+
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.reactivestreams.client.MongoCollection;
+import com.mongodb.reactivestreams.client.gridfs.GridFSBucket;
+import com.mongodb.reactivestreams.client.gridfs.GridFSDownloadStream;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * A {@link GridFsArtifact} which streams its content by the reactive MongoDB
+ * driver. {@link #getContent()} emits the content chunk by chunk, a chunk is
+ * only read from the database when it is requested by the subscriber.
+ * {@link #getContent(long, long)} queries only the chunks of a range.
+ * {@link #getFileInputStream()} adapts the content to a blocking
+ * {@link InputStream}.
+ * <p>
+ * Reads are only non-blocking if the caller subscribes to the content, e.g.
+ * a reactive download endpoint. A caller of {@link #getFileInputStream()}
+ * still blocks a thread while it waits for the next chunk.
+ */
+public class ReactiveGridFsArtifact extends GridFsArtifact {
+
+    private static final DataBufferFactory BUFFER_FACTORY = new DefaultDataBufferFactory();
+
+    private static final String CHUNK_NUMBER = "n";
+    private static final String CHUNK_DATA = "data";
+
+    private final GridFSBucket gridFsBucket;
+    private final MongoCollection<Document> chunks;
+    private final BsonValue fileId;
+    private final int chunkSize;
+
+    /**
+     * @param artifactId
+     *            id of the artifact
+     * @param hashes
+     *            base16 hashes of the artifact
+     * @param size
+     *            size of the artifact
+     * @param contentType
+     *            content type of the artifact
+     * @param gridFsBucket
+     *            the reactive bucket which holds the file
+     * @param chunks
+     *            the chunks collection of the bucket
+     * @param fileId
+     *            id of the file in the bucket
+     * @param chunkSize
+     *            chunk size of the file
+     */
+    public ReactiveGridFsArtifact(final String artifactId, final DbArtifactHash hashes, final long size,
+            final String contentType, final GridFSBucket gridFsBucket, final MongoCollection<Document> chunks,
+            final BsonValue fileId, final int chunkSize) {
+        super(artifactId, hashes, size, contentType, null);
+        this.gridFsBucket = gridFsBucket;
+        this.chunks = chunks;
+        this.fileId = fileId;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * @return the content of the artifact as {@link Flux} of
+     *         {@link DataBuffer}s with the size of a chunk. The download
+     *         stream is opened on subscription and closed on completion,
+     *         error or cancellation.
+     */
+    public Flux<DataBuffer> getContent() {
+        return Flux.using(() -> gridFsBucket.openDownloadStream(fileId), this::readChunks,
+                stream -> Mono.from(stream.close()).subscribe());
+    }
+
+    private Flux<DataBuffer> readChunks(final GridFSDownloadStream stream) {
+        return Mono.defer(() -> {
+            final ByteBuffer buffer = ByteBuffer.allocate(chunkSize);
+            return Mono.from(stream.read(buffer)).map(read -> {
+                buffer.flip();
+                return buffer;
+            });
+        }).repeat().takeWhile(ByteBuffer::hasRemaining).map(BUFFER_FACTORY::wrap);
+    }
+
+    /**
+     * @param offset
+     *            position of the first byte
+     * @param length
+     *            number of bytes
+     * @return a range of the content of the artifact as {@link Flux} of
+     *         {@link DataBuffer}s. Only the chunks of the range are queried,
+     *         starting with the chunk of the offset.
+     */
+    public Flux<DataBuffer> getContent(final long offset, final long length) {
+        Assert.isTrue(offset >= 0, "Offset cannot be negative");
+        Assert.isTrue(length >= 0, "Length cannot be negative");
+        final long end = Math.min(getSize(), offset + length);
+        if (offset >= end) {
+            return Flux.empty();
+        }
+        final int firstChunk = (int) (offset / chunkSize);
+        final int lastChunk = (int) ((end - 1) / chunkSize);
+
+        return Flux.defer(() -> {
+            final AtomicInteger nextChunk = new AtomicInteger(firstChunk);
+            return Flux
+                    .from(chunks.find(Filters.and(Filters.eq(MongoDBArtifactStore.FILES_ID, fileId),
+                            Filters.gte(CHUNK_NUMBER, firstChunk), Filters.lte(CHUNK_NUMBER, lastChunk)))
+                            .sort(Sorts.ascending(CHUNK_NUMBER)))
+                    .map(chunk -> slice(chunk, nextChunk.getAndIncrement(), offset, end))
+                    .concatWith(Mono.defer(() -> nextChunk.get() > lastChunk ? Mono.empty()
+                            : Mono.error(missingChunk(nextChunk.get()))));
+        });
+    }
+
+    private DataBuffer slice(final Document chunk, final int number, final long offset, final long end) {
+        if (chunk.getInteger(CHUNK_NUMBER, -1) != number) {
+            throw missingChunk(number);
+        }
+        final byte[] data = chunk.get(CHUNK_DATA, Binary.class).getData();
+        final long chunkStart = (long) number * chunkSize;
+        final int from = (int) Math.max(0, offset - chunkStart);
+        final int to = (int) Math.min(data.length, end - chunkStart);
+        return BUFFER_FACTORY.wrap(ByteBuffer.wrap(data, from, to - from));
+    }
+
+    private ArtifactStoreException missingChunk(final int number) {
+        return new ArtifactStoreException("Chunk " + number + " of artifact " + getArtifactId() + " is missing");
+    }
+
+    @Override
+    public InputStream getFileInputStream() {
+        return new DataBufferInputStream(getContent());
+    }
+
+    @Override
+    public InputStream getFileInputStream(final long offset, final long length) {
+        return new DataBufferInputStream(getContent(offset, length));
+    }
+}
@@ -0,0 +1,50 @@
+/**
+ * Copyright (c) 2020 Bosch.IO GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.artifact.repository;
+
+import org.bson.Document;
+import org.eclipse.hawkbit.artifact.repository.model.DbArtifactHash;
+import org.springframework.data.mongodb.gridfs.GridFsOperations;
+
+import com.mongodb.ReadPreference;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.gridfs.model.GridFSFile;
+import com.mongodb.reactivestreams.client.MongoCollection;
+import com.mongodb.reactivestreams.client.gridfs.GridFSBucket;
+import com.mongodb.reactivestreams.client.gridfs.GridFSBuckets;
+
+/**
+ * {@link MongoDBArtifactStore} which streams the artifact content by the
+ * reactive MongoDB driver. Stored artifacts are {@link ReactiveGridFsArtifact}s
+ * whose content is delivered as non-blocking stream with backpressure, so a
+ * download neither holds a thread nor a pooled connection while it waits for
+ * the client. Uploads and metadata queries are the same as in
+ * {@link MongoDBArtifactStore}.
+ */
+public class ReactiveMongoDBArtifactStore extends MongoDBArtifactStore {
+
+    private final GridFSBucket reactiveGridFsBucket;
+    private final MongoCollection<Document> reactiveChunks;
+
+    ReactiveMongoDBArtifactStore(final GridFsOperations gridFs, final MongoDatabase database,
+            final com.mongodb.reactivestreams.client.MongoDatabase reactiveDatabase,
+            final MongoDBArtifactStoreProperties properties) {
+        super(gridFs, database, properties);
+        this.reactiveGridFsBucket = GridFSBuckets.create(reactiveDatabase);
+        this.reactiveChunks = reactiveDatabase.getCollection(CHUNKS_COLLECTION);
+    }
+
+    @Override
+    protected GridFsArtifact newGridFsArtifact(final GridFSFile file, final String contentType,
+            final DbArtifactHash hashes, final ReadPreference readPreference) {
+        return new ReactiveGridFsArtifact(file.getId().toString(), hashes, file.getLength(), contentType,
+                reactiveGridFsBucket.withReadPreference(readPreference),
+                reactiveChunks.withReadPreference(readPreference), file.getId(), file.getChunkSize());
+    }
+}
@@ -0,0 +1,154 @@
+/**
+ * Copyright (c) 2020 Bosch.IO GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.artifact.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.bson.BsonDocument;
+import org.bson.BsonObjectId;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.Binary;
+import org.bson.types.ObjectId;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.context.annotation.Description;
+
+import com.google.common.io.ByteStreams;
+import com.mongodb.MongoClient;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+
+import io.qameta.allure.Feature;
+import io.qameta.allure.Story;
+
+@Feature("Unit Tests - Repository")
+@Story("Artifact Store MongoDB")
+@RunWith(MockitoJUnitRunner.class)
+public class GridFsReadAheadInputStreamTest {
+
+    private static final int CHUNK_SIZE = 100;
+    private static final int LENGTH = 10 * CHUNK_SIZE - 17;
+
+    private final BsonValue fileId = new BsonObjectId(new ObjectId());
+    private final byte[] content = new byte[LENGTH];
+    private final List<Integer> readChunks = new CopyOnWriteArrayList<>();
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @Mock
+    private MongoCollection<Document> chunksMock;
+
+    private ChunkRead chunkRead = chunk -> {
+        // returned immediately
+    };
+
+    @Before
+    public void before() {
+        new Random().nextBytes(content);
+        when(chunksMock.find(any(Bson.class))).thenAnswer(invocation -> {
+            final int chunk = chunkNumber(invocation.getArgument(0));
+            readChunks.add(chunk);
+            chunkRead.read(chunk);
+            final int start = chunk * CHUNK_SIZE;
+            final Document document = new Document("n", chunk).append("data",
+                    new Binary(Arrays.copyOfRange(content, start, Math.min(LENGTH, start + CHUNK_SIZE))));
+            return mock(FindIterable.class, first -> document);
+        });
+    }
+
+    @After
+    public void after() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    @Description("Verifies that the read-ahead starts with the first read and at the target of a preceding skip, so "
+            + "the chunks before a range are not read.")
+    public void readAheadStartsAtSkipTarget() throws IOException {
+        try (final InputStream stream = new GridFsReadAheadInputStream(chunksMock, fileId, LENGTH, CHUNK_SIZE, 3,
+                executor)) {
+            assertThat(readChunks).isEmpty();
+
+            final int offset = 5 * CHUNK_SIZE + 50;
+            assertThat(stream.skip(offset)).isEqualTo(offset);
+            assertThat(readChunks).isEmpty();
+
+            assertThat(ByteStreams.toByteArray(ByteStreams.limit(stream, 2 * CHUNK_SIZE)))
+                    .isEqualTo(Arrays.copyOfRange(content, offset, offset + 2 * CHUNK_SIZE));
+            assertThat(readChunks).allMatch(chunk -> chunk >= 5);
+        }
+    }
+
+    @Test
+    @Description("Verifies that closing the stream does not interrupt the chunk reads in flight, an interrupt would "
+            + "close the connection of the MongoDB driver.")
+    public void closeDoesNotInterruptChunkReads() throws Exception {
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch finished = new CountDownLatch(1);
+        final AtomicBoolean interrupted = new AtomicBoolean();
+        chunkRead = chunk -> {
+            if (chunk == 1) {
+                entered.countDown();
+                try {
+                    release.await();
+                } catch (final InterruptedException e) {
+                    interrupted.set(true);
+                } finally {
+                    finished.countDown();
+                }
+            }
+        };
+
+        final InputStream stream = new GridFsReadAheadInputStream(chunksMock, fileId, LENGTH, CHUNK_SIZE, 2,
+                executor);
+        assertThat(stream.read()).isEqualTo(content[0] & 0xFF);
+        assertThat(entered.await(10, TimeUnit.SECONDS)).isTrue();
+        stream.close();
+
+        release.countDown();
+        assertThat(finished.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(interrupted.get()).isFalse();
+    }
+
+    private static int chunkNumber(final Bson filter) {
+        final BsonDocument document = filter.toBsonDocument(Document.class, MongoClient.getDefaultCodecRegistry());
+        if (document.containsKey("n")) {
+            return document.getInt32("n").getValue();
+        }
+        return document.getArray("$and").stream().map(BsonValue::asDocument).filter(part -> part.containsKey("n"))
+                .findFirst().map(part -> part.getInt32("n").getValue())
+                .orElseThrow(() -> new IllegalArgumentException("No chunk number in " + document));
+    }
+
+    @FunctionalInterface
+    private interface ChunkRead {
+        void read(int chunk) throws InterruptedException;
+    }
+}
@@ -9,6 +9,7 @@
 package org.eclipse.hawkbit.artifact.repository;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
@@ -16,8 +17,19 @@ import java.io.InputStream;
 import java.security.DigestInputStream;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
 import java.util.Random;
+import java.util.UUID;
 
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.Binary;
+import org.bson.types.ObjectId;
 import org.eclipse.hawkbit.artifact.TestConfiguration;
 import org.eclipse.hawkbit.artifact.repository.model.AbstractDbArtifact;
 import org.eclipse.hawkbit.artifact.repository.model.DbArtifactHash;
@@ -26,10 +38,20 @@ import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.context.annotation.Description;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.data.mongodb.MongoDbFactory;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.gridfs.GridFsOperations;
 import org.springframework.test.context.junit4.SpringRunner;
 
 import com.google.common.io.BaseEncoding;
+import com.google.common.io.ByteStreams;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.gridfs.model.GridFSFile;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import io.qameta.allure.Feature;
 import io.qameta.allure.Step;
 import io.qameta.allure.Story;
@@ -47,6 +69,18 @@ public class MongoDBArtifactStoreTest {
     @Autowired
     private MongoDBArtifactStore artifactStoreUnderTest;
 
+    @Autowired
+    private GridFsOperations gridFs;
+
+    @Autowired
+    private MongoDbFactory mongoDbFactory;
+
+    @Autowired
+    private MongoDBArtifactStoreProperties artifactStoreProperties;
+
+    @Autowired
+    private com.mongodb.reactivestreams.client.MongoClient reactiveMongoClient;
+
     @Test
     @Description("Ensures that search by SHA1 hash (which is used by hawkBit as artifact ID) finds the expected results.")
     public void findArtifactBySHA1Hash() throws NoSuchAlgorithmException, IOException {
@@ -104,6 +138,395 @@ public class MongoDBArtifactStoreTest {
 
     }
 
+    @Test
+    @Description("Verifies that a range of an artifact can be read without reading the preceding bytes.")
+    public void readArtifactRange() throws NoSuchAlgorithmException, IOException {
+
+        final byte[] bytes = new byte[1024 * 1024];
+        new Random().nextBytes(bytes);
+
+        final AbstractDbArtifact stored = storeArtifact(TENANT, "file1.txt", new ByteArrayInputStream(bytes),
+                MessageDigest.getInstance("SHA1"), MessageDigest.getInstance("MD5"), null);
+        final GridFsArtifact loaded = (GridFsArtifact) artifactStoreUnderTest.getArtifactBySha1(TENANT,
+                stored.getHashes().getSha1());
+
+        final int offset = 300 * 1024 + 17;
+        final int length = 400 * 1024;
+        try (final InputStream range = loaded.getFileInputStream(offset, length)) {
+            assertThat(ByteStreams.toByteArray(range)).isEqualTo(Arrays.copyOfRange(bytes, offset, offset + length));
+        }
+    }
+
+    @Test
+    @Description("Verifies that the uploaded temporary file becomes the artifact without copying its content "
+            + "and that no temporary file is left behind.")
+    public void storePromotesTempFile() throws NoSuchAlgorithmException, IOException {
+
+        final byte[] bytes = new byte[512 * 1024];
+        new Random().nextBytes(bytes);
+
+        final AbstractDbArtifact stored = storeArtifact(TENANT, "file1.txt", new ByteArrayInputStream(bytes),
+                MessageDigest.getInstance("SHA1"), MessageDigest.getInstance("MD5"), null);
+
+        final List<GridFSFile> files = new ArrayList<>();
+        gridFs.find(new Query().addCriteria(Criteria.where("filename").is(stored.getHashes().getSha1())))
+                .into(files);
+        assertThat(files).hasSize(1);
+        assertThat(files.get(0).getMetadata().getString("tenant")).isEqualToIgnoringCase(TENANT);
+        assertThat(gridFs.findOne(new Query().addCriteria(Criteria.where("filename").regex("^TMP_")))).isNull();
+
+        try (final InputStream content = artifactStoreUnderTest
+                .getArtifactBySha1(TENANT, stored.getHashes().getSha1()).getFileInputStream()) {
+            assertThat(ByteStreams.toByteArray(content)).isEqualTo(bytes);
+        }
+    }
+
+    @Test
+    @Description("Verifies that the reactive backend streams the artifact content chunk by chunk and as "
+            + "blocking InputStream.")
+    public void readArtifactReactive() throws NoSuchAlgorithmException, IOException {
+
+        final byte[] bytes = new byte[1024 * 1024 + 17];
+        new Random().nextBytes(bytes);
+
+        final AbstractDbArtifact stored = storeArtifact(TENANT, "file1.txt", new ByteArrayInputStream(bytes),
+                MessageDigest.getInstance("SHA1"), MessageDigest.getInstance("MD5"), null);
+
+        final MongoDBArtifactStore reactiveStore = new ReactiveMongoDBArtifactStore(gridFs, mongoDbFactory.getDb(),
+                reactiveMongoClient.getDatabase(mongoDbFactory.getDb().getName()), artifactStoreProperties);
+        final ReactiveGridFsArtifact loaded = (ReactiveGridFsArtifact) reactiveStore.getArtifactBySha1(TENANT,
+                stored.getHashes().getSha1());
+
+        assertThat(loaded.getContent().map(DataBuffer::readableByteCount).reduce(0, Integer::sum).block())
+                .isEqualTo(bytes.length);
+        try (final InputStream content = loaded.getFileInputStream()) {
+            assertThat(ByteStreams.toByteArray(content)).isEqualTo(bytes);
+        }
+        final int offset = 300 * 1024;
+        try (final InputStream range = loaded.getFileInputStream(offset, 10)) {
+            assertThat(ByteStreams.toByteArray(range)).isEqualTo(Arrays.copyOfRange(bytes, offset, offset + 10));
+        }
+        // a range across chunks and a range beyond the end of the artifact
+        try (final InputStream range = loaded.getFileInputStream(200 * 1024 + 5, 600 * 1024)) {
+            assertThat(ByteStreams.toByteArray(range))
+                    .isEqualTo(Arrays.copyOfRange(bytes, 200 * 1024 + 5, 800 * 1024 + 5));
+        }
+        try (final InputStream range = loaded.getFileInputStream(bytes.length - 17, 1024)) {
+            assertThat(ByteStreams.toByteArray(range))
+                    .isEqualTo(Arrays.copyOfRange(bytes, bytes.length - 17, bytes.length));
+        }
+        assertThat(loaded.getContent(bytes.length, 10).count().block()).isZero();
+    }
+
+    @Test
+    @Description("Verifies that artifacts are found and read with a secondary preferred read preference.")
+    public void readArtifactFromSecondaryPreferred() throws NoSuchAlgorithmException, IOException {
+
+        final byte[] bytes = new byte[300 * 1024];
+        new Random().nextBytes(bytes);
+
+        final AbstractDbArtifact stored = storeArtifact(TENANT, "file1.txt", new ByteArrayInputStream(bytes),
+                MessageDigest.getInstance("SHA1"), MessageDigest.getInstance("MD5"), null);
+
+        final MongoDBArtifactStoreProperties properties = new MongoDBArtifactStoreProperties();
+        properties.setDownloadReadPreference("secondaryPreferred");
+        final MongoDBArtifactStore secondaryStore = new MongoDBArtifactStore(gridFs, mongoDbFactory.getDb(),
+                properties);
+
+        final AbstractDbArtifact loaded = secondaryStore.getArtifactBySha1(TENANT, stored.getHashes().getSha1());
+        assertThat(loaded.getHashes().getSha1()).isEqualTo(stored.getHashes().getSha1());
+        try (final InputStream content = loaded.getFileInputStream()) {
+            assertThat(ByteStreams.toByteArray(content)).isEqualTo(bytes);
+        }
+        assertThat(secondaryStore.getArtifactBySha1(TENANT2, stored.getHashes().getSha1())).isNull();
+    }
+
+    @Test
+    @Description("Verifies that artifacts below the inline threshold are stored as a single document without "
+            + "chunks and are read from it.")
+    public void storeSmallArtifactInline() throws NoSuchAlgorithmException, IOException {
+
+        final byte[] bytes = new byte[1000];
+        new Random().nextBytes(bytes);
+
+        final MongoDBArtifactStoreProperties properties = new MongoDBArtifactStoreProperties();
+        properties.setInlineThreshold(1024);
+        final MongoDBArtifactStore inlineStore = new MongoDBArtifactStore(gridFs, mongoDbFactory.getDb(),
+                properties);
+
+        final AbstractDbArtifact stored = inlineStore.store(TENANT, new ByteArrayInputStream(bytes), "file1.txt",
+                "application/json", null);
+
+        final GridFSFile file = gridFs
+                .findOne(new Query().addCriteria(Criteria.where("filename").is(stored.getHashes().getSha1())));
+        assertThat(mongoDbFactory.getDb().getCollection(MongoDBArtifactStore.CHUNKS_COLLECTION)
+                .countDocuments(new Document(MongoDBArtifactStore.FILES_ID, file.getId()))).isZero();
+        assertThat(gridFs.findOne(new Query().addCriteria(Criteria.where("filename").regex("^TMP_")))).isNull();
+        assertThat(inlineStore.existsByTenantAndSha1(TENANT, stored.getHashes().getSha1())).isTrue();
+
+        final AbstractDbArtifact loaded = inlineStore.getArtifactBySha1(TENANT, stored.getHashes().getSha1());
+        assertThat(loaded.getSize()).isEqualTo(bytes.length);
+        assertThat(loaded.getContentType()).isEqualTo("application/json");
+        assertThat(loaded.getHashes().getMd5()).isEqualTo(stored.getHashes().getMd5());
+        try (final InputStream content = loaded.getFileInputStream()) {
+            assertThat(ByteStreams.toByteArray(content)).isEqualTo(bytes);
+        }
+
+        // the content is not part of the lookup but loaded when it is read
+        final AbstractDbArtifact removed = inlineStore.getArtifactBySha1(TENANT, stored.getHashes().getSha1());
+        mongoDbFactory.getDb().getCollection(MongoDBArtifactStore.FILES_COLLECTION)
+                .deleteOne(new Document("_id", file.getId()));
+        assertThatThrownBy(removed::getFileInputStream).isInstanceOf(ArtifactStoreException.class);
+    }
+
+    @Test
+    @Description("Verifies that the chunk size is selected by the size band of the artifact and that the "
+            + "read-ahead stream returns the content in order, also for ranges.")
+    public void readArtifactWithChunkSizeBandsAndReadAhead() throws NoSuchAlgorithmException, IOException {
+
+        final MongoDBArtifactStoreProperties properties = new MongoDBArtifactStoreProperties();
+        properties.getChunkSizes().put(0L, 1024);
+        properties.getChunkSizes().put(64L * 1024, 16 * 1024);
+        properties.setReadAheadChunks(3);
+        final MongoDBArtifactStore readAheadStore = new MongoDBArtifactStore(gridFs, mongoDbFactory.getDb(),
+                properties);
+
+        final byte[] small = new byte[1000];
+        new Random().nextBytes(small);
+        final byte[] large = new byte[200 * 1024 + 17];
+        new Random().nextBytes(large);
+
+        final String smallSha1 = readAheadStore
+                .store(TENANT, new ByteArrayInputStream(small), "small.bin", "application/json", null).getHashes()
+                .getSha1();
+        final String largeSha1 = readAheadStore
+                .store(TENANT, new ByteArrayInputStream(large), "large.bin", "application/json", null).getHashes()
+                .getSha1();
+
+        assertThat(gridFs.findOne(new Query().addCriteria(Criteria.where("filename").is(smallSha1))).getChunkSize())
+                .isEqualTo(1024);
+        assertThat(gridFs.findOne(new Query().addCriteria(Criteria.where("filename").is(largeSha1))).getChunkSize())
+                .isEqualTo(16 * 1024);
+
+        final GridFsArtifact loaded = (GridFsArtifact) readAheadStore.getArtifactBySha1(TENANT, largeSha1);
+        try (final InputStream content = loaded.getFileInputStream()) {
+            assertThat(ByteStreams.toByteArray(content)).isEqualTo(large);
+        }
+        final int offset = 100 * 1024 + 5;
+        final int length = 50 * 1024;
+        try (final InputStream range = loaded.getFileInputStream(offset, length)) {
+            assertThat(ByteStreams.toByteArray(range)).isEqualTo(Arrays.copyOfRange(large, offset, offset + length));
+        }
+    }
+
+    @Test
+    @Description("Verifies that chunk size bands which can never be selected are rejected.")
+    public void rejectChunkSizeBandAbovePeekLimit() {
+
+        final MongoDBArtifactStoreProperties properties = new MongoDBArtifactStoreProperties();
+        properties.getChunkSizes().put(MongoDBArtifactStore.MAX_CHUNK_SIZE_PEEK + 1, 4 * 1024 * 1024);
+
+        assertThatThrownBy(() -> new MongoDBArtifactStore(gridFs, mongoDbFactory.getDb(), properties))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @Description("Verifies that all hashes are stored in the metadata and GridFS does not compute an MD5 hash.")
+    public void storeHashesInMetadata() throws NoSuchAlgorithmException, IOException {
+
+        final byte[] bytes = new byte[128];
+        new Random().nextBytes(bytes);
+        final DbArtifactHash hash = new DbArtifactHash(
+                BaseEncoding.base16().lowerCase().encode(MessageDigest.getInstance("SHA1").digest(bytes)),
+                BaseEncoding.base16().lowerCase().encode(MessageDigest.getInstance("MD5").digest(bytes)),
+                BaseEncoding.base16().lowerCase().encode(MessageDigest.getInstance("SHA-256").digest(bytes)));
+
+        storeArtifact(TENANT, "file1.txt", new ByteArrayInputStream(bytes), MessageDigest.getInstance("SHA1"),
+                MessageDigest.getInstance("MD5"), hash);
+
+        final GridFSFile file = gridFs
+                .findOne(new Query().addCriteria(Criteria.where("filename").is(hash.getSha1())));
+        assertThat(file.getMD5()).isNull();
+
+        final AbstractDbArtifact loaded = artifactStoreUnderTest.getArtifactBySha1(TENANT, hash.getSha1());
+        assertThat(loaded.getHashes().getSha1()).isEqualTo(hash.getSha1());
+        assertThat(loaded.getHashes().getMd5()).isEqualTo(hash.getMd5());
+        assertThat(loaded.getHashes().getSha256()).isEqualTo(hash.getSha256());
+    }
+
+    @Test
+    @Description("Verifies that the indexes are created on startup and that no query of the repository "
+            + "scans the whole files collection.")
+    public void queriesUseIndexes() throws NoSuchAlgorithmException, IOException {
+
+        final String sha1 = storeRandomArtifactAndVerify(TENANT);
+
+        assertIndexScan(MongoDBArtifactStore.artifactFilter(TENANT, sha1));
+        assertIndexScan(MongoDBArtifactStore.legacyArtifactFilter(sha1));
+        assertIndexScan(MongoDBArtifactStore.tempFileFilter(sha1));
+        assertIndexScan(MongoDBArtifactStore.tenantFilter(TENANT));
+        assertIndexScan(MongoDBTempFileSweeper.orphanedFilter(new Date()));
+    }
+
+    @Test
+    @Description("Verifies that files stored before multi-tenancy are assigned to the configured tenant by the "
+            + "migration and that the fallback lookup can be switched off afterwards.")
+    public void migrateLegacyFiles() {
+
+        final byte[] hash = new byte[20];
+        new Random().nextBytes(hash);
+        final String legacySha1 = BaseEncoding.base16().lowerCase().encode(hash);
+        gridFs.store(generateInputStream(128), legacySha1);
+        assertThat(artifactStoreUnderTest.getArtifactBySha1(TENANT, legacySha1)).isNotNull();
+
+        final MongoDBArtifactStoreProperties.LegacyMigration migrationProperties =
+                new MongoDBArtifactStoreProperties.LegacyMigration();
+        migrationProperties.setTenant(TENANT2);
+        migrationProperties.setBatchSize(1);
+        new MongoDBLegacyTenantMigration(mongoDbFactory.getDb(), migrationProperties).run();
+
+        artifactStoreProperties.setLegacyFallback(false);
+        try {
+            assertThat(artifactStoreUnderTest.getArtifactBySha1(TENANT, legacySha1)).isNull();
+            assertThat(artifactStoreUnderTest.getArtifactBySha1(TENANT2, legacySha1)).isNotNull();
+        } finally {
+            artifactStoreProperties.setLegacyFallback(true);
+        }
+    }
+
+    @Test
+    @Description("Purges a tenant with several batches of files and their chunks by bulk deletes, other tenants "
+            + "keep their files.")
+    public void deleteTenantInBatches() throws NoSuchAlgorithmException, IOException {
+        final String purgedTenant = "purged_tenant";
+        final int fileCount = 250;
+
+        final String keptSha1 = storeRandomArtifactAndVerify(TENANT);
+        final MongoCollection<Document> files = mongoDbFactory.getDb()
+                .getCollection(MongoDBArtifactStore.FILES_COLLECTION);
+        final MongoCollection<Document> chunks = mongoDbFactory.getDb()
+                .getCollection(MongoDBArtifactStore.CHUNKS_COLLECTION);
+        final Binary data = new Binary(new byte[16]);
+        final List<Document> fileBatch = new ArrayList<>(fileCount);
+        final List<Document> chunkBatch = new ArrayList<>(2 * fileCount);
+        for (int i = 0; i < fileCount; i++) {
+            final ObjectId id = new ObjectId();
+            fileBatch.add(new Document("_id", id).append("filename", UUID.randomUUID().toString())
+                    .append("length", 32L).append("chunkSize", 16).append("uploadDate", new Date())
+                    .append("metadata", new Document("tenant", purgedTenant.toUpperCase())));
+            chunkBatch.add(new Document("files_id", id).append("n", 0).append("data", data));
+            chunkBatch.add(new Document("files_id", id).append("n", 1).append("data", data));
+        }
+        files.insertMany(fileBatch);
+        chunks.insertMany(chunkBatch);
+
+        final int purgeBatchSize = artifactStoreProperties.getPurgeBatchSize();
+        artifactStoreProperties.setPurgeBatchSize(100);
+        try {
+            artifactStoreUnderTest.deleteByTenant(purgedTenant);
+        } finally {
+            artifactStoreProperties.setPurgeBatchSize(purgeBatchSize);
+        }
+
+        assertThat(files.countDocuments(new Document("metadata.tenant", purgedTenant.toUpperCase()))).isZero();
+        assertThat(chunks.countDocuments(new Document("data", data))).isZero();
+        assertThat(artifactStoreUnderTest.getArtifactBySha1(TENANT, keptSha1)).isNotNull();
+    }
+
+    @Test
+    @Description("Verifies that the sweeper deletes orphaned temporary files older than the maximum age with their "
+            + "chunks, keeps younger ones and counts what it reclaimed.")
+    public void sweepOrphanedTempFiles() {
+
+        final ObjectId orphaned = gridFs.store(generateInputStream(1024), "TMP_" + UUID.randomUUID());
+        final ObjectId young = gridFs.store(generateInputStream(1024), "TMP_" + UUID.randomUUID());
+        mongoDbFactory.getDb().getCollection(MongoDBArtifactStore.FILES_COLLECTION).updateOne(
+                new Document("_id", orphaned),
+                new Document("$set", new Document("uploadDate", new Date(System.currentTimeMillis() - 7200_000))));
+
+        final MongoDBArtifactStoreProperties.TempFileSweep sweepProperties =
+                new MongoDBArtifactStoreProperties.TempFileSweep();
+        sweepProperties.setMaxAge(Duration.ofHours(1));
+        sweepProperties.setBatchSize(1);
+        final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+        assertThat(new MongoDBTempFileSweeper(mongoDbFactory.getDb(), sweepProperties, meterRegistry).sweep())
+                .isEqualTo(1);
+
+        assertThat(gridFs.findOne(new Query().addCriteria(Criteria.where("_id").is(orphaned)))).isNull();
+        assertThat(mongoDbFactory.getDb().getCollection(MongoDBArtifactStore.CHUNKS_COLLECTION)
+                .countDocuments(new Document(MongoDBArtifactStore.FILES_ID, orphaned))).isZero();
+        assertThat(gridFs.findOne(new Query().addCriteria(Criteria.where("_id").is(young)))).isNotNull();
+        assertThat(meterRegistry.get("hawkbit.artifact.repository.mongo.tempfiles.deleted").counter().count())
+                .isEqualTo(1);
+        assertThat(meterRegistry.get("hawkbit.artifact.repository.mongo.tempfiles.deleted.size").counter().count())
+                .isEqualTo(1024);
+
+        gridFs.delete(new Query().addCriteria(Criteria.where("_id").is(young)));
+    }
+
+    @Test
+    @Description("Verifies that the sweeper deletes the chunks without file older than the maximum age and keeps "
+            + "younger ones and the chunks of existing files.")
+    public void sweepOrphanedChunks() {
+        final MongoCollection<Document> files = mongoDbFactory.getDb()
+                .getCollection(MongoDBArtifactStore.FILES_COLLECTION);
+        final MongoCollection<Document> chunks = mongoDbFactory.getDb()
+                .getCollection(MongoDBArtifactStore.CHUNKS_COLLECTION);
+        final Date old = new Date(System.currentTimeMillis() - 7200_000);
+        final ObjectId orphaned1 = new ObjectId(old);
+        final ObjectId orphaned2 = new ObjectId(old);
+        final ObjectId existing = new ObjectId(old);
+        final ObjectId young = new ObjectId();
+        files.insertOne(new Document("_id", existing).append("filename", UUID.randomUUID().toString())
+                .append("length", 32L).append("chunkSize", 16).append("uploadDate", old));
+        final Binary data = new Binary(new byte[16]);
+        for (final ObjectId fileId : Arrays.asList(orphaned1, orphaned2, existing, young)) {
+            chunks.insertMany(Arrays.asList(new Document("files_id", fileId).append("n", 0).append("data", data),
+                    new Document("files_id", fileId).append("n", 1).append("data", data)));
+        }
+
+        final MongoDBArtifactStoreProperties.TempFileSweep sweepProperties =
+                new MongoDBArtifactStoreProperties.TempFileSweep();
+        sweepProperties.setMaxAge(Duration.ofHours(1));
+        sweepProperties.setBatchSize(1);
+        final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        new MongoDBTempFileSweeper(mongoDbFactory.getDb(), sweepProperties, meterRegistry).sweep();
+
+        assertThat(chunks.countDocuments(new Document(MongoDBArtifactStore.FILES_ID, orphaned1))).isZero();
+        assertThat(chunks.countDocuments(new Document(MongoDBArtifactStore.FILES_ID, orphaned2))).isZero();
+        assertThat(chunks.countDocuments(new Document(MongoDBArtifactStore.FILES_ID, existing))).isEqualTo(2);
+        assertThat(chunks.countDocuments(new Document(MongoDBArtifactStore.FILES_ID, young))).isEqualTo(2);
+        assertThat(meterRegistry.get("hawkbit.artifact.repository.mongo.chunks.deleted").counter().count())
+                .isEqualTo(4);
+
+        files.deleteOne(new Document("_id", existing));
+        chunks.deleteMany(new Document(MongoDBArtifactStore.FILES_ID,
+                new Document("$in", Arrays.asList(existing, young))));
+    }
+
+    private void assertIndexScan(final Bson query) {
+        final BsonDocument filter = query.toBsonDocument(Document.class, mongoDbFactory.getDb().getCodecRegistry());
+        final Document explain = mongoDbFactory.getDb().runCommand(new Document("explain",
+                new Document("find", MongoDBArtifactStore.FILES_COLLECTION).append("filter", filter))
+                        .append("verbosity", "queryPlanner"));
+        final Document winningPlan = explain.get("queryPlanner", Document.class).get("winningPlan", Document.class);
+
+        assertThat(usesCollectionScan(winningPlan)).as("Query %s uses an index: %s", filter.toJson(),
+                winningPlan.toJson()).isFalse();
+    }
+
+    private static boolean usesCollectionScan(final Object plan) {
+        if (plan instanceof Document) {
+            return "COLLSCAN".equals(((Document) plan).get("stage"))
+                    || ((Document) plan).values().stream().anyMatch(MongoDBArtifactStoreTest::usesCollectionScan);
+        }
+        if (plan instanceof List) {
+            return ((List<?>) plan).stream().anyMatch(MongoDBArtifactStoreTest::usesCollectionScan);
+        }
+        return false;
+    }
+
     @Step
     private String storeRandomArtifactAndVerify(final String tenant) throws NoSuchAlgorithmException, IOException {
         final int filelengthBytes = 128;
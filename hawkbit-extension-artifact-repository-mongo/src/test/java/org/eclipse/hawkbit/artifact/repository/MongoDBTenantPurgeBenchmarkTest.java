@@ -0,0 +1,140 @@
+/**
+ * Copyright (c) 2020 Bosch.IO GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.artifact.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.bson.Document;
+import org.bson.types.Binary;
+import org.bson.types.ObjectId;
+import org.eclipse.hawkbit.artifact.TestConfiguration;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Description;
+import org.springframework.data.mongodb.MongoDbFactory;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.gridfs.GridFsOperations;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.mongodb.client.MongoCollection;
+
+import io.qameta.allure.Feature;
+import io.qameta.allure.Story;
+
+/**
+ * Compares the batched purge of a tenant with the deletion by
+ * {@link GridFsOperations#delete(Query)} which deletes file by file. The
+ * benchmark is skipped unless it is enabled by the system property
+ * {@value #ENABLED}, e.g. by
+ * {@code mvn test -Dtest=MongoDBTenantPurgeBenchmarkTest -Dhawkbit.mongo.benchmark=true}.
+ * The number of files per tenant is set by the system property
+ * {@value #FILE_COUNT}.
+ */
+@Feature("Performance Tests - Repository")
+@Story("Artifact Store MongoDB")
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = {MongoDBArtifactStoreAutoConfiguration.class, TestConfiguration.class}, properties = {
+        "spring.data.mongodb.port=0", "spring.mongodb.embedded.version=3.5.5",
+        "spring.mongodb.embedded.features=sync_delay,no_http_interface_arg"})
+public class MongoDBTenantPurgeBenchmarkTest {
+    private static final Logger LOG = LoggerFactory.getLogger(MongoDBTenantPurgeBenchmarkTest.class);
+
+    private static final String ENABLED = "hawkbit.mongo.benchmark";
+    private static final String FILE_COUNT = "hawkbit.mongo.benchmark.files";
+    private static final int INSERT_BATCH_SIZE = 10_000;
+
+    @Autowired
+    private MongoDBArtifactStore artifactStoreUnderTest;
+
+    @Autowired
+    private GridFsOperations gridFs;
+
+    @Autowired
+    private MongoDbFactory mongoDbFactory;
+
+    @BeforeClass
+    public static void benchmarkEnabled() {
+        Assume.assumeTrue("Benchmark is enabled by -D" + ENABLED + "=true", Boolean.getBoolean(ENABLED));
+    }
+
+    @Test
+    @Description("Purges a tenant with many files by batched bulk deletes and another one by the file by file "
+            + "deletion of GridFS, and verifies that the batched purge is faster.")
+    public void purgeTenantFasterThanGridFsDelete() {
+        final int fileCount = Integer.getInteger(FILE_COUNT, 100_000);
+
+        insertFiles("BATCHED_TENANT", fileCount);
+        final long batchedStart = System.nanoTime();
+        artifactStoreUnderTest.deleteByTenant("batched_tenant");
+        final long batchedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - batchedStart);
+        assertPurged("BATCHED_TENANT");
+
+        insertFiles("GRIDFS_TENANT", fileCount);
+        final long gridFsStart = System.nanoTime();
+        gridFs.delete(
+                new Query().addCriteria(Criteria.where(MongoDBArtifactStore.TENANT_QUERY).is("GRIDFS_TENANT")));
+        final long gridFsMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - gridFsStart);
+        assertPurged("GRIDFS_TENANT");
+
+        LOG.info("Deleted a tenant with {} files in {} ms by batched bulk deletes and in {} ms by GridFS", fileCount,
+                batchedMillis, gridFsMillis);
+        assertThat(batchedMillis).isLessThan(gridFsMillis);
+    }
+
+    private void insertFiles(final String tenant, final int fileCount) {
+        final Binary data = chunkData(tenant);
+        for (int inserted = 0; inserted < fileCount; inserted += INSERT_BATCH_SIZE) {
+            final int batchSize = Math.min(INSERT_BATCH_SIZE, fileCount - inserted);
+            final List<Document> fileBatch = new ArrayList<>(batchSize);
+            final List<Document> chunkBatch = new ArrayList<>(batchSize);
+            for (int i = 0; i < batchSize; i++) {
+                final ObjectId id = new ObjectId();
+                fileBatch.add(new Document("_id", id).append("filename", UUID.randomUUID().toString())
+                        .append("length", (long) data.length()).append("chunkSize", 261120)
+                        .append("uploadDate", new Date())
+                        .append("metadata", new Document("tenant", tenant)));
+                chunkBatch.add(new Document("files_id", id).append("n", 0).append("data", data));
+            }
+            files().insertMany(fileBatch);
+            chunks().insertMany(chunkBatch);
+        }
+    }
+
+    private void assertPurged(final String tenant) {
+        assertThat(files().countDocuments(new Document("metadata.tenant", tenant))).isZero();
+        assertThat(chunks().countDocuments(new Document("data", chunkData(tenant)))).isZero();
+    }
+
+    // the chunks of a tenant are identified by their data
+    private static Binary chunkData(final String tenant) {
+        return new Binary(tenant.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private MongoCollection<Document> files() {
+        return mongoDbFactory.getDb().getCollection(MongoDBArtifactStore.FILES_COLLECTION);
+    }
+
+    private MongoCollection<Document> chunks() {
+        return mongoDbFactory.getDb().getCollection(MongoDBArtifactStore.CHUNKS_COLLECTION);
+    }
+}
@@ -8,6 +8,7 @@
  */
 package org.eclipse.hawkbit.artifact.repository;
 
+import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 
 import org.eclipse.hawkbit.artifact.repository.model.AbstractDbArtifact;
@@ -15,6 +16,7 @@ import org.eclipse.hawkbit.artifact.repository.model.DbArtifactHash;
 import org.springframework.util.Assert;
 
 import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.GetObjectRequest;
 
 /**
  * An {@link AbstractDbArtifact} implementation which retrieves the
@@ -42,6 +44,29 @@ public class S3Artifact extends AbstractDbArtifact {
         return amazonS3.getObject(s3Properties.getBucketName(), key).getObjectContent();
     }
 
+    /**
+     * Retrieves a range of the artifact by means of a ranged GET request, e.g.
+     * to resume a download without reading the already transferred bytes
+     * again.
+     *
+     * @param offset
+     *            position of the first byte to read
+     * @param length
+     *            number of bytes to read
+     * @return the {@link InputStream} of the requested range
+     */
+    public InputStream getFileInputStream(final long offset, final long length) {
+        Assert.isTrue(offset >= 0, "Offset cannot be negative");
+        Assert.isTrue(length >= 0, "Length cannot be negative");
+        if (length == 0) {
+            return new ByteArrayInputStream(new byte[0]);
+        }
+        return amazonS3
+                .getObject(new GetObjectRequest(s3Properties.getBucketName(), key).withRange(offset,
+                        offset + length - 1))
+                .getObjectContent();
+    }
+
     @Override
     public String toString() {
         return "S3Artifact [key=" + key + ", getArtifactId()=" + getArtifactId() + ", getHashes()=" + getHashes()
@@ -0,0 +1,143 @@
+/**
+ * Copyright (c) 2020 Bosch.IO GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.artifact.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.DeleteObjectsRequest;
+import com.amazonaws.services.s3.model.DeleteObjectsRequest.KeyVersion;
+import com.amazonaws.services.s3.model.ListObjectsRequest;
+import com.amazonaws.services.s3.model.MultiObjectDeleteException;
+import com.amazonaws.services.s3.model.ObjectListing;
+
+/**
+ * Deletes all objects below a key prefix. Every listed page of keys is deleted
+ * by a single multi-object delete request while the listing continues, with at
+ * most {@link S3RepositoryProperties#getDeleteConcurrency()} delete requests
+ * in flight. Keys which cannot be deleted are collected and reported at the
+ * end instead of stopping at the first failure.
+ */
+class S3BatchDelete {
+    private static final Logger LOG = LoggerFactory.getLogger(S3BatchDelete.class);
+
+    /**
+     * Maximum number of keys S3 accepts in a single multi-object delete
+     * request.
+     */
+    static final int MAX_KEYS_PER_REQUEST = 1000;
+
+    private final AmazonS3 amazonS3;
+    private final S3RepositoryProperties s3Properties;
+
+    private final AtomicLong deleted = new AtomicLong();
+    private final Queue<String> failedKeys = new ConcurrentLinkedQueue<>();
+
+    S3BatchDelete(final AmazonS3 amazonS3, final S3RepositoryProperties s3Properties) {
+        this.amazonS3 = amazonS3;
+        this.s3Properties = s3Properties;
+    }
+
+    /**
+     * Deletes all objects with the given key prefix.
+     *
+     * @param prefix
+     *            the key prefix
+     *
+     * @throws ArtifactStoreException
+     *             if any of the objects could not be deleted
+     */
+    void deleteByPrefix(final String prefix) {
+        final int concurrency = Math.max(1, s3Properties.getDeleteConcurrency());
+        final ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        final Semaphore inFlight = new Semaphore(concurrency);
+        final List<Future<?>> batches = new ArrayList<>();
+
+        try {
+            ObjectListing listing = amazonS3.listObjects(new ListObjectsRequest()
+                    .withBucketName(s3Properties.getBucketName()).withPrefix(prefix)
+                    .withMaxKeys(MAX_KEYS_PER_REQUEST));
+            while (true) {
+                final List<KeyVersion> keys = listing.getObjectSummaries().stream()
+                        .map(summary -> new KeyVersion(summary.getKey())).collect(Collectors.toList());
+                if (!keys.isEmpty()) {
+                    // bounds the number of listed but not yet deleted pages
+                    inFlight.acquire();
+                    batches.add(executor.submit(() -> {
+                        try {
+                            deleteBatch(prefix, keys);
+                        } finally {
+                            inFlight.release();
+                        }
+                    }));
+                }
+
+                if (!listing.isTruncated()) {
+                    break;
+                }
+                listing = amazonS3.listNextBatchOfObjects(listing);
+            }
+
+            for (final Future<?> batch : batches) {
+                batch.get();
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ArtifactStoreException("Interrupted while deleting S3 objects with prefix " + prefix, e);
+        } catch (final ExecutionException e) {
+            throw new ArtifactStoreException("Failed to delete S3 objects with prefix " + prefix, e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        LOG.info("Deleted {} S3 objects with prefix {} from bucket {}", deleted.get(), prefix,
+                s3Properties.getBucketName());
+
+        if (!failedKeys.isEmpty()) {
+            throw new ArtifactStoreException("Failed to delete " + failedKeys.size() + " S3 objects with prefix "
+                    + prefix + " from bucket " + s3Properties.getBucketName());
+        }
+    }
+
+    private void deleteBatch(final String prefix, final List<KeyVersion> keys) {
+        final DeleteObjectsRequest request = new DeleteObjectsRequest(s3Properties.getBucketName()).withKeys(keys)
+                .withQuiet(true);
+        long total;
+        try {
+            amazonS3.deleteObjects(request);
+            total = deleted.addAndGet(keys.size());
+        } catch (final MultiObjectDeleteException e) {
+            e.getErrors().forEach(error -> {
+                LOG.warn("Failed to delete S3 object {}: {} {}", error.getKey(), error.getCode(), error.getMessage());
+                failedKeys.add(error.getKey());
+            });
+            total = deleted.addAndGet((long) keys.size() - e.getErrors().size());
+        } catch (final AmazonClientException e) {
+            LOG.warn("Failed to delete batch of {} S3 objects with prefix {}", keys.size(), prefix, e);
+            keys.forEach(key -> failedKeys.add(key.getKey()));
+            total = deleted.get();
+        }
+
+        LOG.debug("Deleted {} S3 objects with prefix {} so far, {} failed", total, prefix, failedKeys.size());
+    }
+}
@@ -0,0 +1,167 @@
+/**
+ * Copyright (c) 2020 Bosch.IO GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.artifact.repository;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadResult;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PartETag;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.google.common.io.BaseEncoding;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Files;
+
+/**
+ * Uploads a file to S3 by means of the multipart upload API. The file is split
+ * into parts of {@link S3RepositoryProperties#getMultipartUploadPartSize()}
+ * which are uploaded in parallel by
+ * {@link S3RepositoryProperties#getMultipartUploadConcurrency()} threads. Every
+ * part is sent with its Content-MD5 so S3 verifies each part on arrival. In
+ * case any part fails the multipart upload is aborted so no orphaned parts
+ * remain in the bucket.
+ */
+class S3MultipartUpload {
+    private static final Logger LOG = LoggerFactory.getLogger(S3MultipartUpload.class);
+
+    /**
+     * Minimum part size accepted by S3 (except for the last part).
+     */
+    static final long MIN_PART_SIZE = 5L * 1024 * 1024;
+
+    /**
+     * Maximum number of parts accepted by S3 for a single upload.
+     */
+    static final int MAX_PARTS = 10_000;
+
+    private final AmazonS3 amazonS3;
+    private final S3RepositoryProperties s3Properties;
+
+    S3MultipartUpload(final AmazonS3 amazonS3, final S3RepositoryProperties s3Properties) {
+        this.amazonS3 = amazonS3;
+        this.s3Properties = s3Properties;
+    }
+
+    /**
+     * Uploads the given file in parts.
+     *
+     * @param key
+     *            the object key
+     * @param file
+     *            the file to upload
+     * @param objectMetadata
+     *            the meta data of the object to create
+     * @return the result of the completed multipart upload
+     */
+    CompleteMultipartUploadResult upload(final String key, final File file, final ObjectMetadata objectMetadata) {
+        final String bucketName = s3Properties.getBucketName();
+        final long length = file.length();
+        final long partSize = partSize(length);
+
+        final String uploadId = amazonS3
+                .initiateMultipartUpload(new InitiateMultipartUploadRequest(bucketName, key, objectMetadata))
+                .getUploadId();
+
+        LOG.debug("Initiated multipart upload {} for key {} with part size {}", uploadId, key, partSize);
+
+        final ExecutorService executor = Executors
+                .newFixedThreadPool(Math.max(1, s3Properties.getMultipartUploadConcurrency()));
+        try {
+            final List<Future<PartETag>> parts = new ArrayList<>();
+            long offset = 0;
+            int partNumber = 1;
+            do {
+                final long size = Math.min(partSize, length - offset);
+                final UploadPartRequest request = new UploadPartRequest().withBucketName(bucketName).withKey(key)
+                        .withUploadId(uploadId).withPartNumber(partNumber).withFile(file).withFileOffset(offset)
+                        .withPartSize(size).withLastPart(offset + size >= length);
+                parts.add(executor.submit(() -> uploadPart(request)));
+                offset += size;
+                partNumber++;
+            } while (offset < length);
+
+            final List<PartETag> partETags = new ArrayList<>(parts.size());
+            for (final Future<PartETag> part : parts) {
+                partETags.add(part.get());
+            }
+
+            return amazonS3.completeMultipartUpload(
+                    new CompleteMultipartUploadRequest(bucketName, key, uploadId, partETags));
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            abort(executor, key, uploadId);
+            throw new ArtifactStoreException("Interrupted while storing artifact into S3", e);
+        } catch (final ExecutionException e) {
+            abort(executor, key, uploadId);
+            throw new ArtifactStoreException("Failed to store artifact into S3 ", e.getCause());
+        } catch (final AmazonClientException e) {
+            abort(executor, key, uploadId);
+            throw new ArtifactStoreException("Failed to store artifact into S3 ", e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private PartETag uploadPart(final UploadPartRequest request) throws IOException {
+        request.setMd5Digest(md5Base64(request.getFile(), request.getFileOffset(), request.getPartSize()));
+        final PartETag partETag = amazonS3.uploadPart(request).getPartETag();
+        LOG.trace("Uploaded part {} of multipart upload {}", request.getPartNumber(), request.getUploadId());
+        return partETag;
+    }
+
+    private void abort(final ExecutorService executor, final String key, final String uploadId) {
+        // stop pending parts first so nothing is uploaded after the abort
+        executor.shutdownNow();
+        LOG.warn("Aborting multipart upload {} for key {}", uploadId, key);
+        try {
+            amazonS3.abortMultipartUpload(new AbortMultipartUploadRequest(s3Properties.getBucketName(), key, uploadId));
+        } catch (final AmazonClientException e) {
+            LOG.error("Failed to abort multipart upload {} for key {}", uploadId, key, e);
+        }
+    }
+
+    private long partSize(final long length) {
+        final long minPartSizeForLength = (length + MAX_PARTS - 1) / MAX_PARTS;
+        return Math.max(Math.max(s3Properties.getMultipartUploadPartSize(), MIN_PART_SIZE), minPartSizeForLength);
+    }
+
+    private static String md5Base64(final File file, final long offset, final long size) throws IOException {
+        final MessageDigest md5;
+        try {
+            md5 = MessageDigest.getInstance("MD5");
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+
+        try (final InputStream inputStream = new DigestInputStream(
+                Files.asByteSource(file).slice(offset, size).openBufferedStream(), md5)) {
+            ByteStreams.exhaust(inputStream);
+        }
+        return BaseEncoding.base64().encode(md5.digest());
+    }
+}
@@ -13,6 +13,7 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.HttpURLConnection;
 
 import org.eclipse.hawkbit.artifact.repository.model.AbstractDbArtifact;
 import org.eclipse.hawkbit.artifact.repository.model.DbArtifactHash;
@@ -24,12 +25,11 @@ import com.amazonaws.AmazonClientException;
 import com.amazonaws.RequestClientOptions;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.Headers;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadResult;
 import com.amazonaws.services.s3.model.DeleteObjectRequest;
-import com.amazonaws.services.s3.model.ObjectListing;
 import com.amazonaws.services.s3.model.ObjectMetadata;
 import com.amazonaws.services.s3.model.PutObjectResult;
-import com.amazonaws.services.s3.model.S3Object;
-import com.amazonaws.services.s3.model.S3ObjectSummary;
 import com.google.common.io.BaseEncoding;
 
 /**
@@ -49,6 +49,12 @@ import com.google.common.io.BaseEncoding;
 public class S3Repository extends AbstractArtifactRepository {
     private static final Logger LOG = LoggerFactory.getLogger(S3Repository.class);
 
+    /**
+     * User meta data key of the base16 MD5 hash of objects which have been
+     * stored by multipart upload.
+     */
+    static final String MD5_USER_METADATA = "md5";
+
     private final AmazonS3 amazonS3;
     private final S3RepositoryProperties s3Properties;
 
@@ -83,6 +89,10 @@ public class S3Repository extends AbstractArtifactRepository {
             return s3Artifact;
         }
 
+        if (file.length() >= s3Properties.getMultipartUploadThreshold()) {
+            return storeMultipart(key, base16Hashes, contentType, file, s3Artifact);
+        }
+
         try (final InputStream inputStream = new BufferedInputStream(new FileInputStream(file),
                 RequestClientOptions.DEFAULT_STREAM_BUFFER_SIZE)) {
             final ObjectMetadata objectMetadata = createObjectMetadata(base16Hashes.getMd5(), contentType, file);
@@ -98,6 +108,27 @@ public class S3Repository extends AbstractArtifactRepository {
         }
     }
 
+    private S3Artifact storeMultipart(final String key, final DbArtifactHash base16Hashes, final String contentType,
+            final File file, final S3Artifact s3Artifact) {
+        // the Content-MD5 of a multipart object cannot be verified by S3 as a
+        // whole (every part is verified instead) and its ETag is no MD5 hash,
+        // so the MD5 is kept as user meta data
+        final ObjectMetadata objectMetadata = new ObjectMetadata();
+        objectMetadata.setContentType(contentType);
+        objectMetadata.addUserMetadata(MD5_USER_METADATA, base16Hashes.getMd5());
+        if (s3Properties.isServerSideEncryption()) {
+            objectMetadata.setHeader(Headers.SERVER_SIDE_ENCRYPTION, s3Properties.getServerSideEncryptionAlgorithm());
+        }
+
+        final CompleteMultipartUploadResult result = new S3MultipartUpload(amazonS3, s3Properties).upload(key, file,
+                objectMetadata);
+
+        LOG.debug("Artifact {} stored on S3 bucket {} by multipart upload with server side Etag {}", key,
+                s3Properties.getBucketName(), result.getETag());
+
+        return s3Artifact;
+    }
+
     private S3Artifact createS3Artifact(final String tenant, final DbArtifactHash hashes, final String contentType,
             final File file) {
         return new S3Artifact(amazonS3, s3Properties, objectKey(tenant, hashes.getSha1()), hashes.getSha1(), hashes,
@@ -133,24 +164,36 @@ public class S3Repository extends AbstractArtifactRepository {
         final String key = objectKey(tenant, sha1Hash);
 
         LOG.info("Retrieving S3 object from bucket {} and key {}", s3Properties.getBucketName(), key);
-        try (final S3Object s3Object = amazonS3.getObject(s3Properties.getBucketName(), key)) {
-            if (s3Object == null) {
+
+        // a HEAD request is sufficient as the content is only streamed on
+        // demand by the S3Artifact. Opening and closing the content stream
+        // here would abort the HTTP connection and evict it from the pool.
+        final ObjectMetadata s3ObjectMetadata;
+        try {
+            s3ObjectMetadata = amazonS3.getObjectMetadata(s3Properties.getBucketName(), key);
+        } catch (final AmazonS3Exception e) {
+            if (e.getStatusCode() == HttpURLConnection.HTTP_NOT_FOUND) {
                 return null;
             }
+            throw e;
+        }
 
-            final ObjectMetadata s3ObjectMetadata = s3Object.getObjectMetadata();
-
-            // the MD5Content is stored in the ETag
-            return new S3Artifact(amazonS3, s3Properties, key, sha1Hash,
-                    new DbArtifactHash(sha1Hash,
-                            BaseEncoding.base16().lowerCase()
-                                    .encode(BaseEncoding.base64().decode(s3ObjectMetadata.getETag())),
-                            null),
-                    s3ObjectMetadata.getContentLength(), s3ObjectMetadata.getContentType());
-        } catch (final IOException e) {
-            LOG.error("Could not verify S3Object", e);
+        if (s3ObjectMetadata == null) {
             return null;
         }
+
+        return new S3Artifact(amazonS3, s3Properties, key, sha1Hash,
+                new DbArtifactHash(sha1Hash, md5Base16(s3ObjectMetadata), null), s3ObjectMetadata.getContentLength(),
+                s3ObjectMetadata.getContentType());
+    }
+
+    private static String md5Base16(final ObjectMetadata s3ObjectMetadata) {
+        final String md5Base16 = s3ObjectMetadata.getUserMetaDataOf(MD5_USER_METADATA);
+        if (md5Base16 != null) {
+            return md5Base16;
+        }
+        // the MD5Content is stored in the ETag
+        return BaseEncoding.base16().lowerCase().encode(BaseEncoding.base64().decode(s3ObjectMetadata.getETag()));
     }
 
     @Override
@@ -164,15 +207,7 @@ public class S3Repository extends AbstractArtifactRepository {
 
         LOG.info("Deleting S3 object folder (tenant) from bucket {} and key {}", s3Properties.getBucketName(), folder);
 
-        // Delete artifacts
-        ObjectListing objects = amazonS3.listObjects(s3Properties.getBucketName(), folder + "/");
-        do {
-            for (final S3ObjectSummary objectSummary : objects.getObjectSummaries()) {
-                amazonS3.deleteObject(s3Properties.getBucketName(), objectSummary.getKey());
-            }
-            objects = amazonS3.listNextBatchOfObjects(objects);
-        } while (objects.isTruncated());
-
+        new S3BatchDelete(amazonS3, s3Properties).deleteByPrefix(folder + "/");
     }
 
 }
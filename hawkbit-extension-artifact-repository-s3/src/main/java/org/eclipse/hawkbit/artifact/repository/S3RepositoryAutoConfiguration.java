@@ -8,6 +8,7 @@
  */
 package org.eclipse.hawkbit.artifact.repository;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
@@ -24,6 +25,8 @@ import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.AmazonS3Client;
 import com.amazonaws.services.s3.AmazonS3ClientBuilder;
 
+import io.micrometer.core.instrument.MeterRegistry;
+
 /**
  * The Spring auto-configuration to register the necessary beans for the S3
  * artifact repository implementation.
@@ -99,4 +102,14 @@ public class S3RepositoryAutoConfiguration {
     public ArtifactRepository artifactRepository(final S3RepositoryProperties s3Properties) {
         return new S3Repository(amazonS3(), s3Properties);
     }
+
+    /**
+     * @return {@link ArtifactRepositoryDecoratingPostProcessor} which reports
+     *         the metrics of the S3 repository
+     */
+    @Bean
+    static ArtifactRepositoryDecoratingPostProcessor s3RepositoryInstrumentation(
+            final ObjectProvider<MeterRegistry> meterRegistry) {
+        return ArtifactRepositoryInstrumentation.postProcessor("s3", S3Repository.class, meterRegistry);
+    }
 }
@@ -23,6 +23,30 @@ public class S3RepositoryProperties {
     private boolean serverSideEncryption = false;
     private String serverSideEncryptionAlgorithm = SSEAlgorithm.AES256.getAlgorithm();
 
+    /**
+     * Artifacts with a size equal or above this threshold (in bytes) are
+     * uploaded in parallel parts by means of the S3 multipart upload API.
+     */
+    private long multipartUploadThreshold = 100L * 1024 * 1024;
+
+    /**
+     * Size of a single part (in bytes) in case of a multipart upload. S3
+     * requires at least 5 MB per part.
+     */
+    private long multipartUploadPartSize = 16L * 1024 * 1024;
+
+    /**
+     * Number of parts of a single multipart upload that are uploaded in
+     * parallel.
+     */
+    private int multipartUploadConcurrency = 4;
+
+    /**
+     * Number of multi-object delete requests which are executed in parallel
+     * when all artifacts of a tenant are deleted.
+     */
+    private int deleteConcurrency = 4;
+
     public String getBucketName() {
         return bucketName;
     }
@@ -46,4 +70,36 @@ public class S3RepositoryProperties {
     public void setServerSideEncryptionAlgorithm(final String serverSideEncryptionAlgorithm) {
         this.serverSideEncryptionAlgorithm = serverSideEncryptionAlgorithm;
     }
+
+    public long getMultipartUploadThreshold() {
+        return multipartUploadThreshold;
+    }
+
+    public void setMultipartUploadThreshold(final long multipartUploadThreshold) {
+        this.multipartUploadThreshold = multipartUploadThreshold;
+    }
+
+    public long getMultipartUploadPartSize() {
+        return multipartUploadPartSize;
+    }
+
+    public void setMultipartUploadPartSize(final long multipartUploadPartSize) {
+        this.multipartUploadPartSize = multipartUploadPartSize;
+    }
+
+    public int getMultipartUploadConcurrency() {
+        return multipartUploadConcurrency;
+    }
+
+    public void setMultipartUploadConcurrency(final int multipartUploadConcurrency) {
+        this.multipartUploadConcurrency = multipartUploadConcurrency;
+    }
+
+    public int getDeleteConcurrency() {
+        return deleteConcurrency;
+    }
+
+    public void setDeleteConcurrency(final int deleteConcurrency) {
+        this.deleteConcurrency = deleteConcurrency;
+    }
 }
@@ -26,7 +26,14 @@ import java.io.OutputStream;
 import java.security.DigestOutputStream;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.eclipse.hawkbit.artifact.repository.model.AbstractDbArtifact;
 import org.eclipse.hawkbit.artifact.repository.model.DbArtifactHash;
@@ -39,10 +46,27 @@ import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.MockitoJUnitRunner;
 
+import com.amazonaws.AmazonClientException;
 import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadResult;
+import com.amazonaws.services.s3.model.DeleteObjectsRequest;
+import com.amazonaws.services.s3.model.DeleteObjectsRequest.KeyVersion;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadResult;
+import com.amazonaws.services.s3.model.ListObjectsRequest;
+import com.amazonaws.services.s3.model.MultiObjectDeleteException;
+import com.amazonaws.services.s3.model.MultiObjectDeleteException.DeleteError;
+import com.amazonaws.services.s3.model.ObjectListing;
 import com.amazonaws.services.s3.model.ObjectMetadata;
 import com.amazonaws.services.s3.model.PutObjectResult;
 import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.amazonaws.services.s3.model.UploadPartResult;
 import com.google.common.io.BaseEncoding;
 import com.google.common.io.ByteStreams;
 
@@ -78,6 +102,21 @@ public class S3RepositoryTest {
     @Captor
     private ArgumentCaptor<InputStream> inputStreamCaptor;
 
+    @Captor
+    private ArgumentCaptor<GetObjectRequest> getObjectRequestCaptor;
+
+    @Captor
+    private ArgumentCaptor<DeleteObjectsRequest> deleteObjectsRequestCaptor;
+
+    @Captor
+    private ArgumentCaptor<InitiateMultipartUploadRequest> initiateRequestCaptor;
+
+    @Captor
+    private ArgumentCaptor<UploadPartRequest> uploadPartRequestCaptor;
+
+    @Captor
+    private ArgumentCaptor<CompleteMultipartUploadRequest> completeRequestCaptor;
+
     private final S3RepositoryProperties s3Properties = new S3RepositoryProperties();
     private S3Repository s3RepositoryUnderTest;
 
@@ -110,6 +149,72 @@ public class S3RepositoryTest {
         assertThat(recordedObjectMetadata.getContentLength()).isEqualTo(rndBytes.length);
     }
 
+    @Test
+    @Description("Verifies that artifacts above the multipart threshold are uploaded in parts with the MD5 of every part")
+    public void storeAboveThresholdUsesMultipartUpload() throws IOException, NoSuchAlgorithmException {
+        final byte[] rndBytes = randomBytes();
+        final String knownSHA1 = getSha1OfBytes(rndBytes);
+        final String knownMD5 = getMd5OfBytes(rndBytes);
+        final String knownContentType = "application/octet-stream";
+        s3Properties.setMultipartUploadThreshold(rndBytes.length);
+
+        final InitiateMultipartUploadResult initiateResult = new InitiateMultipartUploadResult();
+        initiateResult.setUploadId("uploadId");
+        final UploadPartResult uploadPartResult = new UploadPartResult();
+        uploadPartResult.setPartNumber(1);
+        uploadPartResult.setETag("etag");
+        when(amazonS3Mock.initiateMultipartUpload(any())).thenReturn(initiateResult);
+        when(amazonS3Mock.uploadPart(any())).thenReturn(uploadPartResult);
+        when(amazonS3Mock.completeMultipartUpload(any())).thenReturn(new CompleteMultipartUploadResult());
+
+        // test
+        storeRandomBytes(rndBytes, knownContentType);
+
+        // verify
+        Mockito.verify(amazonS3Mock, never()).putObject(any(), any(), any(), any());
+        Mockito.verify(amazonS3Mock).initiateMultipartUpload(initiateRequestCaptor.capture());
+        Mockito.verify(amazonS3Mock).uploadPart(uploadPartRequestCaptor.capture());
+        Mockito.verify(amazonS3Mock).completeMultipartUpload(completeRequestCaptor.capture());
+
+        final InitiateMultipartUploadRequest initiateRequest = initiateRequestCaptor.getValue();
+        assertThat(initiateRequest.getKey()).isEqualTo(TENANT.toUpperCase() + "/" + knownSHA1);
+        assertThat(initiateRequest.getObjectMetadata().getContentType()).isEqualTo(knownContentType);
+        assertThat(initiateRequest.getObjectMetadata().getUserMetaDataOf(S3Repository.MD5_USER_METADATA))
+                .isEqualTo(knownMD5);
+
+        final UploadPartRequest uploadPartRequest = uploadPartRequestCaptor.getValue();
+        assertThat(uploadPartRequest.getUploadId()).isEqualTo("uploadId");
+        assertThat(uploadPartRequest.getPartSize()).isEqualTo(rndBytes.length);
+        assertThat(uploadPartRequest.getMd5Digest())
+                .isEqualTo(BaseEncoding.base64().encode(BaseEncoding.base16().lowerCase().decode(knownMD5)));
+
+        assertThat(completeRequestCaptor.getValue().getPartETags()).hasSize(1);
+    }
+
+    @Test
+    @Description("Verifies that a multipart upload is aborted if a part fails to upload")
+    public void failedPartAbortsMultipartUpload() throws IOException {
+        final byte[] rndBytes = randomBytes();
+        s3Properties.setMultipartUploadThreshold(rndBytes.length);
+
+        final InitiateMultipartUploadResult initiateResult = new InitiateMultipartUploadResult();
+        initiateResult.setUploadId("uploadId");
+        when(amazonS3Mock.initiateMultipartUpload(any())).thenReturn(initiateResult);
+        when(amazonS3Mock.uploadPart(any())).thenThrow(new AmazonClientException("part failed"));
+
+        // test
+        try {
+            storeRandomBytes(rndBytes, "application/octet-stream");
+            fail("Expected an ArtifactStoreException, but didn't throw");
+        } catch (final ArtifactStoreException e) {
+            assertThat(e.getCause()).isInstanceOf(AmazonClientException.class);
+        }
+
+        // verify
+        Mockito.verify(amazonS3Mock).abortMultipartUpload(any(AbortMultipartUploadRequest.class));
+        Mockito.verify(amazonS3Mock, never()).completeMultipartUpload(any());
+    }
+
     @Test
     @Description("Verifies that the amazonS3 client is called to retrieve the correct artifact from S3 and the mapping to the DBArtifact is correct")
     public void getArtifactBySHA1Hash() {
@@ -120,8 +225,7 @@ public class S3RepositoryTest {
         final String knownMdBase16 = BaseEncoding.base16().lowerCase().encode(knownMd5.getBytes());
         final String knownMd5Base64 = BaseEncoding.base64().encode(knownMd5.getBytes());
 
-        when(amazonS3Mock.getObject(anyString(), anyString())).thenReturn(s3ObjectMock);
-        when(s3ObjectMock.getObjectMetadata()).thenReturn(s3ObjectMetadataMock);
+        when(amazonS3Mock.getObjectMetadata(anyString(), anyString())).thenReturn(s3ObjectMetadataMock);
         when(s3ObjectMetadataMock.getContentLength()).thenReturn(knownContentLength);
         when(s3ObjectMetadataMock.getETag()).thenReturn(knownMd5Base64);
         when(s3ObjectMetadataMock.getContentType()).thenReturn(knownContentType);
@@ -135,6 +239,71 @@ public class S3RepositoryTest {
         assertThat(artifactBySha1.getSize()).isEqualTo(knownContentLength);
         assertThat(artifactBySha1.getHashes().getSha1()).isEqualTo(knownSHA1Hash);
         assertThat(artifactBySha1.getHashes().getMd5()).isEqualTo(knownMdBase16);
+        Mockito.verify(amazonS3Mock, never()).getObject(anyString(), anyString());
+    }
+
+    @Test
+    @Description("Verifies that null is returned if S3 answers the meta data request with not found")
+    public void getArtifactBySha1ReturnsNullIfMetadataNotFound() {
+        final String knownSHA1Hash = "da39a3ee5e6b4b0d3255bfef95601890afd80709";
+        final AmazonS3Exception notFound = new AmazonS3Exception("Not Found");
+        notFound.setStatusCode(404);
+
+        when(amazonS3Mock.getObjectMetadata(anyString(), anyString())).thenThrow(notFound);
+
+        // test
+        final AbstractDbArtifact artifactBySha1 = s3RepositoryUnderTest.getArtifactBySha1(TENANT, knownSHA1Hash);
+
+        // verify
+        assertThat(artifactBySha1).isNull();
+    }
+
+    @Test
+    @Description("Verifies that concurrent artifact lookups are served by meta data requests only and never open a content stream "
+            + "which would abort the pooled connection on close")
+    public void concurrentLookupsDoNotOpenContentStreams() throws InterruptedException, ExecutionException {
+        final int lookups = 5_000;
+        final String knownMd5Base64 = BaseEncoding.base64().encode("098f6bcd4621d373cade4e832627b4f6".getBytes());
+
+        when(amazonS3Mock.getObjectMetadata(anyString(), anyString())).thenReturn(s3ObjectMetadataMock);
+        when(s3ObjectMetadataMock.getETag()).thenReturn(knownMd5Base64);
+
+        // test
+        final ExecutorService executor = Executors.newFixedThreadPool(32);
+        try {
+            final List<Future<AbstractDbArtifact>> results = new ArrayList<>(lookups);
+            for (int i = 0; i < lookups; i++) {
+                final String sha1 = String.format("%040x", i);
+                results.add(executor.submit(() -> s3RepositoryUnderTest.getArtifactBySha1(TENANT, sha1)));
+            }
+            for (final Future<AbstractDbArtifact> result : results) {
+                assertThat(result.get()).isNotNull();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // verify
+        Mockito.verify(amazonS3Mock, Mockito.times(lookups)).getObjectMetadata(anyString(), anyString());
+        Mockito.verify(amazonS3Mock, never()).getObject(anyString(), anyString());
+        Mockito.verify(amazonS3Mock, never()).getObject(any(GetObjectRequest.class));
+    }
+
+    @Test
+    @Description("Verifies that a ranged read of an artifact is mapped to a ranged GET request on S3")
+    public void getFileInputStreamWithRangeRequestsRange() {
+        final String knownSHA1Hash = "da39a3ee5e6b4b0d3255bfef95601890afd80709";
+        final S3Artifact artifact = new S3Artifact(amazonS3Mock, s3Properties, TENANT + "/" + knownSHA1Hash,
+                knownSHA1Hash, new DbArtifactHash(knownSHA1Hash, null, null), 100L, "application/octet-stream");
+
+        when(amazonS3Mock.getObject(any(GetObjectRequest.class))).thenReturn(s3ObjectMock);
+
+        // test
+        artifact.getFileInputStream(10, 20);
+
+        // verify
+        Mockito.verify(amazonS3Mock).getObject(getObjectRequestCaptor.capture());
+        assertThat(getObjectRequestCaptor.getValue().getRange()).containsExactly(10L, 29L);
     }
 
     @Test
@@ -168,6 +337,53 @@ public class S3RepositoryTest {
         assertThat(artifactBySha1NotExists).isNull();
     }
 
+    @Test
+    @Description("Verifies that all pages of a tenant listing are deleted by multi-object delete requests")
+    public void deleteByTenantDeletesAllPagesInBatches() {
+        final ObjectListing firstPage = objectListing(true, "TEST_TENANT/1", "TEST_TENANT/2");
+        final ObjectListing lastPage = objectListing(false, "TEST_TENANT/3");
+
+        when(amazonS3Mock.listObjects(any(ListObjectsRequest.class))).thenReturn(firstPage);
+        when(amazonS3Mock.listNextBatchOfObjects(firstPage)).thenReturn(lastPage);
+
+        // test
+        s3RepositoryUnderTest.deleteByTenant(TENANT);
+
+        // verify
+        Mockito.verify(amazonS3Mock, Mockito.times(2)).deleteObjects(deleteObjectsRequestCaptor.capture());
+        assertThat(deleteObjectsRequestCaptor.getAllValues().stream().flatMap(request -> request.getKeys().stream())
+                .map(KeyVersion::getKey)).containsExactlyInAnyOrder("TEST_TENANT/1", "TEST_TENANT/2",
+                        "TEST_TENANT/3");
+        Mockito.verify(amazonS3Mock, never()).deleteObject(anyString(), anyString());
+    }
+
+    @Test
+    @Description("Verifies that objects which fail to be deleted are reported after all batches have been processed")
+    public void deleteByTenantReportsPartialFailures() {
+        final ObjectListing firstPage = objectListing(true, "TEST_TENANT/1", "TEST_TENANT/2");
+        final ObjectListing lastPage = objectListing(false, "TEST_TENANT/3");
+        final DeleteError error = new DeleteError();
+        error.setKey("TEST_TENANT/2");
+        error.setCode("AccessDenied");
+
+        when(amazonS3Mock.listObjects(any(ListObjectsRequest.class))).thenReturn(firstPage);
+        when(amazonS3Mock.listNextBatchOfObjects(firstPage)).thenReturn(lastPage);
+        when(amazonS3Mock.deleteObjects(any())).thenThrow(
+                new MultiObjectDeleteException(Collections.singletonList(error), Collections.emptyList()))
+                .thenReturn(null);
+
+        // test
+        try {
+            s3RepositoryUnderTest.deleteByTenant(TENANT);
+            fail("Expected an ArtifactStoreException, but didn't throw");
+        } catch (final ArtifactStoreException e) {
+            assertThat(e.getMessage()).contains("Failed to delete 1 S3 objects");
+        }
+
+        // verify
+        Mockito.verify(amazonS3Mock, Mockito.times(2)).deleteObjects(any());
+    }
+
     @Test
     @Description("Verifies that given SHA1 hash is checked and if not match will throw exception")
     public void sha1HashValuesAreNotTheSameThrowsException() throws IOException, NoSuchAlgorithmException {
@@ -225,6 +441,17 @@ public class S3RepositoryTest {
         }
     }
 
+    private static ObjectListing objectListing(final boolean truncated, final String... keys) {
+        final ObjectListing listing = new ObjectListing();
+        listing.setTruncated(truncated);
+        for (final String key : keys) {
+            final S3ObjectSummary summary = new S3ObjectSummary();
+            summary.setKey(key);
+            listing.getObjectSummaries().add(summary);
+        }
+        return listing;
+    }
+
     private void storeRandomBytes(final byte[] rndBytes, final String contentType)
             throws IOException, NoSuchAlgorithmException {
         storeRandomBytes(rndBytes, contentType, null);
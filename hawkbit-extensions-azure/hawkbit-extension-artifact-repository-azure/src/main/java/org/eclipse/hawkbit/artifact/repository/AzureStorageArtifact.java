@@ -8,7 +8,9 @@
  */
 package org.eclipse.hawkbit.artifact.repository;
 
+import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.util.concurrent.ExecutorService;
 
 import org.eclipse.hawkbit.artifact.repository.model.AbstractDbArtifact;
 import org.eclipse.hawkbit.artifact.repository.model.DbArtifactHash;
@@ -19,21 +21,42 @@ import com.microsoft.azure.storage.blob.CloudBlockBlob;
 
 /**
  * An {@link AbstractDbArtifact} implementation which retrieves the
- * {@link InputStream} from the {@link CloudBlockBlob} client.
+ * {@link InputStream} from the {@link CloudBlockBlob} client. The blob is
+ * either downloaded sequentially by the client or by several parallel range
+ * requests.
  */
 public class AzureStorageArtifact extends AbstractDbArtifact {
 
     private final CloudBlockBlob blob;
+    private final int rangeSize;
+    private final int concurrency;
+    private final ExecutorService executor;
 
     AzureStorageArtifact(final CloudBlockBlob blob, final String artifactId, final DbArtifactHash hashes,
             final Long size, final String contentType) {
+        this(blob, artifactId, hashes, size, contentType, 0, 1, null);
+    }
+
+    AzureStorageArtifact(final CloudBlockBlob blob, final String artifactId, final DbArtifactHash hashes,
+            final Long size, final String contentType, final int rangeSize, final int concurrency,
+            final ExecutorService executor) {
         super(artifactId, hashes, size, contentType);
         Assert.notNull(blob, "Azure storage blob cannot be null");
         this.blob = blob;
+        this.rangeSize = rangeSize;
+        this.concurrency = concurrency;
+        this.executor = executor;
+    }
+
+    private boolean isParallelDownload() {
+        return executor != null && concurrency > 1 && rangeSize > 0;
     }
 
     @Override
     public InputStream getFileInputStream() {
+        if (isParallelDownload()) {
+            return new AzureStorageRangeInputStream(blob, 0, getSize(), rangeSize, concurrency, executor);
+        }
         try {
             return blob.openInputStream();
         } catch (final StorageException e) {
@@ -41,4 +64,30 @@ public class AzureStorageArtifact extends AbstractDbArtifact {
         }
     }
 
+    /**
+     * Opens a stream on a range of the blob, e.g. to resume a download without
+     * reading the already transferred bytes again.
+     *
+     * @param offset
+     *            position of the first byte to read
+     * @param length
+     *            number of bytes to read
+     * @return the {@link InputStream} of the requested range
+     */
+    public InputStream getFileInputStream(final long offset, final long length) {
+        Assert.isTrue(offset >= 0, "Offset cannot be negative");
+        Assert.isTrue(length >= 0, "Length cannot be negative");
+        if (length == 0) {
+            return new ByteArrayInputStream(new byte[0]);
+        }
+        if (isParallelDownload()) {
+            return new AzureStorageRangeInputStream(blob, offset, length, rangeSize, concurrency, executor);
+        }
+        try {
+            return blob.openInputStream(offset, length, null, null, null);
+        } catch (final StorageException e) {
+            throw new ArtifactStoreException("Failed to open stream on Azure Storage blob", e);
+        }
+    }
+
 }
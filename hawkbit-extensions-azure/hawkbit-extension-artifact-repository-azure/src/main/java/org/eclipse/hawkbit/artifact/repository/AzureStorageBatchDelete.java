@@ -0,0 +1,128 @@
+/**
+ * Copyright (c) 2020 Microsoft and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.artifact.repository;
+
+import java.net.URISyntaxException;
+import java.util.EnumSet;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.microsoft.azure.storage.ResultContinuation;
+import com.microsoft.azure.storage.ResultSegment;
+import com.microsoft.azure.storage.StorageException;
+import com.microsoft.azure.storage.blob.BlobListingDetails;
+import com.microsoft.azure.storage.blob.CloudBlob;
+import com.microsoft.azure.storage.blob.CloudBlobDirectory;
+import com.microsoft.azure.storage.blob.ListBlobItem;
+
+/**
+ * Deletes all blobs of a {@link CloudBlobDirectory}. The directory is listed
+ * segment by segment and the blobs are deleted while the listing continues,
+ * with at most {@link AzureStorageRepositoryProperties#getDeleteConcurrency()}
+ * delete requests in flight. Blobs which cannot be deleted are collected and
+ * reported at the end instead of stopping at the first failure.
+ */
+class AzureStorageBatchDelete {
+    private static final Logger LOG = LoggerFactory.getLogger(AzureStorageBatchDelete.class);
+
+    /**
+     * Number of blobs listed per segment.
+     */
+    static final int SEGMENT_SIZE = 256;
+
+    private final AzureStorageRepositoryProperties properties;
+
+    private final AtomicLong deleted = new AtomicLong();
+    private final Queue<String> failed = new ConcurrentLinkedQueue<>();
+
+    AzureStorageBatchDelete(final AzureStorageRepositoryProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * Deletes all blobs of the given directory.
+     *
+     * @param directory
+     *            the directory to delete
+     *
+     * @throws StorageException
+     *             if the directory could not be listed
+     * @throws URISyntaxException
+     *             if the directory could not be listed
+     * @throws ArtifactStoreException
+     *             if any of the blobs could not be deleted
+     */
+    void delete(final CloudBlobDirectory directory) throws StorageException, URISyntaxException {
+        final int concurrency = Math.max(1, properties.getDeleteConcurrency());
+        final ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        // bounds the number of listed but not yet deleted blobs
+        final Semaphore inFlight = new Semaphore(SEGMENT_SIZE);
+
+        try {
+            ResultContinuation token = null;
+            do {
+                final ResultSegment<ListBlobItem> segment = directory.listBlobsSegmented("", true,
+                        EnumSet.noneOf(BlobListingDetails.class), SEGMENT_SIZE, token, null, null);
+                for (final ListBlobItem item : segment.getResults()) {
+                    if (item instanceof CloudBlob) {
+                        inFlight.acquire();
+                        executor.execute(() -> {
+                            try {
+                                deleteBlob((CloudBlob) item);
+                            } finally {
+                                inFlight.release();
+                            }
+                        });
+                    }
+                }
+                token = segment.getContinuationToken();
+                LOG.debug("Deleted {} blobs of directory {} so far, {} failed", deleted.get(), directory.getPrefix(),
+                        failed.size());
+            } while (token != null);
+
+            executor.shutdown();
+            while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                LOG.info("Deleted {} blobs of directory {} so far, {} failed", deleted.get(), directory.getPrefix(),
+                        failed.size());
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ArtifactStoreException("Interrupted while deleting directory " + directory.getPrefix(), e);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        LOG.info("Deleted {} blobs of directory {} from container {}", deleted.get(), directory.getPrefix(),
+                properties.getContainerName());
+
+        if (!failed.isEmpty()) {
+            throw new ArtifactStoreException("Failed to delete " + failed.size() + " blobs of directory "
+                    + directory.getPrefix() + " from Azure storage");
+        }
+    }
+
+    private void deleteBlob(final CloudBlob blob) {
+        try {
+            if (blob.deleteIfExists()) {
+                deleted.incrementAndGet();
+            }
+        } catch (final StorageException e) {
+            LOG.warn("Failed to delete Azure Storage blob {}: {}", blob.getName(), e.getMessage());
+            failed.add(blob.getName());
+        }
+    }
+}
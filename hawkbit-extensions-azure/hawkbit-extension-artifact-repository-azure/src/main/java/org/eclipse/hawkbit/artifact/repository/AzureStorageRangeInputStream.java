@@ -0,0 +1,193 @@
+/**
+ * Copyright (c) 2020 Microsoft and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.artifact.repository;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import com.microsoft.azure.storage.StorageException;
+import com.microsoft.azure.storage.blob.CloudBlob;
+
+/**
+ * {@link InputStream} which downloads a blob by several range requests at the
+ * same time. At most {@code concurrency} ranges are downloaded or buffered at
+ * any time, the ranges are returned to the reader in order. Every consumed
+ * range frees its slot for the download of the next range.
+ */
+class AzureStorageRangeInputStream extends InputStream {
+
+    private final String name;
+    private final RangeReader reader;
+    private final long end;
+    private final int rangeSize;
+    private final int concurrency;
+    private final ExecutorService executor;
+
+    private final Deque<Future<byte[]>> ranges = new ArrayDeque<>();
+    private long nextOffset;
+
+    private byte[] current;
+    private int position;
+    private boolean closed;
+
+    /**
+     * @param blob
+     *            the blob to download
+     * @param offset
+     *            position of the first byte to download
+     * @param length
+     *            number of bytes to download
+     * @param rangeSize
+     *            size of a single range request
+     * @param concurrency
+     *            number of range requests in flight
+     * @param executor
+     *            executes the range requests
+     */
+    AzureStorageRangeInputStream(final CloudBlob blob, final long offset, final long length, final int rangeSize,
+            final int concurrency, final ExecutorService executor) {
+        this(blob.getName(), blob::downloadRangeToByteArray, offset, length, rangeSize, concurrency, executor);
+    }
+
+    /**
+     * @param name
+     *            name of the downloaded blob
+     * @param reader
+     *            reads a range of the blob
+     * @param offset
+     *            position of the first byte to download
+     * @param length
+     *            number of bytes to download
+     * @param rangeSize
+     *            size of a single range request
+     * @param concurrency
+     *            number of range requests in flight
+     * @param executor
+     *            executes the range requests
+     */
+    AzureStorageRangeInputStream(final String name, final RangeReader reader, final long offset, final long length,
+            final int rangeSize, final int concurrency, final ExecutorService executor) {
+        this.name = name;
+        this.reader = reader;
+        this.nextOffset = offset;
+        this.end = offset + length;
+        this.rangeSize = rangeSize;
+        this.concurrency = concurrency;
+        this.executor = executor;
+        scheduleRanges();
+    }
+
+    private void scheduleRanges() {
+        while (ranges.size() < concurrency && nextOffset < end) {
+            final long rangeOffset = nextOffset;
+            final int rangeLength = (int) Math.min(rangeSize, end - rangeOffset);
+            ranges.add(executor.submit(() -> downloadRange(rangeOffset, rangeLength)));
+            nextOffset += rangeLength;
+        }
+    }
+
+    private byte[] downloadRange(final long offset, final int length) throws StorageException, IOException {
+        final byte[] buffer = new byte[length];
+        int read = 0;
+        while (read < length) {
+            final int count = reader.read(offset + read, (long) length - read, buffer, read);
+            if (count <= 0) {
+                // the blob is shorter than expected, e.g. it has been replaced
+                throw new EOFException("Blob " + name + " ended at " + (offset + read) + " before "
+                        + (offset + length));
+            }
+            read += count;
+        }
+        return buffer;
+    }
+
+    private boolean nextRange() throws IOException {
+        while (current == null || position == current.length) {
+            final Future<byte[]> range = ranges.poll();
+            if (range == null) {
+                return false;
+            }
+            try {
+                current = range.get();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while downloading blob " + name);
+            } catch (final ExecutionException e) {
+                throw new IOException("Failed to download range of blob " + name, e.getCause());
+            }
+            position = 0;
+            scheduleRanges();
+        }
+        return true;
+    }
+
+    @Override
+    public int read() throws IOException {
+        ensureOpen();
+        if (!nextRange()) {
+            return -1;
+        }
+        return current[position++] & 0xFF;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+        ensureOpen();
+        if (len == 0) {
+            return 0;
+        }
+        if (!nextRange()) {
+            return -1;
+        }
+        final int count = Math.min(len, current.length - position);
+        System.arraycopy(current, position, b, off, count);
+        position += count;
+        return count;
+    }
+
+    @Override
+    public int available() throws IOException {
+        ensureOpen();
+        return current == null ? 0 : current.length - position;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        current = null;
+        ranges.forEach(range -> range.cancel(true));
+        ranges.clear();
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+    }
+
+    /**
+     * Reads a range of a blob, see
+     * {@link CloudBlob#downloadRangeToByteArray(long, Long, byte[], int)}.
+     */
+    @FunctionalInterface
+    interface RangeReader {
+
+        /**
+         * @return the number of bytes read into the buffer
+         */
+        int read(long offset, long length, byte[] buffer, int bufferOffset) throws StorageException;
+    }
+}
@@ -11,33 +11,35 @@ package org.eclipse.hawkbit.artifact.repository;
 import java.io.File;
 import java.io.IOException;
 import java.net.URISyntaxException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.eclipse.hawkbit.artifact.repository.model.AbstractDbArtifact;
 import org.eclipse.hawkbit.artifact.repository.model.DbArtifactHash;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.validation.annotation.Validated;
 
 import com.google.common.io.BaseEncoding;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.microsoft.azure.storage.CloudStorageAccount;
 import com.microsoft.azure.storage.OperationContext;
-import com.microsoft.azure.storage.ResultContinuation;
-import com.microsoft.azure.storage.ResultSegment;
+import com.microsoft.azure.storage.StorageErrorCodeStrings;
 import com.microsoft.azure.storage.StorageException;
 import com.microsoft.azure.storage.blob.BlobContainerPublicAccessType;
 import com.microsoft.azure.storage.blob.BlobRequestOptions;
-import com.microsoft.azure.storage.blob.CloudBlob;
 import com.microsoft.azure.storage.blob.CloudBlobClient;
 import com.microsoft.azure.storage.blob.CloudBlobContainer;
 import com.microsoft.azure.storage.blob.CloudBlobDirectory;
 import com.microsoft.azure.storage.blob.CloudBlockBlob;
-import com.microsoft.azure.storage.blob.ListBlobItem;
 
 /**
  * An {@link ArtifactRepository} implementation for Azure Storage.
  */
 @Validated
-public class AzureStorageRepository extends AbstractArtifactRepository {
+public class AzureStorageRepository extends AbstractArtifactRepository implements DisposableBean {
 
     private static final Logger LOG = LoggerFactory.getLogger(AzureStorageRepository.class);
 
@@ -46,18 +48,97 @@ public class AzureStorageRepository extends AbstractArtifactRepository {
     private final CloudBlobClient blobClient;
     private final AzureStorageRepositoryProperties properties;
 
+    /**
+     * The container is created (if necessary) on first use and cached
+     * afterwards. It is only checked again if a request fails because the
+     * container does not exist anymore.
+     */
+    private volatile CloudBlobContainer container;
+    private final AtomicLong savedContainerRequests = new AtomicLong();
+
+    /**
+     * Executes the range requests of all parallel downloads with at most
+     * downloadThreads threads, <code>null</code> if artifacts are downloaded
+     * sequentially.
+     */
+    private final ExecutorService downloadExecutor;
+
     public AzureStorageRepository(final CloudStorageAccount storageAccount,
             final AzureStorageRepositoryProperties properties) {
-        this.blobClient = storageAccount.createCloudBlobClient();
+        this(storageAccount.createCloudBlobClient(), properties);
+    }
+
+    AzureStorageRepository(final CloudBlobClient blobClient, final AzureStorageRepositoryProperties properties) {
+        this.blobClient = blobClient;
         this.properties = properties;
+        this.downloadExecutor = properties.getDownloadConcurrency() > 1
+                ? Executors.newFixedThreadPool(properties.getDownloadThreads(),
+                        new ThreadFactoryBuilder().setNameFormat("azure-storage-download-%d").setDaemon(true).build())
+                : null;
+    }
+
+    @Override
+    public void destroy() {
+        if (downloadExecutor != null) {
+            downloadExecutor.shutdownNow();
+        }
     }
 
     private CloudBlobContainer getContainer() throws URISyntaxException, StorageException {
-        final CloudBlobContainer container = blobClient.getContainerReference(properties.getContainerName());
-        container.createIfNotExists(BlobContainerPublicAccessType.CONTAINER, new BlobRequestOptions(),
-                new OperationContext());
+        final CloudBlobContainer cached = container;
+        if (cached != null) {
+            savedContainerRequests.incrementAndGet();
+            return cached;
+        }
+
+        synchronized (this) {
+            if (container == null) {
+                final CloudBlobContainer reference = blobClient.getContainerReference(properties.getContainerName());
+                reference.createIfNotExists(BlobContainerPublicAccessType.CONTAINER, new BlobRequestOptions(),
+                        new OperationContext());
+                container = reference;
+            } else {
+                savedContainerRequests.incrementAndGet();
+            }
+            return container;
+        }
+    }
+
+    private CloudBlobDirectory getTenantDirectory(final String tenant) throws URISyntaxException, StorageException {
+        // a local call which does not need to be cached
+        return getContainer().getDirectoryReference(sanitizeTenant(tenant));
+    }
+
+    /**
+     * Executes the given operation and executes it a second time with a
+     * freshly created container in case it failed because the container does
+     * not exist (anymore).
+     */
+    private <T> T withContainer(final StorageOperation<T> operation) throws URISyntaxException, StorageException {
+        try {
+            return operation.execute();
+        } catch (final StorageException e) {
+            if (!StorageErrorCodeStrings.CONTAINER_NOT_FOUND.equals(e.getErrorCode())) {
+                throw e;
+            }
+            LOG.warn("Azure Storage container {} not found, creating it again", properties.getContainerName());
+            container = null;
+            return operation.execute();
+        }
+    }
+
+    /**
+     * @return number of requests to the storage account which have been saved
+     *         by caching the container instead of creating it for every
+     *         operation, i.e. one per avoided container creation
+     */
+    public long getSavedContainerRequests() {
+        return savedContainerRequests.get();
+    }
 
-        return container;
+    @FunctionalInterface
+    private interface StorageOperation<T> {
+        T execute() throws URISyntaxException, StorageException;
     }
 
     @Override
@@ -66,10 +147,20 @@ public class AzureStorageRepository extends AbstractArtifactRepository {
 
         final File file = new File(tempFile);
 
+        try {
+            return withContainer(() -> store(tenant, base16Hashes, contentType, tempFile, file));
+        } catch (final URISyntaxException | StorageException e) {
+            throw new ArtifactStoreException("Failed to store artifact into Azure storage", e);
+        }
+    }
+
+    private AbstractDbArtifact store(final String tenant, final DbArtifactHash base16Hashes,
+            final String contentType, final String tempFile, final File file)
+            throws URISyntaxException, StorageException {
         try {
             final CloudBlockBlob blob = getBlob(tenant, base16Hashes.getSha1());
 
-            final AzureStorageArtifact artifact = new AzureStorageArtifact(blob, base16Hashes.getSha1(), base16Hashes,
+            final AzureStorageArtifact artifact = newArtifact(blob, base16Hashes.getSha1(), base16Hashes,
                     file.length(), contentType);
 
             LOG.info("Storing file {} with length {} to Azure Storage container {} in directory {}", file.getName(),
@@ -100,11 +191,20 @@ public class AzureStorageRepository extends AbstractArtifactRepository {
                     base16Hashes.getSha1(), blob.getContainer().getName(), blob.getProperties().getEtag(), md5Base16);
 
             return artifact;
-        } catch (final URISyntaxException | StorageException e) {
+        } catch (final IOException e) {
             throw new ArtifactStoreException("Failed to store artifact into Azure storage", e);
         }
     }
 
+    private AzureStorageArtifact newArtifact(final CloudBlockBlob blob, final String artifactId,
+            final DbArtifactHash hashes, final Long size, final String contentType) {
+        if (downloadExecutor == null) {
+            return new AzureStorageArtifact(blob, artifactId, hashes, size, contentType);
+        }
+        return new AzureStorageArtifact(blob, artifactId, hashes, size, contentType,
+                properties.getDownloadRangeSize(), properties.getDownloadConcurrency(), downloadExecutor);
+    }
+
     private static String convertToBase16(final String md5Base64) {
         if (md5Base64 == null) {
             return null;
@@ -115,20 +215,20 @@ public class AzureStorageRepository extends AbstractArtifactRepository {
 
     private CloudBlockBlob getBlob(final String tenant, final String sha1Hash16)
             throws URISyntaxException, StorageException {
-        final CloudBlobContainer container = getContainer();
-        final CloudBlobDirectory tenantDirectory = container.getDirectoryReference(sanitizeTenant(tenant));
-        return tenantDirectory.getBlockBlobReference(sha1Hash16);
+        return getTenantDirectory(tenant).getBlockBlobReference(sha1Hash16);
     }
 
     @Override
     public void deleteBySha1(final String tenant, final String sha1Hash16) {
         try {
-            final CloudBlockBlob blob = getBlob(tenant, sha1Hash16);
-
-            LOG.info("Deleting Azure Storage blob from container {} and hash {} for tenant {}",
-                    blob.getContainer().getName(), sha1Hash16, tenant);
-            blob.delete();
+            withContainer(() -> {
+                final CloudBlockBlob blob = getBlob(tenant, sha1Hash16);
 
+                LOG.info("Deleting Azure Storage blob from container {} and hash {} for tenant {}",
+                        blob.getContainer().getName(), sha1Hash16, tenant);
+                blob.delete();
+                return null;
+            });
         } catch (final URISyntaxException | StorageException e) {
             throw new ArtifactStoreException("Failed to delete artifact from Azure storage", e);
         }
@@ -137,18 +237,20 @@ public class AzureStorageRepository extends AbstractArtifactRepository {
     @Override
     public AbstractDbArtifact getArtifactBySha1(final String tenant, final String sha1Hash16) {
         try {
-            final CloudBlockBlob blob = getBlob(tenant, sha1Hash16);
+            return withContainer(() -> {
+                final CloudBlockBlob blob = getBlob(tenant, sha1Hash16);
 
-            if (blob == null || !blob.exists()) {
-                return null;
-            }
+                if (blob == null || !blob.exists()) {
+                    return null;
+                }
 
-            LOG.info("Loading Azure Storage blob from container {} and hash {} for tenant {}",
-                    blob.getContainer().getName(), sha1Hash16, tenant);
+                LOG.info("Loading Azure Storage blob from container {} and hash {} for tenant {}",
+                        blob.getContainer().getName(), sha1Hash16, tenant);
 
-            return new AzureStorageArtifact(blob, sha1Hash16,
-                    new DbArtifactHash(sha1Hash16, convertToBase16(blob.getProperties().getContentMD5()), null),
-                    blob.getProperties().getLength(), blob.getProperties().getContentType());
+                return newArtifact(blob, sha1Hash16,
+                        new DbArtifactHash(sha1Hash16, convertToBase16(blob.getProperties().getContentMD5()), null),
+                        blob.getProperties().getLength(), blob.getProperties().getContentType());
+            });
         } catch (final URISyntaxException | StorageException e) {
             throw new ArtifactStoreException("Failed to load artifact into Azure storage", e);
         }
@@ -158,37 +260,21 @@ public class AzureStorageRepository extends AbstractArtifactRepository {
     public void deleteByTenant(final String tenant) {
 
         try {
-            final CloudBlobContainer container = getContainer();
-            final CloudBlobDirectory tenantDirectory = container.getDirectoryReference(sanitizeTenant(tenant));
-
-            LOG.info("Deleting Azure Storage blob folder (tenant) from container {} for tenant {}", container.getName(),
-                    tenant);
+            final CloudBlobDirectory tenantDirectory = withContainer(() -> getTenantDirectory(tenant));
 
-            final ResultSegment<ListBlobItem> blobs = tenantDirectory.listBlobsSegmented();
-            ResultContinuation token = null;
-            do {
-                token = blobs.getContinuationToken();
-                blobs.getResults().stream().filter(CloudBlob.class::isInstance).map(CloudBlob.class::cast)
-                        .forEach(this::deleteBlob);
-            } while (token != null);
+            LOG.info("Deleting Azure Storage blob folder (tenant) from container {} for tenant {}",
+                    properties.getContainerName(), tenant);
 
+            new AzureStorageBatchDelete(properties).delete(tenantDirectory);
         } catch (final URISyntaxException | StorageException e) {
             throw new ArtifactStoreException("Failed to delete tenant directory from Azure storage", e);
         }
     }
 
-    private void deleteBlob(final CloudBlob blob) {
-        try {
-            blob.delete();
-        } catch (final StorageException e) {
-            throw new ArtifactStoreException("Failed to delete tenant directory from Azure storage", e);
-        }
-    }
-
     @Override
     public boolean existsByTenantAndSha1(final String tenant, final String sha1Hash) {
         try {
-            return getBlob(tenant, sha1Hash).exists();
+            return withContainer(() -> getBlob(tenant, sha1Hash).exists());
         } catch (StorageException | URISyntaxException e) {
             LOG.warn("Caught Exception while calling getBlob() for tenant: {} and sha1Hash: {}", tenant, sha1Hash, e);
             return false;
@@ -11,6 +11,7 @@ package org.eclipse.hawkbit.artifact.repository;
 import java.net.URISyntaxException;
 import java.security.InvalidKeyException;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -18,6 +19,10 @@ import org.springframework.context.annotation.PropertySource;
 
 import com.microsoft.azure.storage.CloudStorageAccount;
 
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
 /**
  * The Spring auto-configuration to register the necessary beans for the Azure
  * Storage artifact repository implementation.
@@ -38,8 +43,30 @@ public class AzureStorageRepositoryAutoConfiguration {
      *         implementation.
      */
     @Bean
-    ArtifactRepository artifactRepository(final CloudStorageAccount storageAccount,
+    AzureStorageRepository artifactRepository(final CloudStorageAccount storageAccount,
             final AzureStorageRepositoryProperties properties) {
         return new AzureStorageRepository(storageAccount, properties);
     }
+
+    /**
+     * @return {@link MeterBinder} which reports the requests to the storage
+     *         account that have been saved by caching the container.
+     */
+    @Bean
+    MeterBinder azureStorageRepositoryMetrics(final AzureStorageRepository artifactRepository) {
+        return registry -> FunctionCounter
+                .builder("hawkbit.artifact.repository.azure.requests.saved", artifactRepository,
+                        AzureStorageRepository::getSavedContainerRequests)
+                .description("Container requests saved by caching the Azure Storage container").register(registry);
+    }
+
+    /**
+     * @return {@link ArtifactRepositoryDecoratingPostProcessor} which reports
+     *         the metrics of the Azure Storage repository
+     */
+    @Bean
+    static ArtifactRepositoryDecoratingPostProcessor azureStorageRepositoryInstrumentation(
+            final ObjectProvider<MeterRegistry> meterRegistry) {
+        return ArtifactRepositoryInstrumentation.postProcessor("azure", AzureStorageRepository.class, meterRegistry);
+    }
 }
@@ -29,6 +29,31 @@ public class AzureStorageRepositoryProperties {
     @NotEmpty
     private String connectionString;
 
+    @Min(1)
+    private int deleteConcurrency = 16;
+
+    /**
+     * Number of range requests downloading an artifact at the same time. With
+     * 1 artifacts are downloaded sequentially by a single request.
+     */
+    @Min(1)
+    private int downloadConcurrency = 1;
+
+    /**
+     * Size of a single range request in bytes if artifacts are downloaded by
+     * parallel range requests. Every download buffers up to
+     * downloadConcurrency ranges in memory.
+     */
+    @Min(1)
+    private int downloadRangeSize = 4 * 1024 * 1024;
+
+    /**
+     * Number of threads executing the range requests of all parallel
+     * downloads together. Range requests beyond are queued.
+     */
+    @Min(1)
+    private int downloadThreads = 32;
+
     public String getContainerName() {
         return containerName;
     }
@@ -53,4 +78,36 @@ public class AzureStorageRepositoryProperties {
         this.connectionString = connectionString;
     }
 
+    public int getDeleteConcurrency() {
+        return deleteConcurrency;
+    }
+
+    public void setDeleteConcurrency(final int deleteConcurrency) {
+        this.deleteConcurrency = deleteConcurrency;
+    }
+
+    public int getDownloadConcurrency() {
+        return downloadConcurrency;
+    }
+
+    public void setDownloadConcurrency(final int downloadConcurrency) {
+        this.downloadConcurrency = downloadConcurrency;
+    }
+
+    public int getDownloadRangeSize() {
+        return downloadRangeSize;
+    }
+
+    public void setDownloadRangeSize(final int downloadRangeSize) {
+        this.downloadRangeSize = downloadRangeSize;
+    }
+
+    public int getDownloadThreads() {
+        return downloadThreads;
+    }
+
+    public void setDownloadThreads(final int downloadThreads) {
+        this.downloadThreads = downloadThreads;
+    }
+
 }
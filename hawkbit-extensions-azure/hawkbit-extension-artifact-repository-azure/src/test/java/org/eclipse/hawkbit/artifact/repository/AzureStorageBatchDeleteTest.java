@@ -0,0 +1,119 @@
+/**
+ * Copyright (c) 2020 Microsoft and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.artifact.repository;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import com.microsoft.azure.storage.ResultContinuation;
+import com.microsoft.azure.storage.ResultSegment;
+import com.microsoft.azure.storage.StorageErrorCodeStrings;
+import com.microsoft.azure.storage.StorageException;
+import com.microsoft.azure.storage.blob.CloudBlobDirectory;
+import com.microsoft.azure.storage.blob.CloudBlockBlob;
+import com.microsoft.azure.storage.blob.ListBlobItem;
+
+import io.qameta.allure.Description;
+import io.qameta.allure.Feature;
+import io.qameta.allure.Story;
+
+/**
+ * Test class for the {@link AzureStorageBatchDelete}.
+ */
+@RunWith(MockitoJUnitRunner.class)
+@Feature("Unit Tests - Azure Storage Repository")
+@Story("Batch delete")
+public class AzureStorageBatchDeleteTest {
+
+    @Mock
+    private CloudBlobDirectory directoryMock;
+
+    @Mock
+    private CloudBlobDirectory subDirectoryMock;
+
+    private final AzureStorageRepositoryProperties properties = new AzureStorageRepositoryProperties();
+
+    @Test
+    @Description("Verifies that the blobs of all segments of the listing are deleted and the listing ends with the "
+            + "last segment.")
+    public void deleteAllSegments() throws StorageException, URISyntaxException {
+        final List<CloudBlockBlob> first = blobs(AzureStorageBatchDelete.SEGMENT_SIZE);
+        final List<CloudBlockBlob> second = blobs(100);
+        final ResultContinuation token = new ResultContinuation();
+        token.setNextMarker("next");
+        when(directoryMock.listBlobsSegmented(eq(""), eq(true), any(), anyInt(), isNull(), isNull(), isNull()))
+                .thenReturn(new ResultSegment<>(items(first), AzureStorageBatchDelete.SEGMENT_SIZE, token));
+        when(directoryMock.listBlobsSegmented(eq(""), eq(true), any(), anyInt(), eq(token), isNull(), isNull()))
+                .thenReturn(new ResultSegment<>(items(second), AzureStorageBatchDelete.SEGMENT_SIZE, null));
+
+        new AzureStorageBatchDelete(properties).delete(directoryMock);
+
+        verify(directoryMock, times(2)).listBlobsSegmented(eq(""), eq(true), any(), anyInt(), any(), isNull(),
+                isNull());
+        for (final CloudBlockBlob blob : first) {
+            verify(blob).deleteIfExists();
+        }
+        for (final CloudBlockBlob blob : second) {
+            verify(blob).deleteIfExists();
+        }
+    }
+
+    @Test
+    @Description("Verifies that a blob which cannot be deleted does not stop the deletion of the other blobs but "
+            + "fails the deletion at the end.")
+    public void failedBlobsAreReportedAtTheEnd() throws StorageException, URISyntaxException {
+        final List<CloudBlockBlob> blobs = blobs(9);
+        final CloudBlockBlob failing = mock(CloudBlockBlob.class);
+        blobs.add(0, failing);
+        when(failing.deleteIfExists())
+                .thenThrow(new StorageException(StorageErrorCodeStrings.SERVER_BUSY, "The server is busy.", null));
+        when(failing.getName()).thenReturn("failing");
+        when(directoryMock.listBlobsSegmented(eq(""), eq(true), any(), anyInt(), isNull(), isNull(), isNull()))
+                .thenReturn(new ResultSegment<>(items(blobs), AzureStorageBatchDelete.SEGMENT_SIZE, null));
+
+        assertThatThrownBy(() -> new AzureStorageBatchDelete(properties).delete(directoryMock))
+                .isInstanceOf(ArtifactStoreException.class).hasMessageContaining("Failed to delete 1 blobs");
+        for (final CloudBlockBlob blob : blobs) {
+            verify(blob).deleteIfExists();
+        }
+    }
+
+    private static List<CloudBlockBlob> blobs(final int count) throws StorageException {
+        final List<CloudBlockBlob> blobs = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            final CloudBlockBlob blob = mock(CloudBlockBlob.class);
+            when(blob.deleteIfExists()).thenReturn(true);
+            blobs.add(blob);
+        }
+        return blobs;
+    }
+
+    private ArrayList<ListBlobItem> items(final List<CloudBlockBlob> blobs) {
+        final ArrayList<ListBlobItem> items = new ArrayList<>(blobs);
+        // directories are listed as well but not deleted
+        items.add(subDirectoryMock);
+        return items;
+    }
+}
@@ -0,0 +1,115 @@
+/**
+ * Copyright (c) 2020 Microsoft and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.artifact.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.util.StreamUtils;
+
+import com.microsoft.azure.storage.StorageException;
+
+import io.qameta.allure.Description;
+import io.qameta.allure.Feature;
+import io.qameta.allure.Story;
+
+/**
+ * Test class for the {@link AzureStorageRangeInputStream}.
+ */
+@Feature("Unit Tests - Azure Storage Repository")
+@Story("Parallel range download")
+public class AzureStorageRangeInputStreamTest {
+
+    private static final String BLOB = "test_blob";
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @After
+    public void after() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    @Description("Verifies that ranges which complete in any order are returned in order.")
+    public void rangesAreReturnedInOrder() throws IOException {
+        final byte[] blob = new byte[10_000];
+        new Random().nextBytes(blob);
+        final Random delays = new Random();
+
+        // ranges complete out of order and every request returns only a part
+        // of its range
+        final AzureStorageRangeInputStream.RangeReader reader = (offset, length, buffer, bufferOffset) -> {
+            sleep(delays.nextInt(5));
+            final int count = (int) Math.min(Math.min(length, 700), blob.length - offset);
+            System.arraycopy(blob, (int) offset, buffer, bufferOffset, count);
+            return count;
+        };
+
+        try (InputStream stream = new AzureStorageRangeInputStream(BLOB, reader, 0, blob.length, 1024, 4,
+                executor)) {
+            assertThat(StreamUtils.copyToByteArray(stream)).isEqualTo(blob);
+            assertThat(stream.read()).isEqualTo(-1);
+        }
+        try (InputStream stream = new AzureStorageRangeInputStream(BLOB, reader, 1000, 3000, 1024, 4, executor)) {
+            assertThat(StreamUtils.copyToByteArray(stream)).isEqualTo(Arrays.copyOfRange(blob, 1000, 4000));
+        }
+    }
+
+    @Test
+    @Description("Verifies that a blob which is shorter than expected fails the download instead of stalling it.")
+    public void shortBlobFailsWithEof() throws IOException {
+        final byte[] blob = new byte[1000];
+        final AzureStorageRangeInputStream.RangeReader reader = (offset, length, buffer, bufferOffset) -> {
+            final int count = (int) Math.max(0, Math.min(length, blob.length - offset));
+            System.arraycopy(blob, (int) Math.min(offset, blob.length), buffer, bufferOffset, count);
+            return count;
+        };
+
+        try (InputStream stream = new AzureStorageRangeInputStream(BLOB, reader, 0, 2000, 512, 2, executor)) {
+            assertThatThrownBy(() -> StreamUtils.copyToByteArray(stream)).isInstanceOf(IOException.class)
+                    .hasCauseInstanceOf(EOFException.class);
+        }
+    }
+
+    @Test
+    @Description("Verifies that a failed range request fails the download.")
+    public void failedRangeFailsDownload() throws IOException {
+        final AzureStorageRangeInputStream.RangeReader reader = (offset, length, buffer, bufferOffset) -> {
+            if (offset >= 1024) {
+                throw new StorageException("InternalError", "test", null);
+            }
+            return (int) length;
+        };
+
+        try (InputStream stream = new AzureStorageRangeInputStream(BLOB, reader, 0, 4096, 1024, 2, executor)) {
+            assertThat(stream.read(new byte[1024])).isEqualTo(1024);
+            assertThatThrownBy(stream::read).isInstanceOf(IOException.class)
+                    .hasCauseInstanceOf(StorageException.class);
+        }
+    }
+
+    private static void sleep(final int millis) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/**
+ * Copyright (c) 2020 Microsoft and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.artifact.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.net.URISyntaxException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import com.microsoft.azure.storage.StorageErrorCodeStrings;
+import com.microsoft.azure.storage.StorageException;
+import com.microsoft.azure.storage.blob.BlobContainerPublicAccessType;
+import com.microsoft.azure.storage.blob.CloudBlobClient;
+import com.microsoft.azure.storage.blob.CloudBlobContainer;
+import com.microsoft.azure.storage.blob.CloudBlobDirectory;
+import com.microsoft.azure.storage.blob.CloudBlockBlob;
+
+import io.qameta.allure.Description;
+import io.qameta.allure.Feature;
+import io.qameta.allure.Story;
+
+/**
+ * Test class for the {@link AzureStorageRepository}.
+ */
+@RunWith(MockitoJUnitRunner.class)
+@Feature("Unit Tests - Azure Storage Repository")
+@Story("Container cache")
+public class AzureStorageRepositoryTest {
+
+    private static final String SHA1 = "a94a8fe5ccb19ba61c4c0873d391e987982fbbd3";
+
+    @Mock
+    private CloudBlobClient blobClientMock;
+
+    @Mock
+    private CloudBlobContainer containerMock;
+
+    @Mock
+    private CloudBlobDirectory directoryMock;
+
+    @Mock
+    private CloudBlockBlob blobMock;
+
+    private final AzureStorageRepositoryProperties properties = new AzureStorageRepositoryProperties();
+
+    private AzureStorageRepository repositoryUnderTest;
+
+    @Before
+    public void before() throws URISyntaxException, StorageException {
+        when(blobClientMock.getContainerReference(properties.getContainerName())).thenReturn(containerMock);
+        when(containerMock.getDirectoryReference(anyString())).thenReturn(directoryMock);
+        when(directoryMock.getBlockBlobReference(SHA1)).thenReturn(blobMock);
+        repositoryUnderTest = new AzureStorageRepository(blobClientMock, properties);
+    }
+
+    @After
+    public void after() {
+        repositoryUnderTest.destroy();
+    }
+
+    @Test
+    @Description("Verifies that the container is created once for all tenants and every avoided creation is counted "
+            + "once.")
+    public void containerIsCreatedOnce() throws StorageException, URISyntaxException {
+        when(blobMock.exists()).thenReturn(true);
+
+        assertThat(repositoryUnderTest.existsByTenantAndSha1("tenant_a", SHA1)).isTrue();
+        assertThat(repositoryUnderTest.existsByTenantAndSha1("tenant_b", SHA1)).isTrue();
+        assertThat(repositoryUnderTest.existsByTenantAndSha1("tenant_a", SHA1)).isTrue();
+
+        verify(blobClientMock, times(1)).getContainerReference(properties.getContainerName());
+        verify(containerMock, times(1)).createIfNotExists(eq(BlobContainerPublicAccessType.CONTAINER), any(), any());
+        verify(containerMock, times(3)).getDirectoryReference(anyString());
+        assertThat(repositoryUnderTest.getSavedContainerRequests()).isEqualTo(2);
+    }
+
+    @Test
+    @Description("Verifies that an operation which fails because the container does not exist anymore is retried "
+            + "once with a container which is created again.")
+    public void containerIsCreatedAgainIfNotFound() throws StorageException, URISyntaxException {
+        when(blobMock.exists()).thenThrow(new StorageException(StorageErrorCodeStrings.CONTAINER_NOT_FOUND,
+                "The specified container does not exist.", null)).thenReturn(true);
+
+        assertThat(repositoryUnderTest.existsByTenantAndSha1("tenant_a", SHA1)).isTrue();
+        verify(containerMock, times(2)).createIfNotExists(eq(BlobContainerPublicAccessType.CONTAINER), any(), any());
+        verify(blobMock, times(2)).exists();
+        assertThat(repositoryUnderTest.getSavedContainerRequests()).isZero();
+
+        assertThat(repositoryUnderTest.existsByTenantAndSha1("tenant_a", SHA1)).isTrue();
+        verify(containerMock, times(2)).createIfNotExists(eq(BlobContainerPublicAccessType.CONTAINER), any(), any());
+        assertThat(repositoryUnderTest.getSavedContainerRequests()).isEqualTo(1);
+    }
+
+    @Test
+    @Description("Verifies that an operation which fails for another reason is not retried.")
+    public void otherFailuresAreNotRetried() throws StorageException, URISyntaxException {
+        when(blobMock.exists()).thenThrow(
+                new StorageException(StorageErrorCodeStrings.SERVER_BUSY, "The server is busy.", null));
+
+        assertThat(repositoryUnderTest.existsByTenantAndSha1("tenant_a", SHA1)).isFalse();
+        verify(containerMock, times(1)).createIfNotExists(eq(BlobContainerPublicAccessType.CONTAINER), any(), any());
+        verify(blobMock, times(1)).exists();
+    }
+}